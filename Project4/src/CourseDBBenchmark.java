@@ -0,0 +1,1031 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.ref.Reference;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * CourseDBBenchmark is a small command line driver that measures the course
+ * database structures on synthetic catalogs. It is not part of the test suite;
+ * run it with a warmed-up JVM and compare the numbers between runs.
+ */
+public class CourseDBBenchmark {
+
+	private static final int COURSES = 300_000;
+	private static final int ROUNDS = 5;
+	private static final int HALF_CRN_RANGE = (CourseDBElement.MAX_CRN - CourseDBElement.MIN_CRN) / 2 + 1;
+
+	/**
+	 * Runs every benchmark and prints the results to standard output.
+	 *
+	 * @param args not used
+	 * @throws IOException if a benchmark cannot read or write its files
+	 */
+	public static void main(String[] args) throws IOException {
+		CourseDBElement[] courses = randomCatalog(COURSES, new Random(204));
+		File catalog = writeCatalogFile(COURSES, new Random(203));
+		for (int round = 1; round <= ROUNDS; round++) {
+			System.out.println("Round " + round);
+			structureVersusBaseline(courses);
+			missPath(courses);
+			bloomFilterMisses(courses);
+			lookupTiming(courses);
+			offHeapFootprint(courses);
+			clusteredProbing(false);
+			clusteredProbing(true);
+			lookupPercentiles(new CourseDBStructure(16, 0.9, CourseDBHasher.DECIMAL_STRING, false), "linear");
+			lookupPercentiles(new CourseDBStructure(16, 0.9, CourseDBHasher.DECIMAL_STRING, true), "Robin Hood");
+			lookupPercentiles(new CourseDBCuckooStructure(16), "cuckoo");
+			bulkLoad(courses);
+			indexedSelect(courses);
+			rangeScan();
+			exportCatalog(courses);
+			worstCaseAdd(courses, false);
+			worstCaseAdd(courses, true);
+			hasherQuality("DECIMAL_STRING", CourseDBHasher.DECIMAL_STRING);
+			hasherQuality("FIBONACCI", CourseDBHasher.FIBONACCI);
+			hasherQuality("MURMUR", CourseDBHasher.MURMUR);
+			legacyStringHash();
+			throughputVersusThreads(courses);
+			internedReadFile(catalog);
+			parseThroughput(catalog);
+			parallelReadFile(catalog);
+			coldStart(catalog);
+			journaledAdds(courses);
+		}
+		catalog.delete();
+	}
+
+	/**
+	 * Builds a catalog of courses with distinct random CRNs.
+	 *
+	 * @param size   the number of courses
+	 * @param random the source of randomness
+	 * @return the courses
+	 */
+	static CourseDBElement[] randomCatalog(int size, Random random) {
+		CourseDBElement[] courses = new CourseDBElement[size];
+		HashMap<Integer, Boolean> used = new HashMap<>();
+		for (int i = 0; i < size; i++) {
+			int crn;
+			do {
+				crn = random.nextInt(Integer.MAX_VALUE);
+			} while (used.put(crn, Boolean.TRUE) != null);
+			courses[i] = new CourseDBElement("CMSC" + (100 + random.nextInt(400)), crn,
+					1 + random.nextInt(4), "SC" + random.nextInt(500), "Instructor " + random.nextInt(2000));
+		}
+		return courses;
+	}
+
+	/**
+	 * Writes a realistic catalog file in the readFile format, where course IDs,
+	 * rooms and instructors repeat across many sections.
+	 *
+	 * @param size   the number of lines
+	 * @param random the source of randomness
+	 * @return the temporary file
+	 * @throws IOException if the file cannot be written
+	 */
+	static File writeCatalogFile(int size, Random random) throws IOException {
+		File file = File.createTempFile("catalog", ".txt");
+		try (PrintWriter out = new PrintWriter(file)) {
+			for (int i = 0; i < size; i++) {
+				out.println("CMSC" + (100 + random.nextInt(300)) + " " + (10000 + i) + " "
+						+ (1 + random.nextInt(4)) + " SC" + (100 + random.nextInt(400))
+						+ " Instructor Number" + random.nextInt(800));
+			}
+		}
+		return file;
+	}
+
+	/**
+	 * Reports the heap retained by a CourseDBManager loaded with readFile, which
+	 * interns repeated strings, against one loaded line by line without interning.
+	 *
+	 * @param catalog the catalog file
+	 * @throws IOException if the file cannot be read
+	 */
+	private static void internedReadFile(File catalog) throws IOException {
+		long before = usedMemory();
+		CourseDBManager plain = new CourseDBManager(COURSES);
+		try (Scanner scanner = new Scanner(catalog)) {
+			while (scanner.hasNextLine()) {
+				String[] fields = scanner.nextLine().split(" ", 5);
+				plain.add(fields[0], Integer.parseInt(fields[1]), Integer.parseInt(fields[2]), fields[3], fields[4]);
+			}
+		}
+		long plainBytes = usedMemory() - before;
+		Reference.reachabilityFence(plain);
+		plain = null;
+
+		before = usedMemory();
+		CourseDBManager interned = new CourseDBManager(COURSES);
+		interned.readFile(catalog);
+		long internedBytes = usedMemory() - before;
+		Reference.reachabilityFence(interned);
+		System.out.printf("  heap after load: without interning %6.1f MB (%5.1f bytes/course)"
+				+ "   interned %6.1f MB (%5.1f bytes/course)%n",
+				plainBytes / 1e6, (double) plainBytes / COURSES,
+				internedBytes / 1e6, (double) internedBytes / COURSES);
+		interned = null;
+	}
+
+	/**
+	 * Compares lookups of CRNs that are not stored through get, which throws an
+	 * IOException for each miss, against find, which returns null.
+	 *
+	 * @param courses the courses to store
+	 */
+	private static void missPath(CourseDBElement[] courses) {
+		CourseDBStructure structure = new CourseDBStructure(courses.length);
+		structure.addAll(Arrays.asList(courses), true);
+		int lookups = 1_000_000;
+		Random random = new Random(206);
+		int[] probes = new int[lookups];
+		for (int i = 0; i < lookups; i++) {
+			do {
+				probes[i] = random.nextInt(Integer.MAX_VALUE);
+			} while (structure.find(probes[i]) != null);
+		}
+		int misses = 0;
+		long start = System.nanoTime();
+		for (int crn : probes) {
+			try {
+				structure.get(crn);
+			} catch (IOException e) {
+				misses++;
+			}
+		}
+		long getNanos = System.nanoTime() - start;
+		start = System.nanoTime();
+		for (int crn : probes) {
+			if (structure.find(crn) == null) {
+				misses--;
+			}
+		}
+		long findNanos = System.nanoTime() - start;
+		System.out.printf("  miss: get + catch %7.1f ns/op   find %7.1f ns/op (%d)%n",
+				(double) getNanos / lookups, (double) findNanos / lookups, misses);
+	}
+
+	/**
+	 * Compares find for CRNs that are not stored, and for CRNs that are, with
+	 * and without the Bloom filter, and prints the false-positive rate it saw.
+	 *
+	 * @param courses the courses to store
+	 */
+	private static void bloomFilterMisses(CourseDBElement[] courses) {
+		CourseDBStructure plain = new CourseDBStructure(courses.length);
+		plain.addAll(Arrays.asList(courses), true);
+		CourseDBStructure filtered = new CourseDBStructure(courses.length);
+		filtered.setBloomFilter(true);
+		filtered.addAll(Arrays.asList(courses), true);
+		int lookups = 1_000_000;
+		Random random = new Random(207);
+		int[] probes = new int[lookups];
+		for (int i = 0; i < lookups; i++) {
+			do {
+				probes[i] = random.nextInt(Integer.MAX_VALUE);
+			} while (plain.find(probes[i]) != null);
+		}
+		long[] nanos = new long[4];
+		int found = 0;
+		CourseDBStructure[] structures = {plain, filtered};
+		for (int k = 0; k < structures.length; k++) {
+			long start = System.nanoTime();
+			for (int crn : probes) {
+				if (structures[k].find(crn) != null) {
+					found++;
+				}
+			}
+			nanos[k] = System.nanoTime() - start;
+			start = System.nanoTime();
+			for (CourseDBElement course : courses) {
+				if (structures[k].find(course.getCRN()) != null) {
+					found++;
+				}
+			}
+			nanos[k + 2] = System.nanoTime() - start;
+		}
+		System.out.printf("  bloom: miss %6.1f -> %6.1f ns/op   hit %6.1f -> %6.1f ns/op"
+				+ "   false positives %.4f (%d)%n",
+				(double) nanos[0] / lookups, (double) nanos[1] / lookups,
+				(double) nanos[2] / courses.length, (double) nanos[3] / courses.length,
+				filtered.getBloomFilter().getFalsePositiveRate(), found);
+	}
+
+	/**
+	 * Compares find with and without lookup timing, over CRNs that are stored
+	 * and CRNs that are not, and prints the percentiles the timing collected.
+	 *
+	 * @param courses the courses to store
+	 */
+	private static void lookupTiming(CourseDBElement[] courses) {
+		CourseDBStructure plain = new CourseDBStructure(courses.length);
+		plain.addAll(Arrays.asList(courses), true);
+		CourseDBStructure timed = new CourseDBStructure(courses.length);
+		timed.setLookupTiming(true);
+		timed.addAll(Arrays.asList(courses), true);
+		int[] probes = new int[courses.length * 2];
+		Random random = new Random(209);
+		for (int i = 0; i < probes.length; i++) {
+			probes[i] = i % 2 == 0 ? courses[random.nextInt(courses.length)].getCRN() : random.nextInt(Integer.MAX_VALUE);
+		}
+		long[] nanos = new long[2];
+		int found = 0;
+		CourseDBStructure[] structures = {plain, timed};
+		for (int k = 0; k < structures.length; k++) {
+			long start = System.nanoTime();
+			for (int crn : probes) {
+				if (structures[k].find(crn) != null) {
+					found++;
+				}
+			}
+			nanos[k] = System.nanoTime() - start;
+		}
+		System.out.printf("  lookup timing: off %6.1f ns/op   on %6.1f ns/op (%d)%n  stats: %s%n",
+				(double) nanos[0] / probes.length, (double) nanos[1] / probes.length, found, timed.getStats());
+	}
+
+	/**
+	 * Compares the heap kept by a loaded CourseDBStructure with the heap and the
+	 * off-heap memory of a loaded CourseDBOffHeapStructure, and the time a full
+	 * collection takes while each is loaded. Then scans the off-heap credits
+	 * through heap copies and through flyweight views.
+	 *
+	 * @param courses the courses to load
+	 */
+	private static void offHeapFootprint(CourseDBElement[] courses) {
+		// Copy the courses so the structure owns the only references to them
+		long before = usedMemory();
+		CourseDBStructure onHeap = new CourseDBStructure(courses.length);
+		for (CourseDBElement course : courses) {
+			onHeap.add(new CourseDBElement(new String(course.getID()), course.getCRN(), course.getCredits(),
+					new String(course.getRoomNum()), new String(course.getInstructor())));
+		}
+		long onHeapBytes = usedMemory() - before;
+		long start = System.nanoTime();
+		System.gc();
+		long onHeapGc = System.nanoTime() - start;
+		Reference.reachabilityFence(onHeap);
+		onHeap = null;
+
+		before = usedMemory();
+		CourseDBOffHeapStructure offHeap = new CourseDBOffHeapStructure(courses.length);
+		for (CourseDBElement course : courses) {
+			offHeap.add(course);
+		}
+		long offHeapBytes = usedMemory() - before;
+		start = System.nanoTime();
+		System.gc();
+		long offHeapGc = System.nanoTime() - start;
+		System.out.printf("  off-heap: heap %6.1f MB -> %6.3f MB (off-heap %6.1f MB)   full GC %6.1f -> %6.1f ms%n",
+				onHeapBytes / 1e6, offHeapBytes / 1e6, offHeap.getOffHeapBytes() / 1e6,
+				onHeapGc / 1e6, offHeapGc / 1e6);
+
+		long credits = 0;
+		start = System.nanoTime();
+		for (CourseDBElement course : offHeap) {
+			credits += course.getCredits();
+		}
+		long copyNanos = System.nanoTime() - start;
+		start = System.nanoTime();
+		for (Iterator<CourseDBRecord> views = offHeap.views(); views.hasNext();) {
+			credits -= views.next().getCredits();
+		}
+		long viewNanos = System.nanoTime() - start;
+		System.out.printf("  off-heap scan of credits: copies %6.1f ns/op   views %6.1f ns/op (%d)%n",
+				(double) copyNanos / courses.length, (double) viewNanos / courses.length, credits);
+		Reference.reachabilityFence(offHeap);
+	}
+
+	/**
+	 * Compares loading a catalog into a small CourseDBStructure by calling add for
+	 * each course against addAll with and without the unique CRN guarantee.
+	 *
+	 * @param courses the courses to load, with distinct CRNs
+	 */
+	private static void bulkLoad(CourseDBElement[] courses) {
+		List<CourseDBElement> list = Arrays.asList(courses);
+		long start = System.nanoTime();
+		CourseDBStructure single = new CourseDBStructure(16);
+		for (CourseDBElement course : courses) {
+			single.add(course);
+		}
+		long singleNanos = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		CourseDBStructure checked = new CourseDBStructure(16);
+		checked.addAll(list, false);
+		long checkedNanos = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		CourseDBStructure unique = new CourseDBStructure(16);
+		unique.addAll(list, true);
+		long uniqueNanos = System.nanoTime() - start;
+		System.out.printf("  bulk load: add loop %7.1f ns/op   addAll %7.1f ns/op   addAll unique %7.1f ns/op%n",
+				(double) singleNanos / courses.length, (double) checkedNanos / courses.length,
+				(double) uniqueNanos / courses.length);
+	}
+
+	/**
+	 * Compares answering "all courses of an instructor" by filtering showAll, by
+	 * scanning the structure and from the secondary indexes, and reports what the
+	 * indexes cost on add.
+	 *
+	 * @param courses the courses to load
+	 */
+	private static void indexedSelect(CourseDBElement[] courses) {
+		List<CourseDBElement> list = Arrays.asList(courses);
+		CourseDBStructure plain = new CourseDBStructure(courses.length);
+		long start = System.nanoTime();
+		plain.addAll(list, true);
+		long plainAddNanos = System.nanoTime() - start;
+		CourseDBStructure indexed = new CourseDBStructure(courses.length);
+		indexed.setSecondaryIndexes(true);
+		start = System.nanoTime();
+		indexed.addAll(list, true);
+		long indexedAddNanos = System.nanoTime() - start;
+
+		int queries = 20;
+		int found = 0;
+		start = System.nanoTime();
+		for (int q = 0; q < queries; q++) {
+			String match = "Instructor:Instructor " + q + " ";
+			for (String course : plain.showAll()) {
+				if (course.contains(match)) {
+					found++;
+				}
+			}
+		}
+		long showAllNanos = (System.nanoTime() - start) / queries;
+		start = System.nanoTime();
+		for (int q = 0; q < queries; q++) {
+			found -= plain.select(null, null, "Instructor " + q).size();
+		}
+		long scanNanos = (System.nanoTime() - start) / queries;
+		start = System.nanoTime();
+		for (int q = 0; q < queries * 1000; q++) {
+			found += indexed.select(null, null, "Instructor " + (q % queries)).size();
+		}
+		long indexNanos = (System.nanoTime() - start) / (queries * 1000);
+		System.out.printf("  select by instructor: showAll filter %8.3f ms   scan %8.3f ms   index %8.3f ms"
+				+ "   (add %5.1f vs %5.1f ns/op indexed, %d)%n",
+				showAllNanos / 1e6, scanNanos / 1e6, indexNanos / 1e6,
+				(double) plainAddNanos / courses.length, (double) indexedAddNanos / courses.length, found);
+	}
+
+	/**
+	 * Compares reading one department's block of 1000 CRNs by scanning and
+	 * sorting, from the ordered index and from the direct array. The catalog
+	 * fills half of the valid CRN range.
+	 */
+	private static void rangeScan() {
+		Random random = new Random(205);
+		CourseDBStructure scanned = new CourseDBStructure(HALF_CRN_RANGE);
+		CourseDBStructure ordered = new CourseDBStructure(HALF_CRN_RANGE);
+		ordered.setOrderedIndex(true);
+		CourseDBDirectStructure direct = new CourseDBDirectStructure(16);
+		for (int crn = CourseDBElement.MIN_CRN; crn <= CourseDBElement.MAX_CRN; crn += 2) {
+			CourseDBElement course = new CourseDBElement("CMSC" + (100 + random.nextInt(400)), crn, 3,
+					"SC" + random.nextInt(500), "Instructor " + random.nextInt(2000));
+			scanned.add(course);
+			ordered.add(course);
+			direct.add(course);
+		}
+		CourseDBStructureInterface[] structures = {scanned, ordered, direct};
+		double[] micros = new double[structures.length];
+		int found = 0;
+		for (int k = 0; k < structures.length; k++) {
+			int queries = k == 0 ? 20 : 20000;
+			long start = System.nanoTime();
+			for (int q = 0; q < queries; q++) {
+				int lo = 30000 + (q % 60) * 1000;
+				found += structures[k].range(lo, lo + 999).size();
+			}
+			micros[k] = (System.nanoTime() - start) / 1e3 / queries;
+		}
+		System.out.printf("  range of 1000 CRNs: scan + sort %9.1f us   ordered index %7.1f us"
+				+ "   direct array %7.1f us (%d)%n", micros[0], micros[1], micros[2], found);
+	}
+
+	/**
+	 * Compares exporting a catalog to a writer from showAll against writeAll,
+	 * reporting the time and the bytes allocated per course.
+	 *
+	 * @param courses the courses to export
+	 * @throws IOException if the writer fails
+	 */
+	private static void exportCatalog(CourseDBElement[] courses) throws IOException {
+		CourseDBManager manager = new CourseDBManager(courses.length);
+		manager.addAll(Arrays.asList(courses), true);
+		Writer out = new BufferedWriter(new OutputStreamWriter(OutputStream.nullOutputStream()));
+
+		long allocated = allocatedBytes();
+		long start = System.nanoTime();
+		for (String course : manager.showAll()) {
+			out.write(course);
+		}
+		long showAllNanos = System.nanoTime() - start;
+		long showAllBytes = allocatedBytes() - allocated;
+
+		allocated = allocatedBytes();
+		start = System.nanoTime();
+		manager.writeAll(out);
+		long writeAllNanos = System.nanoTime() - start;
+		long writeAllBytes = allocatedBytes() - allocated;
+		out.flush();
+		System.out.printf("  export: showAll %7.1f ms %6.1f bytes/course   writeAll %7.1f ms %6.1f bytes/course%n",
+				showAllNanos / 1e6, (double) showAllBytes / courses.length,
+				writeAllNanos / 1e6, (double) writeAllBytes / courses.length);
+	}
+
+	/**
+	 * Compares how fast a catalog file is split into fields by Scanner and
+	 * String.split, as readFile used to do, and by CourseDBFileParser. Both only
+	 * sum the CRNs, so the rate measures parsing alone.
+	 *
+	 * @param catalog the catalog file
+	 * @throws IOException if the file cannot be read
+	 */
+	private static void parseThroughput(File catalog) throws IOException {
+		long start = System.nanoTime();
+		long scannerSum = 0;
+		try (Scanner scanner = new Scanner(catalog)) {
+			while (scanner.hasNextLine()) {
+				String[] fields = scanner.nextLine().split(" ", 5);
+				scannerSum += Integer.parseInt(fields[1]) + Integer.parseInt(fields[2]);
+			}
+		}
+		long scannerNanos = System.nanoTime() - start;
+
+		long[] parserSum = new long[1];
+		start = System.nanoTime();
+		new CourseDBFileParser().parse(catalog, (id, crn, credits, roomNum, instructor) ->
+				parserSum[0] += crn + credits);
+		long parserNanos = System.nanoTime() - start;
+		if (scannerSum != parserSum[0]) {
+			throw new IllegalStateException("Parsers disagree");
+		}
+		double megabytes = catalog.length() / 1e6;
+		System.out.printf("  parse: Scanner + split %7.1f MB/s   CourseDBFileParser %7.1f MB/s%n",
+				megabytes / (scannerNanos / 1e9), megabytes / (parserNanos / 1e9));
+	}
+
+	/**
+	 * Compares readFile on the calling thread against readFile with the chunks
+	 * parsed on the common ForkJoinPool.
+	 *
+	 * @param catalog the catalog file
+	 * @throws IOException if the file cannot be read
+	 */
+	private static void parallelReadFile(File catalog) throws IOException {
+		long start = System.nanoTime();
+		CourseDBManager sequential = new CourseDBManager(COURSES);
+		sequential.readFile(catalog);
+		long sequentialNanos = System.nanoTime() - start;
+
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+		start = System.nanoTime();
+		CourseDBManager parallel = new CourseDBManager(COURSES);
+		parallel.readFile(catalog, pool);
+		long parallelNanos = System.nanoTime() - start;
+		System.out.printf("  readFile: sequential %8.1f ms   parallel (%d threads) %8.1f ms%n",
+				sequentialNanos / 1e6, pool.getParallelism(), parallelNanos / 1e6);
+	}
+
+	/**
+	 * Compares the time to load a catalog with readFile against the time to open
+	 * a snapshot of it and serve the first lookup.
+	 *
+	 * @param catalog the catalog file
+	 * @throws IOException if a file cannot be read or written
+	 */
+	private static void coldStart(File catalog) throws IOException {
+		long start = System.nanoTime();
+		CourseDBManager parsed = new CourseDBManager(COURSES);
+		parsed.readFile(catalog);
+		long parseNanos = System.nanoTime() - start;
+
+		File snapshot = File.createTempFile("catalog", ".cdb");
+		parsed.writeSnapshot(snapshot);
+		start = System.nanoTime();
+		CourseDBManager mapped = new CourseDBManager(new CourseDBMappedStructure(snapshot));
+		CourseDBElement first = mapped.get(10000 + COURSES / 2);
+		long mapNanos = System.nanoTime() - start;
+		System.out.printf("  startup: readFile %8.1f ms   mapped snapshot + first get %8.3f ms (%s)%n",
+				parseNanos / 1e6, mapNanos / 1e6, first.getID());
+		snapshot.delete();
+	}
+
+	/**
+	 * Compares the throughput of CourseDBManager with and without a write-ahead
+	 * journal open. A bulk addAll waits for the disk once, so it shows the cost
+	 * of journaling itself, with unique CRNs queued in one batch and otherwise
+	 * one course at a time. Single adds each wait for a group commit, so they
+	 * show how threads adding at the same time share one fsync.
+	 *
+	 * @param courses the courses to add
+	 * @throws IOException if the journal cannot be written
+	 */
+	private static void journaledAdds(CourseDBElement[] courses) throws IOException {
+		List<CourseDBElement> catalog = Arrays.asList(courses);
+		File journal = File.createTempFile("journal", ".log");
+		journal.delete();
+		CourseDBManager durable;
+		long start;
+		for (boolean unique : new boolean[] {true, false}) {
+			CourseDBManager memory = new CourseDBManager(courses.length);
+			start = System.nanoTime();
+			memory.addAll(catalog, unique);
+			long memoryNanos = System.nanoTime() - start;
+
+			durable = new CourseDBManager(courses.length);
+			durable.openJournal(journal);
+			start = System.nanoTime();
+			durable.addAll(catalog, unique);
+			long journalNanos = System.nanoTime() - start;
+			durable.closeJournal();
+			journal.delete();
+			System.out.printf("  addAll%s: in memory %6.1f ns/op   journaled %6.1f ns/op (%.1fx)%n",
+					unique ? " unique" : "       ", (double) memoryNanos / courses.length,
+					(double) journalNanos / courses.length, (double) journalNanos / memoryNanos);
+		}
+
+		int adds = 4096;
+		for (int threads = 1; threads <= 64; threads *= 4) {
+			durable = new CourseDBManager(new CourseDBConcurrentStructure(adds));
+			durable.openJournal(journal);
+			CourseDBManager manager = durable;
+			int perThread = adds / threads;
+			Thread[] workers = new Thread[threads];
+			for (int t = 0; t < threads; t++) {
+				int first = t * perThread;
+				workers[t] = new Thread(() -> {
+					for (int i = first; i < first + perThread; i++) {
+						CourseDBElement course = courses[i];
+						manager.add(course.getID(), course.getCRN(), course.getCredits(), course.getRoomNum(),
+								course.getInstructor());
+					}
+				});
+			}
+			start = System.nanoTime();
+			for (Thread worker : workers) {
+				worker.start();
+			}
+			for (Thread worker : workers) {
+				try {
+					worker.join();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+			long nanos = System.nanoTime() - start;
+			durable.closeJournal();
+			journal.delete();
+			System.out.printf("  add, durable on return: %2d threads %8.1f us/op%n",
+					threads, nanos / 1000.0 / adds);
+		}
+	}
+
+	/**
+	 * Compares add and get latency and the memory per entry of CourseDBStructure
+	 * against the baseline it replaced, a table of LinkedList buckets.
+	 *
+	 * @param courses the courses to insert
+	 * @throws IOException if a course that was added cannot be found
+	 */
+	private static void structureVersusBaseline(CourseDBElement[] courses) throws IOException {
+		long before = usedMemory();
+		long start = System.nanoTime();
+		CourseDBStructure structure = new CourseDBStructure(courses.length);
+		for (CourseDBElement course : courses) {
+			structure.add(course);
+		}
+		long addNanos = System.nanoTime() - start;
+		long bytes = usedMemory() - before;
+		Reference.reachabilityFence(structure);
+
+		start = System.nanoTime();
+		long checksum = 0;
+		for (CourseDBElement course : courses) {
+			checksum += structure.get(course.getCRN()).getCredits();
+		}
+		long getNanos = System.nanoTime() - start;
+		report("CourseDBStructure", courses.length, addNanos, getNanos, bytes);
+
+		before = usedMemory();
+		start = System.nanoTime();
+		BaselineStructure baseline = new BaselineStructure(courses.length);
+		for (CourseDBElement course : courses) {
+			baseline.add(course);
+		}
+		addNanos = System.nanoTime() - start;
+		bytes = usedMemory() - before;
+		Reference.reachabilityFence(baseline);
+
+		start = System.nanoTime();
+		for (CourseDBElement course : courses) {
+			checksum -= baseline.get(course.getCRN()).getCredits();
+		}
+		getNanos = System.nanoTime() - start;
+		report("baseline LinkedList buckets", courses.length, addNanos, getNanos, bytes);
+
+		if (checksum != 0) {
+			throw new IllegalStateException("Structures disagree");
+		}
+		structure = null;
+		baseline = null;
+	}
+
+	/**
+	 * Loads clustered CRNs, blocks of consecutive CRNs as departments receive
+	 * them, into a table at a high load factor and reports the probe distances
+	 * and the cost of hits and misses.
+	 *
+	 * @param robinHood true for Robin Hood probing, false for linear probing
+	 */
+	private static void clusteredProbing(boolean robinHood) {
+		CourseDBStructure structure = new CourseDBStructure(16, 0.9, CourseDBHasher.DECIMAL_STRING, robinHood);
+		int[] crns = clusteredCRNs();
+		for (int crn : crns) {
+			structure.add(new CourseDBElement("CMSC" + crn / 1000, crn, 3, "SC100", "Instructor"));
+		}
+		int found = 0;
+		long start = System.nanoTime();
+		for (int crn : crns) {
+			if (structure.find(crn) != null) {
+				found++;
+			}
+		}
+		long hitNanos = System.nanoTime() - start;
+		start = System.nanoTime();
+		for (int crn : crns) {
+			if (structure.find(crn + 500) != null) {
+				found++;
+			}
+		}
+		long missNanos = System.nanoTime() - start;
+		System.out.printf("  clustered %-11s: probe distance max %4d mean %5.2f   hit %6.1f ns/op   miss %6.1f ns/op (%d)%n",
+				robinHood ? "Robin Hood" : "linear", structure.getMaxProbeDistance(), structure.getMeanProbeDistance(),
+				(double) hitNanos / COURSES, (double) missNanos / COURSES, found);
+	}
+
+	/**
+	 * Builds CRNs in blocks of 300 consecutive numbers, 1000 apart, the way
+	 * departments receive them.
+	 *
+	 * @return the CRNs
+	 */
+	private static int[] clusteredCRNs() {
+		int[] crns = new int[COURSES];
+		for (int i = 0; i < COURSES; i++) {
+			crns[i] = CourseDBElement.MIN_CRN + (i / 300) * 1000 + i % 300;
+		}
+		return crns;
+	}
+
+	/**
+	 * Loads clustered CRNs into a structure, times every lookup of them in random
+	 * order one by one, and prints the latency percentiles. Each time includes
+	 * the overhead of reading the clock.
+	 *
+	 * @param structure the empty structure to load
+	 * @param name      the name to print
+	 */
+	private static void lookupPercentiles(CourseDBStructureInterface structure, String name) {
+		int[] crns = clusteredCRNs();
+		for (int crn : crns) {
+			structure.add(new CourseDBElement("CMSC" + crn / 1000, crn, 3, "SC100", "Instructor"));
+		}
+		Random random = new Random(208);
+		for (int i = crns.length - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int crn = crns[i];
+			crns[i] = crns[j];
+			crns[j] = crn;
+		}
+		long[] nanos = new long[crns.length * 2];
+		int found = 0;
+		for (int i = 0; i < nanos.length; i++) {
+			// Every other lookup is a miss just past the end of a block
+			int crn = i % 2 == 0 ? crns[i / 2] : crns[i / 2] + 500;
+			long start = System.nanoTime();
+			CourseDBElement course = structure.find(crn);
+			nanos[i] = System.nanoTime() - start;
+			if (course != null) {
+				found++;
+			}
+		}
+		Arrays.sort(nanos);
+		System.out.printf("  lookup %-11s: p50 %5d ns   p99 %5d ns   p999 %6d ns   max %8d ns (%d)%n", name,
+				nanos[nanos.length / 2], nanos[(int) (nanos.length * 0.99)], nanos[(int) (nanos.length * 0.999)],
+				nanos[nanos.length - 1], found);
+	}
+
+	/**
+	 * Measures the slowest single add while a structure grows from a small table,
+	 * with and without incremental rehashing. The slowest add that started a
+	 * resize is reported apart from the slowest add overall, which on a busy
+	 * machine may be a garbage collection or a JIT compilation instead. Every
+	 * tenth add is followed by a timed page read and remove, which must not
+	 * finish an incremental rehash either, and an untimed re-add.
+	 *
+	 * @param courses     the courses to insert
+	 * @param incremental whether to spread rehashing over later operations
+	 */
+	private static void worstCaseAdd(CourseDBElement[] courses, boolean incremental) {
+		CourseDBStructure structure = new CourseDBStructure(16);
+		structure.setIncrementalRehash(incremental);
+		long worst = 0;
+		long worstResize = 0;
+		long worstOther = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < courses.length; i++) {
+			int tableSize = structure.getTableSize();
+			long before = System.nanoTime();
+			structure.add(courses[i]);
+			long nanos = System.nanoTime() - before;
+			worst = Math.max(worst, nanos);
+			if (structure.getTableSize() != tableSize) {
+				worstResize = Math.max(worstResize, nanos);
+			}
+			if (i % 10 == 9) {
+				before = System.nanoTime();
+				structure.page(CourseDBPage.FIRST, 100);
+				structure.remove(courses[i / 2].getCRN());
+				worstOther = Math.max(worstOther, System.nanoTime() - before);
+				structure.add(courses[i / 2]);
+			}
+		}
+		long total = System.nanoTime() - start;
+		System.out.printf("  %-36s add %6.1f ns/op   slowest add %8.1f us   slowest resize %8.1f us"
+				+ "   slowest page+remove %8.1f us%n",
+				incremental ? "incremental rehash" : "stop-the-world rehash",
+				(double) total / courses.length, worst / 1000.0, worstResize / 1000.0, worstOther / 1000.0);
+	}
+
+	/**
+	 * Reports the share of real-range CRNs (10000-99999) whose home slot is already
+	 * taken in a table sized for them at the default load factor, and the time
+	 * spent hashing.
+	 *
+	 * @param name   the name of the hasher
+	 * @param hasher the hasher to measure
+	 */
+	private static void hasherQuality(String name, CourseDBHasher hasher) {
+		int tableSize = 120011;
+		boolean[] used = new boolean[tableSize];
+		int collisions = 0;
+		for (int crn = 10000; crn <= 99999; crn++) {
+			int i = Math.abs(hasher.hash(crn) % tableSize);
+			if (used[i]) {
+				collisions++;
+			}
+			used[i] = true;
+		}
+		int keys = 90000;
+		int sink = 0;
+		long allocated = allocatedBytes();
+		long start = System.nanoTime();
+		for (int repeat = 0; repeat < 100; repeat++) {
+			for (int crn = 10000; crn <= 99999; crn++) {
+				sink += hasher.hash(crn);
+			}
+		}
+		long nanos = System.nanoTime() - start;
+		allocated = allocatedBytes() - allocated;
+		System.out.printf("  %-36s hash %5.2f ns/op %5.1f bytes/op   home-slot collisions %5.2f%% (%d)%n",
+				name, (double) nanos / (keys * 100L), (double) allocated / (keys * 100L),
+				100.0 * collisions / keys, sink & 0);
+	}
+
+	/**
+	 * Reports the time spent by the previous hash, which built a String per CRN.
+	 */
+	private static void legacyStringHash() {
+		int sink = 0;
+		long allocated = allocatedBytes();
+		long start = System.nanoTime();
+		for (int repeat = 0; repeat < 100; repeat++) {
+			for (int crn = 10000; crn <= 99999; crn++) {
+				sink += Integer.toString(crn).hashCode();
+			}
+		}
+		long nanos = System.nanoTime() - start;
+		allocated = allocatedBytes() - allocated;
+		System.out.printf("  %-36s hash %5.2f ns/op %5.1f bytes/op (%d)%n",
+				"Integer.toString(crn).hashCode()", (double) nanos / (90000 * 100L),
+				(double) allocated / (90000 * 100L), sink & 0);
+	}
+
+	/**
+	 * Reports the throughput of a 90% get / 10% add workload for an increasing
+	 * number of threads, comparing CourseDBConcurrentStructure against a
+	 * CourseDBStructure behind one global lock.
+	 *
+	 * @param courses the courses to work on
+	 */
+	private static void throughputVersusThreads(CourseDBElement[] courses) {
+		int cores = Runtime.getRuntime().availableProcessors();
+		for (int threads = 1; threads <= cores; threads *= 2) {
+			CourseDBConcurrentStructure concurrent = new CourseDBConcurrentStructure(courses.length);
+			CourseDBStructure locked = new CourseDBStructure(courses.length);
+			for (CourseDBElement course : courses) {
+				concurrent.add(course);
+				locked.add(course);
+			}
+			double striped = mixedWorkload(threads, courses, concurrent, false);
+			double global = mixedWorkload(threads, courses, locked, true);
+			System.out.printf("  %2d threads: striped %8.2f Mops/s   global lock %8.2f Mops/s%n",
+					threads, striped, global);
+		}
+	}
+
+	/**
+	 * Runs the mixed workload on several threads and returns its throughput.
+	 *
+	 * @param threads   the number of threads
+	 * @param courses   the courses to work on
+	 * @param structure the structure under test
+	 * @param lock      whether every operation must hold the structure's monitor
+	 * @return millions of operations per second
+	 */
+	private static double mixedWorkload(int threads, CourseDBElement[] courses,
+			CourseDBStructureInterface structure, boolean lock) {
+		int opsPerThread = 2_000_000;
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			int seed = t;
+			workers[t] = new Thread(() -> {
+				Random random = new Random(seed);
+				for (int i = 0; i < opsPerThread; i++) {
+					CourseDBElement course = courses[random.nextInt(courses.length)];
+					try {
+						if (lock) {
+							synchronized (structure) {
+								mixedOperation(structure, course, i);
+							}
+						} else {
+							mixedOperation(structure, course, i);
+						}
+					} catch (IOException e) {
+						throw new IllegalStateException(e);
+					}
+				}
+			});
+		}
+		long start = System.nanoTime();
+		for (Thread worker : workers) {
+			worker.start();
+		}
+		for (Thread worker : workers) {
+			try {
+				worker.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		long nanos = System.nanoTime() - start;
+		return (double) threads * opsPerThread * 1000 / nanos;
+	}
+
+	/**
+	 * Performs one operation of the mixed workload: an add every tenth call and a
+	 * get otherwise.
+	 *
+	 * @param structure the structure under test
+	 * @param course    the course to add or look up
+	 * @param i         the operation number
+	 * @throws IOException if a course that was added cannot be found
+	 */
+	private static void mixedOperation(CourseDBStructureInterface structure, CourseDBElement course, int i)
+			throws IOException {
+		if (i % 10 == 0) {
+			structure.add(course);
+		} else {
+			structure.get(course.getCRN());
+		}
+	}
+
+	/**
+	 * Prints one line of results.
+	 *
+	 * @param name     the name of the measured structure
+	 * @param size     the number of operations of each kind
+	 * @param addNanos the total time spent adding
+	 * @param getNanos the total time spent getting
+	 * @param bytes    the heap retained by the structure, excluding the courses
+	 */
+	static void report(String name, int size, long addNanos, long getNanos, long bytes) {
+		System.out.printf("  %-36s add %6.1f ns/op   get %6.1f ns/op   %6.1f bytes/entry%n",
+				name, (double) addNanos / size, (double) getNanos / size, (double) bytes / size);
+	}
+
+	/**
+	 * Returns the number of bytes the current thread has allocated so far, or 0
+	 * when the JVM does not track it.
+	 *
+	 * @return the allocated bytes
+	 */
+	static long allocatedBytes() {
+		java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (threads instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) threads).getCurrentThreadAllocatedBytes();
+		}
+		return 0;
+	}
+
+	/**
+	 * Returns the heap currently in use after asking for a garbage collection.
+	 *
+	 * @return the used heap in bytes
+	 */
+	static long usedMemory() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	/**
+	 * A copy of CourseDBStructure as it was before it moved to open addressing,
+	 * kept as the reference point of structureVersusBaseline: an array of
+	 * LinkedList buckets sized to the next 4k+3 prime after the estimated size
+	 * divided by 1.5, indexed by the hash code of the CRN's decimal string.
+	 * Courses are now immutable, so an update replaces the element in its bucket
+	 * where the original set its fields.
+	 */
+	private static class BaselineStructure {
+		private LinkedList<CourseDBElement>[] hashTable;
+		private int hashTableSize;
+
+		@SuppressWarnings("unchecked")
+		BaselineStructure(int estimSize) {
+			hashTableSize = findNextPrime(estimSize);
+			hashTable = new LinkedList[hashTableSize];
+			for (int i = 0; i < hashTableSize; i++) {
+				hashTable[i] = new LinkedList<>();
+			}
+		}
+
+		void add(CourseDBElement element) {
+			ListIterator<CourseDBElement> bucket = hashTable[getIndex(element.getCRN())].listIterator();
+			while (bucket.hasNext()) {
+				if (bucket.next().getCRN() == element.getCRN()) {
+					bucket.set(element);
+					return;
+				}
+			}
+			bucket.add(element);
+		}
+
+		CourseDBElement get(int crn) throws IOException {
+			for (CourseDBElement element : hashTable[getIndex(crn)]) {
+				if (element.getCRN() == crn) {
+					return element;
+				}
+			}
+			throw new IOException("Course with CRN " + crn + " is not found");
+		}
+
+		private static int findNextPrime(int num) {
+			int possibleNum = (int) (num / 1.5);
+			while (!isPrime(possibleNum)) {
+				possibleNum++;
+			}
+			return possibleNum;
+		}
+
+		private static boolean isPrime(int num) {
+			if (num <= 1 || num % 4 != 3) {
+				return false;
+			}
+			for (int i = 2; i <= Math.sqrt(num); i++) {
+				if (num % i == 0) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private int getIndex(int crn) {
+			return Math.abs(Integer.toString(crn).hashCode()) % hashTableSize;
+		}
+	}
+}
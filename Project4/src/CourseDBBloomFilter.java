@@ -0,0 +1,319 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * CourseDBBloomFilter is a Bloom filter over CRNs. It answers "definitely not
+ * stored" for most CRNs that were never added, so a structure can reject a miss
+ * without touching its table, while a CRN that was added is never rejected.
+ *
+ * The filter is sized for an expected number of CRNs and a target false-positive
+ * rate. It is blocked: the first hash of a CRN picks a block of 512 bits, one
+ * cache line, and every bit of the CRN lies in that block, placed by double
+ * hashing, so a lookup reads one line rather than one per hash function.
+ *
+ * A counting filter also keeps a 4-bit counter per bit, which lets a CRN be
+ * removed again: a bit is cleared when its counter drops to zero. Lookups read
+ * only the bits, so the counters cost memory but not lookup time. A counter
+ * that reaches 15 sticks there, so a removal can never reject a CRN still
+ * stored. The filter also counts how the lookups it screened turned out, so
+ * the false-positive rate seen in practice can be read next to the expected
+ * one. Those counts are LongAdders, so concurrent lookups may be screened
+ * without a lock; adding and removing CRNs still needs one.
+ */
+public class CourseDBBloomFilter {
+
+	public static final double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+
+	private static final int BLOCK_SHIFT = 9;
+	private static final int BLOCK_MASK = (1 << BLOCK_SHIFT) - 1;
+	private static final int MAX_HASHES = 16;
+
+	private final long[] bits;
+	private final long[] counters;
+	private final int blockMask;
+	private final int hashes;
+	private final int capacity;
+	private int setBits;
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder falsePositives = new LongAdder();
+
+	/**
+     * Constructs an empty filter that cannot remove CRNs.
+     *
+     * @param capacity          the number of CRNs the filter is sized for
+     * @param falsePositiveRate the false-positive rate wanted at that capacity,
+     *                          between 0 and 1
+     * @throws IllegalArgumentException if the rate is not between 0 and 1
+     */
+	public CourseDBBloomFilter (int capacity, double falsePositiveRate) {
+		this(capacity, falsePositiveRate, false);
+	}
+
+	/**
+     * Constructs an empty filter.
+     *
+     * @param capacity          the number of CRNs the filter is sized for
+     * @param falsePositiveRate the false-positive rate wanted at that capacity,
+     *                          between 0 and 1
+     * @param counting          true to keep counters so that CRNs can be removed
+     * @throws IllegalArgumentException if the rate is not between 0 and 1
+     */
+	public CourseDBBloomFilter (int capacity, double falsePositiveRate, boolean counting) {
+		if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+			throw new IllegalArgumentException("False-positive rate must be between 0 and 1: " + falsePositiveRate);
+		}
+		this.capacity = Math.max(capacity, 1);
+		double ln2 = Math.log(2);
+		double optimalBits = -this.capacity * Math.log(falsePositiveRate) / (ln2 * ln2);
+		// Round up to a power of two so a block is picked by a mask, not a division
+		int size = Integer.highestOneBit((int) Math.min(optimalBits, 1 << 30) - 1) << 1;
+		size = Math.max(size, 1 << BLOCK_SHIFT);
+		bits = new long[size >>> 6];
+		counters = counting ? new long[size >>> 4] : null;
+		blockMask = (size >>> BLOCK_SHIFT) - 1;
+		hashes = Math.max(1, Math.min(MAX_HASHES, (int) Math.round((double) size / this.capacity * ln2)));
+	}
+
+	/**
+     * Constructs a filter that cannot remove CRNs from the bits of another, such
+     * as a filter read back from a snapshot.
+     *
+     * @param bits     the bits, in a power-of-two number of words of at least one
+     *                 block
+     * @param hashes   the number of bit positions probed per CRN
+     * @param capacity the number of CRNs the filter was sized for
+     * @throws IllegalArgumentException if the bits or the hash count are not
+     *                                  ones this class builds
+     */
+	CourseDBBloomFilter (long[] bits, int hashes, int capacity) {
+		int size = bits.length << 6;
+		if (Integer.bitCount(bits.length) != 1 || size < 1 << BLOCK_SHIFT) {
+			throw new IllegalArgumentException("Filter of " + bits.length + " words is not a power-of-two number of blocks");
+		}
+		if (hashes < 1 || hashes > MAX_HASHES) {
+			throw new IllegalArgumentException("Hash count " + hashes + " is not between 1 and " + MAX_HASHES);
+		}
+		this.bits = bits;
+		this.counters = null;
+		this.capacity = Math.max(capacity, 1);
+		this.hashes = hashes;
+		blockMask = (size >>> BLOCK_SHIFT) - 1;
+		for (long word : bits) {
+			setBits += Long.bitCount(word);
+		}
+	}
+
+	/**
+     * Adds a CRN. In a counting filter a CRN added twice must be removed twice.
+     *
+     * @param crn the CRN
+     */
+	public void add(int crn) {
+		int h1 = CourseDBHasher.MURMUR.hash(crn);
+		int block = (h1 & blockMask) << BLOCK_SHIFT;
+		int position = h1 >>> -BLOCK_SHIFT;
+		int step = secondHash(h1) >>> -BLOCK_SHIFT | 1;
+		for (int i = 0; i < hashes; i++) {
+			int bit = block | position;
+			if (counters != null && (counters[bit >>> 4] >>> (bit << 2) & 15) < 15) {
+				counters[bit >>> 4] += 1L << (bit << 2);
+			}
+			long word = bits[bit >>> 6];
+			long updated = word | (1L << bit);
+			if (updated != word) {
+				bits[bit >>> 6] = updated;
+				setBits++;
+			}
+			position = (position + step) & BLOCK_MASK;
+		}
+	}
+
+	/**
+     * Removes a CRN that was added, so that it is rejected again unless other
+     * CRNs share all its bits.
+     *
+     * @param crn the CRN, which must have been added
+     * @throws UnsupportedOperationException if the filter is not counting
+     */
+	public void remove(int crn) {
+		if (counters == null) {
+			throw new UnsupportedOperationException("Only a counting filter can remove a CRN");
+		}
+		int h1 = CourseDBHasher.MURMUR.hash(crn);
+		int block = (h1 & blockMask) << BLOCK_SHIFT;
+		int position = h1 >>> -BLOCK_SHIFT;
+		int step = secondHash(h1) >>> -BLOCK_SHIFT | 1;
+		for (int i = 0; i < hashes; i++) {
+			int bit = block | position;
+			long count = counters[bit >>> 4] >>> (bit << 2) & 15;
+			// A saturated counter no longer knows how many CRNs share its bit
+			if (count > 0 && count < 15) {
+				counters[bit >>> 4] -= 1L << (bit << 2);
+				if (count == 1) {
+					bits[bit >>> 6] &= ~(1L << bit);
+					setBits--;
+				}
+			}
+			position = (position + step) & BLOCK_MASK;
+		}
+	}
+
+	/**
+     * Checks whether a CRN may have been added. A false answer is certain; a true
+     * answer may be a false positive. A false answer is counted as a rejection.
+     *
+     * @param crn the CRN
+     * @return false if the CRN was definitely never added
+     */
+	public boolean mightContain(int crn) {
+		if (test(crn)) {
+			return true;
+		}
+		rejected.increment();
+		return false;
+	}
+
+	/**
+     * Checks whether a CRN may have been added without counting the answer, for
+     * a caller that screens one lookup with more than one filter.
+     *
+     * @param crn the CRN
+     * @return false if the CRN was definitely never added
+     */
+	boolean test(int crn) {
+		int h1 = CourseDBHasher.MURMUR.hash(crn);
+		int block = (h1 & blockMask) << BLOCK_SHIFT;
+		int position = h1 >>> -BLOCK_SHIFT;
+		int step = secondHash(h1) >>> -BLOCK_SHIFT | 1;
+		for (int i = 0; i < hashes; i++) {
+			int bit = block | position;
+			if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+				return false;
+			}
+			position = (position + step) & BLOCK_MASK;
+		}
+		return true;
+	}
+
+	/**
+     * Records that a lookup was rejected, for a caller that screened it with
+     * test.
+     */
+	void recordRejection() {
+		rejected.increment();
+	}
+
+	/**
+     * Records that a CRN the filter let through was not stored after all.
+     */
+	public void recordFalsePositive() {
+		falsePositives.increment();
+	}
+
+	/**
+     * Returns the share of screened misses that the filter let through: false
+     * positives divided by false positives plus rejections.
+     *
+     * @return the observed false-positive rate, or 0 before the first miss
+     */
+	public double getFalsePositiveRate() {
+		long falsePositiveCount = falsePositives.sum();
+		long misses = falsePositiveCount + rejected.sum();
+		return misses == 0 ? 0 : (double) falsePositiveCount / misses;
+	}
+
+	/**
+     * Returns the false-positive rate expected from the bits set so far, the
+     * chance that every probed bit of a CRN never added is set.
+     *
+     * @return the expected false-positive rate
+     */
+	public double getExpectedFalsePositiveRate() {
+		return Math.pow((double) setBits / ((long) bits.length << 6), hashes);
+	}
+
+	/**
+     * Returns the number of lookups the filter rejected.
+     *
+     * @return the number of rejected lookups
+     */
+	public long getRejectedCount() {
+		return rejected.sum();
+	}
+
+	/**
+     * Returns the number of false positives recorded.
+     *
+     * @return the number of false positives
+     */
+	public long getFalsePositiveCount() {
+		return falsePositives.sum();
+	}
+
+	/**
+     * Returns the number of CRNs the filter was sized for.
+     *
+     * @return the capacity
+     */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+     * Returns the number of bits in the filter.
+     *
+     * @return the number of bits
+     */
+	public int getSize() {
+		return bits.length << 6;
+	}
+
+	/**
+     * Returns whether CRNs can be removed from the filter.
+     *
+     * @return true if the filter keeps a counter per bit
+     */
+	public boolean isCounting() {
+		return counters != null;
+	}
+
+	/**
+     * Returns the number of bit positions probed per CRN.
+     *
+     * @return the number of hash functions
+     */
+	public int getHashCount() {
+		return hashes;
+	}
+
+	/**
+     * Returns the bits of the filter, for writing them out. The array is the
+     * filter's own.
+     *
+     * @return the bits
+     */
+	long[] getBits() {
+		return bits;
+	}
+
+	/**
+     * Adds the rejection and false-positive counts of another filter to this
+     * one, so a filter that replaces it for a larger table keeps its history.
+     *
+     * @param other the filter this one replaces
+     */
+	void addCounts(CourseDBBloomFilter other) {
+		rejected.add(other.rejected.sum());
+		falsePositives.add(other.falsePositives.sum());
+	}
+
+	/**
+     * Derives the second hash for double hashing. The step taken from its top
+     * bits is made odd, so the bits of one CRN never repeat within its block.
+     *
+     * @param h1 the first hash
+     * @return the second hash
+     */
+	private static int secondHash (int h1) {
+		return CourseDBHasher.FIBONACCI.hash(h1 ^ (h1 >>> 16)) | 1;
+	}
+}
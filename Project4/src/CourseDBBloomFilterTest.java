@@ -0,0 +1,103 @@
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Tests CourseDBBloomFilter: an added CRN is never rejected, and the
+ * false-positive rate stays close to the rate the filter was sized for.
+ */
+public class CourseDBBloomFilterTest {
+
+	/**
+	 * Test that every added CRN is reported as possibly present
+	 */
+	@Test
+	public void testNoFalseNegatives() {
+		CourseDBBloomFilter filter = new CourseDBBloomFilter(20000, 0.01);
+		for (int crn = 10000; crn < 50000; crn += 2) {
+			filter.add(crn);
+		}
+		for (int crn = 10000; crn < 50000; crn += 2) {
+			assertTrue(filter.mightContain(crn));
+		}
+		assertEquals(0, filter.getRejectedCount());
+	}
+
+	/**
+	 * Test that the observed false-positive rate at capacity is close to the target
+	 */
+	@Test
+	public void testFalsePositiveRate() {
+		CourseDBBloomFilter filter = new CourseDBBloomFilter(20000, 0.01);
+		for (int crn = 10000; crn < 50000; crn += 2) {
+			filter.add(crn);
+		}
+		for (int crn = 10001; crn < 50000; crn += 2) {
+			if (filter.mightContain(crn)) {
+				filter.recordFalsePositive();
+			}
+		}
+		assertEquals(20000, filter.getRejectedCount() + filter.getFalsePositiveCount());
+		assertTrue(filter.getFalsePositiveRate() < 0.02);
+		assertTrue(filter.getExpectedFalsePositiveRate() < 0.02);
+		assertEquals(1, Integer.bitCount(filter.getSize()));
+	}
+
+	/**
+	 * Test that a counting filter rejects a removed CRN again and keeps every
+	 * CRN still added
+	 */
+	@Test
+	public void testCountingRemove() {
+		CourseDBBloomFilter filter = new CourseDBBloomFilter(20000, 0.01, true);
+		assertTrue(filter.isCounting());
+		for (int crn = 10000; crn < 50000; crn += 2) {
+			filter.add(crn);
+		}
+		for (int crn = 10000; crn < 50000; crn += 4) {
+			filter.remove(crn);
+		}
+		for (int crn = 10002; crn < 50000; crn += 4) {
+			assertTrue(filter.mightContain(crn));
+		}
+		int passed = 0;
+		for (int crn = 10000; crn < 50000; crn += 4) {
+			if (filter.mightContain(crn)) {
+				passed++;
+			}
+		}
+		assertTrue(passed < 200);
+		for (int crn = 10002; crn < 50000; crn += 4) {
+			filter.remove(crn);
+		}
+		assertEquals(0.0, filter.getExpectedFalsePositiveRate(), 0);
+	}
+
+	/**
+	 * Test that a filter without counters cannot remove a CRN
+	 */
+	@Test
+	public void testRemoveNotCounting() {
+		CourseDBBloomFilter filter = new CourseDBBloomFilter(100, 0.01);
+		filter.add(10000);
+		try {
+			filter.remove(10000);
+			fail("Should have thrown UnsupportedOperationException");
+		} catch (UnsupportedOperationException e) {
+			assertTrue("threw Exception successfuly for a filter without counters", true);
+		}
+	}
+
+	/**
+	 * Test that the rate must be between 0 and 1
+	 */
+	@Test
+	public void testInvalidRate() {
+		try {
+			new CourseDBBloomFilter(100, 1.0);
+			fail("Should have thrown IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			assertTrue("threw Exception successfuly for a rate of 1", true);
+		}
+	}
+}
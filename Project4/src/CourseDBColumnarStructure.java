@@ -0,0 +1,339 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.stream.IntStream;
+
+/**
+ * CourseDBColumnarStructure is a CourseDBStructureInterface implementation that
+ * stores courses as columns instead of objects: an int array of CRNs, a byte array
+ * of credits, and int arrays of dictionary codes for the course IDs, rooms and
+ * instructors. Each row is one course. A CourseDBElement is only built when a
+ * course is asked for, and scans such as select run over the primitive arrays.
+ *
+ * A separate open-addressing index maps CRNs to rows. Removing a course moves
+ * the last row into its place, so the columns stay dense, and shifts index
+ * entries back instead of leaving tombstones. A row releases the dictionary codes
+ * it stops using when it is overwritten or removed, so the dictionary holds only
+ * the strings of stored courses however many courses come and go.
+ */
+public class CourseDBColumnarStructure implements CourseDBStructureInterface {
+	
+	private static final double INDEX_LOAD_FACTOR = 0.75;
+	
+	private int[] crns;
+	private byte[] credits;
+	private int[] ids;
+	private int[] rooms;
+	private int[] instructors;
+	private int rows;
+	private CourseDBDictionary strings;
+	
+	private int[] indexKeys;
+	private int[] indexRows;
+	
+	/**
+     * Constructs a CourseDBColumnarStructure with the estimated size.
+     *
+     * @param estimSize the estimated size for the data structure
+     */
+	public CourseDBColumnarStructure (int estimSize) {
+		int capacity = Math.max(estimSize, 16);
+		crns = new int[capacity];
+		credits = new byte[capacity];
+		ids = new int[capacity];
+		rooms = new int[capacity];
+		instructors = new int[capacity];
+		strings = new CourseDBDictionary();
+		int indexSize = Integer.highestOneBit((int) (capacity / INDEX_LOAD_FACTOR)) << 1;
+		indexKeys = new int[indexSize];
+		indexRows = new int[indexSize];
+	}
+	
+	/**
+     * Adds a course element to the data structure. If a course with the same CRN
+     * exists, its row is overwritten.
+     *
+     * @param element the course element to add or update
+     * @throws IllegalArgumentException if the credits do not fit in a byte
+     */
+	@Override
+	public void add(CourseDBElement element) {
+		if (element.getCredits() != (byte) element.getCredits()) {
+			throw new IllegalArgumentException("Credits out of range: " + element.getCredits());
+		}
+		int crn = element.getCRN();
+		int slot = probe(crn);
+		int row = indexRows[slot] - 1;
+		// Encode before releasing, so strings kept by an update are not dropped
+		int id = strings.encode(element.getID());
+		int roomNum = strings.encode(element.getRoomNum());
+		int instructor = strings.encode(element.getInstructor());
+		if (row >= 0) {
+			releaseStrings(row);
+		} else {
+			if (rows == crns.length) {
+				growColumns();
+			}
+			row = rows++;
+			crns[row] = crn;
+			indexKeys[slot] = crn;
+			indexRows[slot] = row + 1;
+			if (rows > INDEX_LOAD_FACTOR * indexKeys.length) {
+				growIndex();
+			}
+		}
+		credits[row] = (byte) element.getCredits();
+		ids[row] = id;
+		rooms[row] = roomNum;
+		instructors[row] = instructor;
+	}
+	
+	/**
+     * Removes a course by its CRN. The last row is moved into the freed row, so
+     * it changes position in showAll and iteration.
+     *
+     * @param crn the CRN of the course to remove
+     * @return a new course element holding the removed course's information, or
+     *         null if there was none
+     */
+	@Override
+	public CourseDBElement remove(int crn) {
+		int slot = probe(crn);
+		int row = indexRows[slot] - 1;
+		if (row < 0) {
+			return null;
+		}
+		CourseDBElement element = materialize(row);
+		releaseStrings(row);
+		deleteSlot(slot);
+		int last = --rows;
+		if (row != last) {
+			crns[row] = crns[last];
+			credits[row] = credits[last];
+			ids[row] = ids[last];
+			rooms[row] = rooms[last];
+			instructors[row] = instructors[last];
+			indexRows[probe(crns[row])] = row + 1;
+		}
+		return element;
+	}
+	
+	/**
+     * Finds a course by its CRN (Course Registration Number) and builds a
+     * CourseDBElement for it.
+     *
+     * @param crn the CRN of the course to retrieve
+     * @return a new course element holding the course's information
+     * @throws IOException if the course with the specified CRN is not found
+     */
+	@Override
+	public CourseDBElement get(int crn) throws IOException {
+		CourseDBElement course = find(crn);
+		if (course == null) {
+			throw new IOException("Course with CRN " + crn + " is not found");
+		}
+		return course;
+	}
+	
+	/**
+     * Finds a course by its CRN without throwing on a miss.
+     *
+     * @param crn the CRN of the course to retrieve
+     * @return a new course element holding the course's information, or null if
+     *         not found
+     */
+	@Override
+	public CourseDBElement find(int crn) {
+		int row = indexRows[probe(crn)] - 1;
+		return row < 0 ? null : materialize(row);
+	}
+	
+	/**
+     * Returns an ArrayList of string representations of all courses, in the order
+     * they were first added.
+     *
+     * @return an ArrayList of string representations of courses
+     */
+	@Override
+	public ArrayList<String> showAll() {
+		ArrayList<String> courses = new ArrayList<>(rows);
+		for (int row = 0; row < rows; row++) {
+			courses.add(materialize(row).toString());
+		}
+		return courses;
+	}
+	
+	/**
+     * Returns an iterator that builds a course element for each row, in the order
+     * the courses were first added.
+     *
+     * @return an iterator over the courses
+     */
+	@Override
+	public Iterator<CourseDBElement> iterator() {
+		return IntStream.range(0, rows).mapToObj(this::materialize).iterator();
+	}
+	
+	/**
+     * Returns up to pageSize courses in the order they were first added. The
+     * token is the row to start from, so any page costs time in its size only.
+     *
+     * @param token    CourseDBPage.FIRST or the next token of the previous page
+     * @param pageSize the largest number of courses to return
+     * @return the page
+     * @throws IllegalArgumentException if the token is negative or pageSize is
+     *                                  not positive
+     */
+	@Override
+	public CourseDBPage page(long token, int pageSize) {
+		CourseDBPage.check(token, pageSize);
+		int start = (int) Math.min(token, rows);
+		int end = (int) Math.min((long) start + pageSize, rows);
+		ArrayList<CourseDBElement> courses = new ArrayList<>(end - start);
+		for (int row = start; row < end; row++) {
+			courses.add(materialize(row));
+		}
+		return new CourseDBPage(courses, end < rows ? end : CourseDBPage.END);
+	}
+	
+	/**
+     * Returns the size of the CRN index.
+     *
+     * @return the number of slots in the index
+     */
+	@Override
+	public int getTableSize() {
+		return indexKeys.length;
+	}
+	
+	/**
+     * Returns the number of courses in the data structure.
+     *
+     * @return the number of courses
+     */
+	@Override
+	public int size() {
+		return rows;
+	}
+	
+	/**
+     * Returns the number of distinct strings the courses refer to.
+     *
+     * @return the number of strings in the dictionary
+     */
+	public int getStringCount() {
+		return strings.size();
+	}
+	
+	/**
+     * Returns every course matching the given course ID, room and instructor, in
+     * the order they were first added. A null argument matches any value. The
+     * strings are translated to dictionary codes once and the scan compares ints.
+     *
+     * @param id         the course ID to match, or null
+     * @param roomNum    the room number to match, or null
+     * @param instructor the instructor to match, or null
+     * @return the matching courses
+     */
+	@Override
+	public ArrayList<CourseDBElement> select(String id, String roomNum, String instructor) {
+		ArrayList<CourseDBElement> result = new ArrayList<>();
+		int idCode = id == null ? -1 : strings.lookup(id);
+		int roomCode = roomNum == null ? -1 : strings.lookup(roomNum);
+		int instructorCode = instructor == null ? -1 : strings.lookup(instructor);
+		if ((id != null && idCode < 0) || (roomNum != null && roomCode < 0)
+				|| (instructor != null && instructorCode < 0)) {
+			return result;
+		}
+		for (int row = 0; row < rows; row++) {
+			if ((id == null || ids[row] == idCode)
+					&& (roomNum == null || rooms[row] == roomCode)
+					&& (instructor == null || instructors[row] == instructorCode)) {
+				result.add(materialize(row));
+			}
+		}
+		return result;
+	}
+	
+	/**
+     * Builds a course element from one row.
+     *
+     * @param row the row
+     * @return the course element
+     */
+	private CourseDBElement materialize (int row) {
+		return new CourseDBElement(strings.decode(ids[row]), crns[row], credits[row],
+				strings.decode(rooms[row]), strings.decode(instructors[row]));
+	}
+	
+	/**
+     * Releases the dictionary codes of one row.
+     *
+     * @param row the row
+     */
+	private void releaseStrings (int row) {
+		strings.release(ids[row]);
+		strings.release(rooms[row]);
+		strings.release(instructors[row]);
+	}
+	
+	/**
+     * Probes the index for a CRN.
+     *
+     * @param crn the CRN to look for
+     * @return the index slot holding the CRN, or the empty slot where it would go
+     */
+	private int probe (int crn) {
+		int mask = indexKeys.length - 1;
+		int i = CourseDBHasher.MURMUR.hash(crn) & mask;
+		while (indexRows[i] != 0 && indexKeys[i] != crn) {
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+	
+	/**
+     * Empties an index slot and moves back each later entry of its run that can
+     * no longer be reached from its home slot across the gap.
+     *
+     * @param i the slot to empty
+     */
+	private void deleteSlot (int i) {
+		int mask = indexKeys.length - 1;
+		for (int j = (i + 1) & mask; indexRows[j] != 0; j = (j + 1) & mask) {
+			int home = CourseDBHasher.MURMUR.hash(indexKeys[j]) & mask;
+			if (((j - home) & mask) >= ((j - i) & mask)) {
+				indexKeys[i] = indexKeys[j];
+				indexRows[i] = indexRows[j];
+				i = j;
+			}
+		}
+		indexRows[i] = 0;
+	}
+	
+	/**
+     * Grows every column by half.
+     */
+	private void growColumns () {
+		int capacity = crns.length + (crns.length >> 1);
+		crns = Arrays.copyOf(crns, capacity);
+		credits = Arrays.copyOf(credits, capacity);
+		ids = Arrays.copyOf(ids, capacity);
+		rooms = Arrays.copyOf(rooms, capacity);
+		instructors = Arrays.copyOf(instructors, capacity);
+	}
+	
+	/**
+     * Doubles the index and reinserts every row.
+     */
+	private void growIndex () {
+		indexKeys = new int[indexKeys.length * 2];
+		indexRows = new int[indexKeys.length];
+		for (int row = 0; row < rows; row++) {
+			int slot = probe(crns[row]);
+			indexKeys[slot] = crns[row];
+			indexRows[slot] = row + 1;
+		}
+	}
+}
@@ -0,0 +1,109 @@
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This is the test file for the CourseDBColumnarStructure
+ */
+public class CourseDBColumnarStructureTest {
+	CourseDBColumnarStructure columns;
+
+	@Before
+	public void setUp() throws Exception {
+		columns = new CourseDBColumnarStructure(4);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		columns = null;
+	}
+
+	/**
+	 * Test adding, updating and getting courses through the index
+	 */
+	@Test
+	public void testAddAndGet() throws IOException {
+		for (int crn = 10000; crn < 11000; crn++) {
+			columns.add(new CourseDBElement("CMSC" + (crn % 10), crn, 1 + crn % 4, "SC" + (crn % 7),
+					"Instructor " + (crn % 3)));
+		}
+		columns.add(new CourseDBElement("CMSC204", 10500, 4, "SC450", "BillyBob Jones"));
+		assertEquals(1000, columns.size());
+		assertEquals(1000, columns.showAll().size());
+		CourseDBElement course = columns.get(10500);
+		assertEquals("CMSC204", course.getID());
+		assertEquals(4, course.getCredits());
+		assertEquals("SC450", course.getRoomNum());
+		assertEquals("BillyBob Jones", course.getInstructor());
+		assertEquals("CMSC1", columns.get(10001).getID());
+		try {
+			columns.get(11000);
+			fail("Should have thrown IOException");
+		} catch (IOException e) {
+			assertTrue("threw Exception successfuly for the course not found", true);
+		}
+	}
+
+	/**
+	 * Test that showAll keeps the order in which courses were first added
+	 */
+	@Test
+	public void testShowAll() {
+		columns.add(new CourseDBElement("CMSC203", 30504, 4, "SC450", "Joey Bag-O-Donuts"));
+		columns.add(new CourseDBElement("CMSC204", 30559, 4, "SC450", "BillyBob Jones"));
+		ArrayList<String> list = columns.showAll();
+		assertEquals("\nCourse:CMSC203 CRN:30504 Credits:4 Instructor:Joey Bag-O-Donuts Room:SC450", list.get(0));
+		assertEquals("\nCourse:CMSC204 CRN:30559 Credits:4 Instructor:BillyBob Jones Room:SC450", list.get(1));
+	}
+
+	/**
+	 * Test selecting courses by dictionary-encoded columns
+	 */
+	@Test
+	public void testSelect() {
+		columns.add(new CourseDBElement("CMSC203", 30504, 4, "SC450", "Joey Bag-O-Donuts"));
+		columns.add(new CourseDBElement("CMSC203", 30503, 4, "SC450", "Jill B. Who-Dunit"));
+		columns.add(new CourseDBElement("CMSC204", 30559, 4, "SC100", "Jill B. Who-Dunit"));
+		assertEquals(2, columns.select(null, "SC450", null).size());
+		assertEquals(2, columns.select(null, null, "Jill B. Who-Dunit").size());
+		assertEquals(30503, columns.select("CMSC203", null, "Jill B. Who-Dunit").get(0).getCRN());
+		assertEquals(3, columns.select(null, null, null).size());
+		assertEquals(0, columns.select("CMSC999", null, null).size());
+	}
+
+	/**
+	 * Test that credits that do not fit a byte are rejected
+	 */
+	@Test
+	public void testCreditsOutOfRange() {
+		try {
+			columns.add(new CourseDBElement("CMSC203", 30504, 400, "SC450", "Joey Bag-O-Donuts"));
+			fail("Should have thrown IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			assertTrue("threw Exception successfuly for the credits", true);
+		}
+	}
+
+	/**
+	 * Test that pages follow the row order
+	 */
+	@Test
+	public void testPage() {
+		CourseDBColumnarStructure columnar = new CourseDBColumnarStructure(10);
+		for (int i = 0; i < 10; i++) {
+			columnar.add(new CourseDBElement("CMSC" + i, 30000 + i, 3, "SC100", "Instructor " + i));
+		}
+		CourseDBPage first = columnar.page(CourseDBPage.FIRST, 4);
+		assertEquals(30000, first.getCourses().get(0).getCRN());
+		CourseDBPage second = columnar.page(first.getNextToken(), 4);
+		assertEquals(30004, second.getCourses().get(0).getCRN());
+		CourseDBPage last = columnar.page(second.getNextToken(), 4);
+		assertEquals(2, last.getCourses().size());
+		assertFalse(last.hasNext());
+	}
+}
@@ -0,0 +1,428 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * CourseDBConcurrentStructure is a thread-safe CourseDBStructureInterface
+ * implementation. The CRN space is split into stripes, each a small chained hash
+ * table guarded by its own lock, so adds to different stripes never wait for each
+ * other. Chain nodes are immutable and a stripe publishes a changed chain with a
+ * single volatile write, so get takes no lock and always sees either the old or
+ * the new course, never a course that is half updated.
+ *
+ * Adding a course whose CRN is already present replaces the stored course with
+ * the new one instead of copying fields into it.
+ */
+public class CourseDBConcurrentStructure implements CourseDBStructureInterface {
+	
+	public static final int DEFAULT_STRIPES = 16;
+	private static final double LOAD_FACTOR = 0.75;
+	
+	private final Stripe[] stripes;
+	private final int stripeShift;
+	private final CourseDBHasher hasher;
+	
+	/**
+     * Constructs a CourseDBConcurrentStructure with the estimated size and the
+     * default number of stripes.
+     *
+     * @param estimSize the estimated size for the data structure
+     */
+	public CourseDBConcurrentStructure (int estimSize) {
+		this(estimSize, DEFAULT_STRIPES);
+	}
+	
+	/**
+     * Constructs a CourseDBConcurrentStructure with the estimated size and number
+     * of stripes.
+     *
+     * @param estimSize the estimated size for the data structure
+     * @param stripes   the number of independently locked stripes, rounded up to a
+     *                  power of two
+     */
+	public CourseDBConcurrentStructure (int estimSize, int stripes) {
+		int stripeCount = 1;
+		while (stripeCount < stripes) {
+			stripeCount <<= 1;
+		}
+		this.stripes = new Stripe[stripeCount];
+		stripeShift = 32 - Integer.numberOfTrailingZeros(stripeCount);
+		hasher = CourseDBHasher.MURMUR;
+		int perStripe = (int) (estimSize / LOAD_FACTOR / stripeCount) + 1;
+		for (int i = 0; i < stripeCount; i++) {
+			this.stripes[i] = new Stripe(Integer.highestOneBit(perStripe) << 1, hasher);
+		}
+	}
+	
+	/**
+     * Adds a course element to the data structure. If a course with the same CRN
+     * exists, it is replaced.
+     *
+     * @param element the course element to add or update
+     */
+	@Override
+	public void add(CourseDBElement element) {
+		int hash = hasher.hash(element.getCRN());
+		stripeFor(hash).put(hash, element);
+	}
+	
+	/**
+     * Replaces the course with the given CRN by the result of the remapping
+     * function while holding the lock of the CRN's stripe, so concurrent calls for
+     * the same CRN never lose an update.
+     *
+     * @param crn       the CRN of the course to compute
+     * @param remapping the function computing the course to store from the
+     *                  current one, or from null if there is none
+     * @return the course stored for the CRN after the call, or null if none
+     * @throws IllegalArgumentException if the computed course has another CRN
+     */
+	@Override
+	public CourseDBElement compute(int crn, UnaryOperator<CourseDBElement> remapping) {
+		int hash = hasher.hash(crn);
+		return stripeFor(hash).compute(hash, crn, remapping);
+	}
+	
+	/**
+     * Removes a course element by its CRN while holding the lock of the CRN's
+     * stripe. Readers see the chain either with or without the course.
+     *
+     * @param crn the CRN of the course to remove
+     * @return the course element that was removed, or null if there was none
+     */
+	@Override
+	public CourseDBElement remove(int crn) {
+		int hash = hasher.hash(crn);
+		return stripeFor(hash).remove(hash, crn, null);
+	}
+	
+	/**
+     * Removes a course element by its CRN after handing it to an action, both
+     * while holding the lock of the CRN's stripe, so the action sees the removal
+     * in the same order as every other update of the CRN.
+     *
+     * @param crn          the CRN of the course to remove
+     * @param beforeRemove the action run on the course before it is removed
+     * @return the course element that was removed, or null if there was none
+     */
+	@Override
+	public CourseDBElement remove(int crn, Consumer<CourseDBElement> beforeRemove) {
+		int hash = hasher.hash(crn);
+		return stripeFor(hash).remove(hash, crn, beforeRemove);
+	}
+	
+	/**
+     * Finds a course element by its CRN (Course Registration Number) without
+     * locking.
+     *
+     * @param crn the CRN of the course to retrieve
+     * @return the course element with the specified CRN
+     * @throws IOException if the course with the specified CRN is not found
+     */
+	@Override
+	public CourseDBElement get(int crn) throws IOException {
+		CourseDBElement element = find(crn);
+		if (element == null) {
+			throw new IOException("Course with CRN " + crn + " is not found");
+		}
+		return element;
+	}
+	
+	/**
+     * Finds a course element by its CRN without locking and without throwing on
+     * a miss.
+     *
+     * @param crn the CRN of the course to retrieve
+     * @return the course element with the specified CRN, or null if not found
+     */
+	@Override
+	public CourseDBElement find(int crn) {
+		int hash = hasher.hash(crn);
+		AtomicReferenceArray<Node> table = stripeFor(hash).table;
+		for (Node node = table.get(hash & (table.length() - 1)); node != null; node = node.next) {
+			if (node.crn == crn) {
+				return node.element;
+			}
+		}
+		return null;
+	}
+	
+	/**
+     * Returns an ArrayList of string representations of all courses in the data
+     * structure. Courses added while the list is built may or may not appear.
+     *
+     * @return an ArrayList of string representations of courses
+     */
+	@Override
+	public ArrayList<String> showAll() {
+		ArrayList<String> courses = new ArrayList<>();
+		for (Stripe stripe : stripes) {
+			AtomicReferenceArray<Node> table = stripe.table;
+			for (int i = 0; i < table.length(); i++) {
+				for (Node node = table.get(i); node != null; node = node.next) {
+					courses.add(node.element.toString());
+				}
+			}
+		}
+		return courses;
+	}
+	
+	/**
+     * Returns an iterator over the courses. The iterator does not lock; courses
+     * added while it runs may or may not be returned.
+     *
+     * @return an iterator over the courses
+     */
+	@Override
+	public Iterator<CourseDBElement> iterator() {
+		return Arrays.stream(stripes).flatMap(stripe -> {
+			AtomicReferenceArray<Node> table = stripe.table;
+			return IntStream.range(0, table.length())
+					.mapToObj(i -> Stream.iterate(table.get(i), Objects::nonNull, node -> node.next))
+					.flatMap(chain -> chain.map(node -> node.element));
+		}).iterator();
+	}
+	
+	/**
+     * Returns the total number of buckets over all stripes.
+     *
+     * @return the size of the hash table
+     */
+	@Override
+	public int getTableSize() {
+		int size = 0;
+		for (Stripe stripe : stripes) {
+			size += stripe.table.length();
+		}
+		return size;
+	}
+	
+	/**
+     * Returns the number of courses in the data structure.
+     *
+     * @return the number of courses
+     */
+	@Override
+	public int size() {
+		int size = 0;
+		for (Stripe stripe : stripes) {
+			size += stripe.count;
+		}
+		return size;
+	}
+	
+	/**
+     * Returns the number of stripes.
+     *
+     * @return the number of independently locked stripes
+     */
+	public int getStripeCount() {
+		return stripes.length;
+	}
+	
+	/**
+     * Selects the stripe for a hash code by its high bits; the low bits pick the
+     * bucket inside the stripe.
+     *
+     * @param hash the hash code of a CRN
+     * @return the stripe that owns the CRN
+     */
+	private Stripe stripeFor (int hash) {
+		return stripes.length == 1 ? stripes[0] : stripes[hash >>> stripeShift];
+	}
+	
+	/**
+	 * An immutable link of a bucket chain.
+	 */
+	private static class Node {
+		private final int crn;
+		private final CourseDBElement element;
+		private final Node next;
+
+		private Node (int crn, CourseDBElement element, Node next) {
+			this.crn = crn;
+			this.element = element;
+			this.next = next;
+		}
+	}
+	
+	/**
+	 * A chained hash table whose writers hold its lock. The bucket array is
+	 * replaced as a whole on resize, and buckets are written with volatile
+	 * semantics so that lock-free readers see fully built chains.
+	 */
+	@SuppressWarnings("serial")
+	private static class Stripe extends ReentrantLock {
+		private volatile AtomicReferenceArray<Node> table;
+		private volatile int count;
+		private final CourseDBHasher hasher;
+
+		/**
+	     * Creates an empty stripe.
+	     *
+	     * @param buckets the initial number of buckets, a power of two
+	     * @param hasher  the hash function for CRNs
+	     */
+		private Stripe (int buckets, CourseDBHasher hasher) {
+			table = new AtomicReferenceArray<>(buckets);
+			this.hasher = hasher;
+		}
+
+		/**
+	     * Adds or replaces a course.
+	     *
+	     * @param hash    the hash code of the course's CRN
+	     * @param element the course
+	     */
+		private void put (int hash, CourseDBElement element) {
+			lock();
+			try {
+				store(hash, element.getCRN(), element);
+			} finally {
+				unlock();
+			}
+		}
+		
+		/**
+	     * Computes and stores a course while holding the lock.
+	     *
+	     * @param hash      the hash code of the CRN
+	     * @param crn       the CRN
+	     * @param remapping the function computing the course to store
+	     * @return the course stored for the CRN after the call, or null if none
+	     */
+		private CourseDBElement compute (int hash, int crn, UnaryOperator<CourseDBElement> remapping) {
+			lock();
+			try {
+				AtomicReferenceArray<Node> tab = table;
+				CourseDBElement current = null;
+				for (Node node = tab.get(hash & (tab.length() - 1)); node != null; node = node.next) {
+					if (node.crn == crn) {
+						current = node.element;
+						break;
+					}
+				}
+				CourseDBElement result = remapping.apply(current);
+				if (result == null) {
+					return current;
+				}
+				if (result.getCRN() != crn) {
+					throw new IllegalArgumentException("Computed course has CRN " + result.getCRN() + ", expected " + crn);
+				}
+				store(hash, crn, result);
+				return result;
+			} finally {
+				unlock();
+			}
+		}
+		
+		/**
+	     * Unlinks the course with a CRN.
+	     *
+	     * @param hash         the hash code of the CRN
+	     * @param crn          the CRN
+	     * @param beforeRemove the action run on the course before it is unlinked,
+	     *                     or null
+	     * @return the course that was removed, or null if there was none
+	     */
+		private CourseDBElement remove (int hash, int crn, Consumer<CourseDBElement> beforeRemove) {
+			lock();
+			try {
+				AtomicReferenceArray<Node> tab = table;
+				int i = hash & (tab.length() - 1);
+				Node head = tab.get(i);
+				for (Node node = head; node != null; node = node.next) {
+					if (node.crn == crn) {
+						if (beforeRemove != null) {
+							beforeRemove.accept(node.element);
+						}
+						tab.set(i, unlink(head, node));
+						count--;
+						return node.element;
+					}
+				}
+				return null;
+			} finally {
+				unlock();
+			}
+		}
+		
+		/**
+	     * Adds or replaces a course. The caller holds the lock.
+	     *
+	     * @param hash    the hash code of the course's CRN
+	     * @param crn     the CRN
+	     * @param element the course
+	     */
+		private void store (int hash, int crn, CourseDBElement element) {
+			AtomicReferenceArray<Node> tab = table;
+			int i = hash & (tab.length() - 1);
+			Node head = tab.get(i);
+			for (Node node = head; node != null; node = node.next) {
+				if (node.crn == crn) {
+					tab.set(i, replace(head, node, element));
+					return;
+				}
+			}
+			tab.set(i, new Node(crn, element, head));
+			count++;
+			if (count > LOAD_FACTOR * tab.length()) {
+				resize();
+			}
+		}
+
+		/**
+	     * Builds a chain in which one node carries a new course. The nodes before
+	     * it are copied and the nodes after it are shared.
+	     *
+	     * @param head    the first node of the chain
+	     * @param target  the node to replace
+	     * @param element the new course
+	     * @return the first node of the new chain
+	     */
+		private Node replace (Node head, Node target, CourseDBElement element) {
+			if (head == target) {
+				return new Node(target.crn, element, target.next);
+			}
+			return new Node(head.crn, head.element, replace(head.next, target, element));
+		}
+
+		/**
+	     * Builds a chain without one node. The nodes before it are copied and the
+	     * nodes after it are shared.
+	     *
+	     * @param head   the first node of the chain
+	     * @param target the node to leave out
+	     * @return the first node of the new chain
+	     */
+		private Node unlink (Node head, Node target) {
+			if (head == target) {
+				return target.next;
+			}
+			return new Node(head.crn, head.element, unlink(head.next, target));
+		}
+
+		/**
+	     * Doubles the bucket array and publishes it once every chain is built.
+	     */
+		private void resize () {
+			AtomicReferenceArray<Node> old = table;
+			AtomicReferenceArray<Node> tab = new AtomicReferenceArray<>(old.length() * 2);
+			for (int i = 0; i < old.length(); i++) {
+				for (Node node = old.get(i); node != null; node = node.next) {
+					int j = hasher.hash(node.crn) & (tab.length() - 1);
+					tab.set(j, new Node(node.crn, node.element, tab.get(j)));
+				}
+			}
+			table = tab;
+		}
+	}
+}
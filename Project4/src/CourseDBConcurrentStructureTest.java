@@ -0,0 +1,151 @@
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This is the test file for the CourseDBConcurrentStructure, including a
+ * multi-threaded stress test.
+ */
+public class CourseDBConcurrentStructureTest {
+	private static final int THREADS = 8;
+	private static final int CRNS_PER_THREAD = 20000;
+
+	CourseDBConcurrentStructure cds;
+	ExecutorService pool;
+
+	@Before
+	public void setUp() throws Exception {
+		cds = new CourseDBConcurrentStructure(20);
+		pool = Executors.newFixedThreadPool(THREADS);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		pool.shutdownNow();
+		cds = null;
+	}
+
+	/**
+	 * Test the single-threaded behavior
+	 */
+	@Test
+	public void testAddAndGet() throws IOException {
+		cds.add(new CourseDBElement("CMSC500", 39999, 4, "SC100", "Nobody InParticular"));
+		cds.add(new CourseDBElement("CMSC600", 4000, 4, "SC100", "Nobody InParticular"));
+		cds.add(new CourseDBElement("CMSC500-updated", 39999, 4, "SC100", "updated"));
+		assertEquals(2, cds.size());
+		assertEquals(2, cds.showAll().size());
+		assertEquals("CMSC500-updated", cds.get(39999).getID());
+		try {
+			cds.get(12345);
+			fail("Should have thrown IOException");
+		} catch (IOException e) {
+			assertTrue("threw Exception successfuly for the course not found", true);
+		}
+	}
+
+	/**
+	 * Test that concurrent writers lose no course while the stripes resize
+	 */
+	@Test
+	public void testConcurrentAdds() throws Exception {
+		List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			int first = 10000 + t * CRNS_PER_THREAD;
+			futures.add(pool.submit(() -> {
+				for (int crn = first; crn < first + CRNS_PER_THREAD; crn++) {
+					cds.add(new CourseDBElement("CMSC204", crn, 4, "SC100", "Nobody InParticular"));
+				}
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		assertEquals(THREADS * CRNS_PER_THREAD, cds.size());
+		for (int crn = 10000; crn < 10000 + THREADS * CRNS_PER_THREAD; crn++) {
+			assertEquals(crn, cds.get(crn).getCRN());
+		}
+	}
+
+	/**
+	 * Test that readers never see a course whose fields come from different updates
+	 * while writers keep replacing the same CRNs
+	 */
+	@Test
+	public void testReadersNeverSeeTornCourses() throws Exception {
+		int hotCrns = 64;
+		for (int crn = 0; crn < hotCrns; crn++) {
+			cds.add(course(crn, 0));
+		}
+		List<Future<Integer>> futures = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			boolean writer = t % 2 == 0;
+			futures.add(pool.submit((Callable<Integer>) () -> {
+				int torn = 0;
+				for (int i = 1; i <= CRNS_PER_THREAD; i++) {
+					int crn = i % hotCrns;
+					if (writer) {
+						cds.add(course(crn, i));
+					} else {
+						CourseDBElement element = cds.get(crn);
+						String version = element.getID().substring("CMSC".length());
+						if (!element.getInstructor().equals("Instructor " + version)
+								|| !element.getRoomNum().equals("SC" + version)) {
+							torn++;
+						}
+					}
+				}
+				return torn;
+			}));
+		}
+		for (Future<Integer> future : futures) {
+			assertEquals(0, (int) future.get());
+		}
+		assertEquals(hotCrns, cds.size());
+	}
+
+	/**
+	 * Test that concurrent read-modify-write updates through compute are not lost
+	 */
+	@Test
+	public void testConcurrentCompute() throws Exception {
+		int increments = 5000;
+		cds.add(course(30504, 0));
+		List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			futures.add(pool.submit(() -> {
+				for (int i = 0; i < increments; i++) {
+					cds.compute(30504, current -> {
+						int version = Integer.parseInt(current.getID().substring("CMSC".length()));
+						return course(30504, version + 1);
+					});
+				}
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		assertEquals("CMSC" + THREADS * increments, cds.get(30504).getID());
+	}
+
+	/**
+	 * Builds a course whose id, room and instructor all carry the same version.
+	 *
+	 * @param crn     the CRN
+	 * @param version the version number
+	 * @return the course
+	 */
+	private static CourseDBElement course(int crn, int version) {
+		return new CourseDBElement("CMSC" + version, crn, 4, "SC" + version, "Instructor " + version);
+	}
+}
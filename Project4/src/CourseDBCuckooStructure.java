@@ -0,0 +1,407 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * CourseDBCuckooStructure is a CourseDBStructureInterface implementation based on
+ * bucketized cuckoo hashing, so that a lookup reads a fixed number of slots no
+ * matter how the CRNs cluster. Every CRN has two candidate buckets of four slots,
+ * one chosen by the MurmurHash finalizer and one by Fibonacci hashing, and is
+ * always stored in one of them or in a small stash. A lookup checks the two
+ * buckets and the stash and nothing else: at most MAX_LOOKUP_SLOTS slots.
+ *
+ * An insert that finds both buckets full evicts a course from one of them to
+ * that course's other bucket, and so on along a random walk. A walk that runs
+ * too long, which happens when the evictions cycle, leaves the last course in
+ * the stash; when the stash is full too, the table doubles and every course is
+ * put again. The table also doubles past the load factor, so walks stay short.
+ */
+public class CourseDBCuckooStructure implements CourseDBStructureInterface {
+	
+	public static final int BUCKET_SLOTS = 4;
+	public static final int STASH_SLOTS = 8;
+	public static final int MAX_LOOKUP_SLOTS = 2 * BUCKET_SLOTS + STASH_SLOTS;
+	
+	private static final double MAX_LOAD_FACTOR = 0.9;
+	private static final int MAX_EVICTIONS = 500;
+	
+	private int[] keys;
+	private CourseDBElement[] values;
+	private int bucketBits;
+	private int count;
+	private int[] stashKeys = new int[STASH_SLOTS];
+	private CourseDBElement[] stashValues = new CourseDBElement[STASH_SLOTS];
+	private int stashCount;
+	private int random = 204;
+	
+	/**
+     * Constructs a CourseDBCuckooStructure with the estimated size.
+     *
+     * @param estimSize the estimated size for the data structure
+     */
+	public CourseDBCuckooStructure (int estimSize) {
+		int buckets = (int) Math.ceil(Math.max(estimSize, 16) / (MAX_LOAD_FACTOR * BUCKET_SLOTS));
+		allocate(32 - Integer.numberOfLeadingZeros(buckets - 1));
+	}
+	
+	/**
+     * Adds a course element to the data structure. If a course with the same CRN
+     * exists, it is replaced by the new element.
+     *
+     * @param element the course element to add or update
+     */
+	@Override
+	public void add(CourseDBElement element) {
+		int crn = element.getCRN();
+		int slot = slotOf(crn);
+		if (slot >= 0) {
+			values[slot] = element;
+			return;
+		}
+		for (int s = 0; s < stashCount; s++) {
+			if (stashKeys[s] == crn) {
+				stashValues[s] = element;
+				return;
+			}
+		}
+		if (count + 1 > MAX_LOAD_FACTOR * values.length) {
+			grow();
+		}
+		insert(crn, element);
+		count++;
+	}
+	
+	/**
+     * Removes a course element by its CRN. Its slot is simply cleared, since no
+     * other course depends on it to be found; a stashed course is replaced by
+     * the last one of the stash.
+     *
+     * @param crn the CRN of the course to remove
+     * @return the course element that was removed, or null if there was none
+     */
+	@Override
+	public CourseDBElement remove(int crn) {
+		int slot = slotOf(crn);
+		if (slot >= 0) {
+			CourseDBElement element = values[slot];
+			values[slot] = null;
+			count--;
+			return element;
+		}
+		for (int s = 0; s < stashCount; s++) {
+			if (stashKeys[s] == crn) {
+				CourseDBElement element = stashValues[s];
+				stashCount--;
+				stashKeys[s] = stashKeys[stashCount];
+				stashValues[s] = stashValues[stashCount];
+				stashValues[stashCount] = null;
+				count--;
+				return element;
+			}
+		}
+		return null;
+	}
+	
+	/**
+     * Finds a course element by its CRN (Course Registration Number).
+     *
+     * @param crn the CRN of the course to retrieve
+     * @return the course element with the specified CRN
+     * @throws IOException if the course with the specified CRN is not found
+     */
+	@Override
+	public CourseDBElement get(int crn) throws IOException {
+		CourseDBElement element = find(crn);
+		if (element == null) {
+			throw new IOException("Course with CRN " + crn + " is not found");
+		}
+		return element;
+	}
+	
+	/**
+     * Finds a course element by its CRN without throwing on a miss. Reads the two
+     * buckets of the CRN and the stash, at most MAX_LOOKUP_SLOTS slots.
+     *
+     * @param crn the CRN of the course to retrieve
+     * @return the course element with the specified CRN, or null if not found
+     */
+	@Override
+	public CourseDBElement find(int crn) {
+		int slot = slotOf(crn);
+		if (slot >= 0) {
+			return values[slot];
+		}
+		for (int s = 0; s < stashCount; s++) {
+			if (stashKeys[s] == crn) {
+				return stashValues[s];
+			}
+		}
+		return null;
+	}
+	
+	/**
+     * Returns an ArrayList of string representations of all courses, in slot
+     * order followed by the stash.
+     *
+     * @return an ArrayList of string representations of courses
+     */
+	@Override
+	public ArrayList<String> showAll() {
+		ArrayList<String> courses = new ArrayList<>(count);
+		for (CourseDBElement element : this) {
+			courses.add(element.toString());
+		}
+		return courses;
+	}
+	
+	/**
+     * Returns an iterator over the courses in slot order followed by the stash.
+     * Adding courses while iterating is not supported.
+     *
+     * @return an iterator over the courses
+     */
+	@Override
+	public Iterator<CourseDBElement> iterator() {
+		return Stream.concat(Arrays.stream(values), Arrays.stream(stashValues, 0, stashCount))
+				.filter(Objects::nonNull).iterator();
+	}
+	
+	/**
+     * Returns up to pageSize courses in the order of iterator. The token is the
+     * slot to start from, with the stash numbered after the table, so any page
+     * costs time in its size only. Tokens are invalidated when the table grows.
+     *
+     * @param token    CourseDBPage.FIRST or the next token of the previous page
+     * @param pageSize the largest number of courses to return
+     * @return the page
+     * @throws IllegalArgumentException if the token is negative or pageSize is
+     *                                  not positive
+     */
+	@Override
+	public CourseDBPage page(long token, int pageSize) {
+		CourseDBPage.check(token, pageSize);
+		int end = values.length + stashCount;
+		ArrayList<CourseDBElement> courses = new ArrayList<>(Math.min(pageSize, count));
+		int i = (int) Math.min(token, end);
+		for (; i < end && courses.size() < pageSize; i++) {
+			CourseDBElement element = i < values.length ? values[i] : stashValues[i - values.length];
+			if (element != null) {
+				courses.add(element);
+			}
+		}
+		while (i < values.length && values[i] == null) {
+			i++;
+		}
+		return new CourseDBPage(courses, i < end ? i : CourseDBPage.END);
+	}
+	
+	/**
+     * Returns the number of slots in the table, not counting the stash.
+     *
+     * @return the number of slots
+     */
+	@Override
+	public int getTableSize() {
+		return values.length;
+	}
+	
+	/**
+     * Returns the number of courses in the data structure.
+     *
+     * @return the number of courses
+     */
+	@Override
+	public int size() {
+		return count;
+	}
+	
+	/**
+     * Returns the number of courses held in the stash.
+     *
+     * @return the number of stashed courses, at most STASH_SLOTS
+     */
+	public int getStashSize() {
+		return stashCount;
+	}
+	
+	/**
+     * Returns the current load factor, the number of courses divided by the
+     * number of slots in the table.
+     *
+     * @return the current load factor
+     */
+	public double getLoadFactor() {
+		return (double) count / values.length;
+	}
+	
+	/**
+     * Looks for a CRN in its two buckets.
+     *
+     * @param crn the CRN to look for
+     * @return the slot holding the CRN, or -1 if neither bucket does
+     */
+	private int slotOf (int crn) {
+		int first = firstBucket(crn) * BUCKET_SLOTS;
+		for (int i = first; i < first + BUCKET_SLOTS; i++) {
+			if (values[i] != null && keys[i] == crn) {
+				return i;
+			}
+		}
+		int second = secondBucket(crn) * BUCKET_SLOTS;
+		for (int i = second; i < second + BUCKET_SLOTS; i++) {
+			if (values[i] != null && keys[i] == crn) {
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	/**
+     * Puts a course whose CRN is not stored, evicting courses to their other
+     * bucket as needed. A course left over after MAX_EVICTIONS evictions goes to
+     * the stash, or if the stash is full the table grows and it is put again.
+     *
+     * @param crn     the CRN of the course
+     * @param element the course
+     */
+	private void insert (int crn, CourseDBElement element) {
+		if (putInBucket(firstBucket(crn), crn, element)) {
+			return;
+		}
+		int bucket = secondBucket(crn);
+		for (int evictions = 0; !putInBucket(bucket, crn, element); evictions++) {
+			if (evictions == MAX_EVICTIONS) {
+				stash(crn, element);
+				return;
+			}
+			// The bucket is full: take the place of a random course, which moves to its other bucket
+			int victim = bucket * BUCKET_SLOTS + (nextRandom() & (BUCKET_SLOTS - 1));
+			int evictedKey = keys[victim];
+			CourseDBElement evicted = values[victim];
+			keys[victim] = crn;
+			values[victim] = element;
+			crn = evictedKey;
+			element = evicted;
+			bucket = otherBucket(bucket, crn);
+		}
+	}
+	
+	/**
+     * Puts a course that found no bucket in the stash, or if the stash is full
+     * grows the table and puts it again.
+     *
+     * @param crn     the CRN of the course
+     * @param element the course
+     */
+	private void stash (int crn, CourseDBElement element) {
+		if (stashCount < STASH_SLOTS) {
+			stashKeys[stashCount] = crn;
+			stashValues[stashCount++] = element;
+			return;
+		}
+		grow();
+		insert(crn, element);
+	}
+	
+	/**
+     * Puts a course in the first empty slot of a bucket.
+     *
+     * @param bucket  the bucket
+     * @param crn     the CRN of the course
+     * @param element the course
+     * @return true if the bucket had an empty slot
+     */
+	private boolean putInBucket (int bucket, int crn, CourseDBElement element) {
+		for (int i = bucket * BUCKET_SLOTS; i < (bucket + 1) * BUCKET_SLOTS; i++) {
+			if (values[i] == null) {
+				keys[i] = crn;
+				values[i] = element;
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+     * Doubles the number of buckets and puts every course again, those in the
+     * stash included.
+     */
+	private void grow () {
+		int[] oldKeys = keys;
+		CourseDBElement[] oldValues = values;
+		int[] oldStashKeys = Arrays.copyOf(stashKeys, stashCount);
+		CourseDBElement[] oldStashValues = Arrays.copyOf(stashValues, stashCount);
+		allocate(bucketBits + 1);
+		Arrays.fill(stashValues, null);
+		stashCount = 0;
+		for (int i = 0; i < oldValues.length; i++) {
+			if (oldValues[i] != null) {
+				insert(oldKeys[i], oldValues[i]);
+			}
+		}
+		for (int s = 0; s < oldStashKeys.length; s++) {
+			insert(oldStashKeys[s], oldStashValues[s]);
+		}
+	}
+	
+	/**
+     * Replaces the table by an empty one.
+     *
+     * @param bits the base-2 logarithm of the number of buckets
+     */
+	private void allocate (int bits) {
+		bucketBits = Math.max(bits, 1);
+		keys = new int[BUCKET_SLOTS << bucketBits];
+		values = new CourseDBElement[keys.length];
+	}
+	
+	/**
+     * Returns the bucket chosen for a CRN by the MurmurHash finalizer.
+     *
+     * @param crn the CRN
+     * @return the first bucket
+     */
+	private int firstBucket (int crn) {
+		return CourseDBHasher.MURMUR.hash(crn) & ((1 << bucketBits) - 1);
+	}
+	
+	/**
+     * Returns the bucket chosen for a CRN by Fibonacci hashing, from the high
+     * bits of the product, which are the well mixed ones.
+     *
+     * @param crn the CRN
+     * @return the second bucket
+     */
+	private int secondBucket (int crn) {
+		return CourseDBHasher.FIBONACCI.hash(crn) >>> (32 - bucketBits);
+	}
+	
+	/**
+     * Returns the other candidate bucket of a CRN.
+     *
+     * @param bucket one of the CRN's buckets
+     * @param crn    the CRN
+     * @return the CRN's other bucket, which may be the same one
+     */
+	private int otherBucket (int bucket, int crn) {
+		int first = firstBucket(crn);
+		return bucket == first ? secondBucket(crn) : first;
+	}
+	
+	/**
+     * Advances the xorshift generator that picks the courses to evict. It is
+     * seeded with a constant, so a given sequence of adds always lays the table
+     * out the same way.
+     *
+     * @return the next pseudo-random number
+     */
+	private int nextRandom () {
+		random ^= random << 13;
+		random ^= random >>> 17;
+		random ^= random << 5;
+		return random;
+	}
+}
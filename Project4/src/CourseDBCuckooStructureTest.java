@@ -0,0 +1,91 @@
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This is the test file for the CourseDBCuckooStructure
+ */
+public class CourseDBCuckooStructureTest {
+	CourseDBCuckooStructure cuckoo;
+
+	@Before
+	public void setUp() throws Exception {
+		cuckoo = new CourseDBCuckooStructure(4);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		cuckoo = null;
+	}
+
+	/**
+	 * Test adding, updating and getting random and clustered CRNs while the table grows
+	 */
+	@Test
+	public void testAddAndGet() throws IOException {
+		HashMap<Integer, CourseDBElement> expected = new HashMap<>();
+		Random random = new Random(23);
+		for (int i = 0; i < 50000; i++) {
+			// Half the CRNs in consecutive blocks, half random, with repeats
+			int crn = i % 2 == 0 ? 10000 + i / 2 : random.nextInt(200000);
+			CourseDBElement course = new CourseDBElement("CMSC" + i, crn, 3, "SC100", "Instructor " + i);
+			cuckoo.add(course);
+			expected.put(crn, course);
+		}
+		assertEquals(expected.size(), cuckoo.size());
+		for (HashMap.Entry<Integer, CourseDBElement> entry : expected.entrySet()) {
+			assertSame(entry.getValue(), cuckoo.get(entry.getKey()));
+		}
+		assertNull(cuckoo.find(-5));
+		assertTrue(cuckoo.getLoadFactor() <= 0.9);
+		assertTrue(cuckoo.getStashSize() <= CourseDBCuckooStructure.STASH_SLOTS);
+		try {
+			cuckoo.get(-5);
+			fail("Should have thrown an IOException");
+		} catch (IOException e) {
+			assertTrue("threw Exception successfuly for the missing CRN", true);
+		}
+	}
+
+	/**
+	 * Test that a table too small for its CRNs still keeps every course
+	 */
+	@Test
+	public void testFullBuckets() throws IOException {
+		for (int crn = 0; crn < 1000; crn++) {
+			cuckoo.add(new CourseDBElement("CMSC204", crn * 64, 4, "SC450", "Jill B. Who-Dunit"));
+		}
+		for (int crn = 0; crn < 1000; crn++) {
+			assertEquals(crn * 64, cuckoo.get(crn * 64).getCRN());
+		}
+		assertEquals(1000, cuckoo.stream().count());
+	}
+
+	/**
+	 * Test that showAll and paging return every course once in the same order
+	 */
+	@Test
+	public void testShowAllAndPage() {
+		for (int crn = 10000; crn < 11000; crn++) {
+			cuckoo.add(new CourseDBElement("CMSC" + crn, crn, 1, "SC100", "Instructor"));
+		}
+		ArrayList<String> paged = new ArrayList<>();
+		long token = CourseDBPage.FIRST;
+		do {
+			CourseDBPage page = cuckoo.page(token, 64);
+			for (CourseDBElement course : page.getCourses()) {
+				paged.add(course.toString());
+			}
+			token = page.getNextToken();
+		} while (token != CourseDBPage.END);
+		assertEquals(cuckoo.showAll(), paged);
+		assertEquals(1000, paged.size());
+	}
+}
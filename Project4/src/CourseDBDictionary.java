@@ -0,0 +1,123 @@
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * CourseDBDictionary assigns a small int code to every distinct string it is
+ * given, so repeated values such as course IDs, rooms and instructor names can be
+ * stored once and referred to by code. It can also be used as an intern pool that
+ * hands back one shared instance for equal strings.
+ *
+ * Every encode counts a reference to the string. A holder that drops a code
+ * calls release, and a string whose last reference is released leaves the
+ * dictionary; its code is handed out again by a later encode. A dictionary
+ * whose holders release what they drop therefore holds only the strings still
+ * in use, however many strings pass through it.
+ */
+public class CourseDBDictionary {
+	
+	private HashMap<String, Integer> codes;
+	private String[] values;
+	private int[] references;
+	private int[] freeCodes;
+	private int freeCount;
+	private int size;
+	
+	/**
+     * Constructs an empty dictionary.
+     */
+	public CourseDBDictionary () {
+		codes = new HashMap<>();
+		values = new String[16];
+		references = new int[16];
+		freeCodes = new int[16];
+	}
+	
+	/**
+     * Returns the code of a string, assigning a free code if the string is not
+     * in the dictionary, and counts one more reference to it.
+     *
+     * @param value the string to encode
+     * @return the code of the string
+     */
+	public int encode(String value) {
+		Integer known = codes.get(value);
+		if (known != null) {
+			references[known]++;
+			return known;
+		}
+		int code;
+		if (freeCount > 0) {
+			code = freeCodes[--freeCount];
+		} else {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+				references = Arrays.copyOf(references, size * 2);
+			}
+			code = size++;
+		}
+		values[code] = value;
+		references[code] = 1;
+		codes.put(value, code);
+		return code;
+	}
+	
+	/**
+     * Drops one reference to a code. When the last one is dropped the string
+     * leaves the dictionary and the code becomes free.
+     *
+     * @param code a code returned by encode and not yet released as often
+     */
+	public void release(int code) {
+		if (--references[code] > 0) {
+			return;
+		}
+		codes.remove(values[code]);
+		values[code] = null;
+		if (freeCount == freeCodes.length) {
+			freeCodes = Arrays.copyOf(freeCodes, freeCount * 2);
+		}
+		freeCodes[freeCount++] = code;
+	}
+	
+	/**
+     * Returns the code of a string without assigning one.
+     *
+     * @param value the string to look up
+     * @return the code of the string, or -1 if it has not been encoded
+     */
+	public int lookup(String value) {
+		Integer code = codes.get(value);
+		return code == null ? -1 : code;
+	}
+	
+	/**
+     * Returns the shared instance of a string, adding the string to the dictionary
+     * if it has not been seen before.
+     *
+     * @param value the string to intern
+     * @return the instance equal to value that the dictionary holds
+     */
+	public String intern(String value) {
+		int code = encode(value);
+		return values[code];
+	}
+	
+	/**
+     * Returns the string with the given code.
+     *
+     * @param code a code returned by encode
+     * @return the string
+     */
+	public String decode(int code) {
+		return values[code];
+	}
+	
+	/**
+     * Returns the number of distinct strings in the dictionary.
+     *
+     * @return the number of codes in use
+     */
+	public int size() {
+		return size - freeCount;
+	}
+}
@@ -0,0 +1,90 @@
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.PrintWriter;
+
+import org.junit.Test;
+
+/**
+ * This is the test file for the CourseDBDictionary
+ */
+public class CourseDBDictionaryTest {
+
+	/**
+	 * Test that equal strings get the same code and decode back
+	 */
+	@Test
+	public void testEncodeDecode() {
+		CourseDBDictionary dictionary = new CourseDBDictionary();
+		for (int i = 0; i < 100; i++) {
+			assertEquals(i, dictionary.encode("SC" + i));
+		}
+		assertEquals(42, dictionary.encode("SC42"));
+		assertEquals(42, dictionary.lookup("SC42"));
+		assertEquals(-1, dictionary.lookup("SC100"));
+		assertEquals("SC99", dictionary.decode(99));
+		assertEquals(100, dictionary.size());
+	}
+
+	/**
+	 * Test that a string leaves the dictionary with its last reference and its
+	 * code is reused
+	 */
+	@Test
+	public void testRelease() {
+		CourseDBDictionary dictionary = new CourseDBDictionary();
+		int room = dictionary.encode("SC450");
+		assertEquals(room, dictionary.encode("SC450"));
+		int instructor = dictionary.encode("Joey Bag-O-Donuts");
+		dictionary.release(room);
+		assertEquals(room, dictionary.lookup("SC450"));
+		dictionary.release(room);
+		assertEquals(-1, dictionary.lookup("SC450"));
+		assertEquals(1, dictionary.size());
+		assertEquals(room, dictionary.encode("SC451"));
+		assertEquals("SC451", dictionary.decode(room));
+		assertEquals("Joey Bag-O-Donuts", dictionary.decode(instructor));
+		for (int i = 0; i < 10000; i++) {
+			dictionary.release(dictionary.encode("Instructor " + i));
+		}
+		assertEquals(2, dictionary.size());
+	}
+
+	/**
+	 * Test that interning returns one shared instance for equal strings
+	 */
+	@Test
+	public void testIntern() {
+		CourseDBDictionary dictionary = new CourseDBDictionary();
+		String first = dictionary.intern(new String("CMSC204"));
+		for (int i = 0; i < 100; i++) {
+			dictionary.intern("Instructor " + i);
+		}
+		String second = dictionary.intern(new String("CMSC204"));
+		assertEquals("CMSC204", second);
+		assertSame(first, second);
+	}
+
+	/**
+	 * Test that readFile shares one instance between repeated values
+	 */
+	@Test
+	public void testReadFileInterns() throws Exception {
+		File inputFile = new File("InternTest.txt");
+		PrintWriter inFile = new PrintWriter(inputFile);
+		inFile.println("CMSC203 30504 4 SC450 Joey Bag-O-Donuts");
+		inFile.println("CMSC203 30503 4 SC450 Joey Bag-O-Donuts");
+		inFile.close();
+		CourseDBManager dataMgr = new CourseDBManager();
+		dataMgr.readFile(inputFile);
+		assertSame(dataMgr.get(30504).getID(), dataMgr.get(30503).getID());
+		assertSame(dataMgr.get(30504).getRoomNum(), dataMgr.get(30503).getRoomNum());
+		assertSame(dataMgr.get(30504).getInstructor(), dataMgr.get(30503).getInstructor());
+		// The pool lasts for one call, so reading the file again makes new instances
+		String firstID = dataMgr.get(30504).getID();
+		dataMgr.readFile(inputFile);
+		assertNotSame(firstID, dataMgr.get(30504).getID());
+		assertSame(dataMgr.get(30504).getID(), dataMgr.get(30503).getID());
+		inputFile.delete();
+	}
+}
@@ -0,0 +1,234 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * CourseDBDirectStructure is a CourseDBStructureInterface implementation for the
+ * bounded CRN range 10000-99999. Courses in that range are stored in a dense array
+ * indexed by their offset from the smallest CRN, so a lookup is a single array
+ * load with no hashing and no collisions. Courses outside the range are kept in a
+ * hashed CourseDBStructure.
+ */
+public class CourseDBDirectStructure implements CourseDBStructureInterface {
+	
+	private static final int SLOTS = CourseDBElement.MAX_CRN - CourseDBElement.MIN_CRN + 1;
+	
+	private CourseDBElement[] slots;
+	private CourseDBStructure fallback;
+	private int count;
+	
+	/**
+     * Constructs a CourseDBDirectStructure.
+     *
+     * @param estimSize the estimated number of courses with CRNs outside the range
+     */
+	public CourseDBDirectStructure (int estimSize) {
+		slots = new CourseDBElement[SLOTS];
+		fallback = new CourseDBStructure(estimSize);
+	}
+	
+	/**
+     * Adds a course element to the data structure. If a course with the same CRN
+     * exists, it is replaced.
+     *
+     * @param element the course element to add or update
+     */
+	@Override
+	public void add(CourseDBElement element) {
+		int crn = element.getCRN();
+		if (!inRange(crn)) {
+			fallback.add(element);
+			return;
+		}
+		if (slots[crn - CourseDBElement.MIN_CRN] == null) {
+			count++;
+		}
+		slots[crn - CourseDBElement.MIN_CRN] = element;
+	}
+	
+	/**
+     * Removes a course element by its CRN. A direct slot is simply cleared.
+     *
+     * @param crn the CRN of the course to remove
+     * @return the course element that was removed, or null if there was none
+     */
+	@Override
+	public CourseDBElement remove(int crn) {
+		if (!inRange(crn)) {
+			return fallback.remove(crn);
+		}
+		CourseDBElement element = slots[crn - CourseDBElement.MIN_CRN];
+		if (element != null) {
+			slots[crn - CourseDBElement.MIN_CRN] = null;
+			count--;
+		}
+		return element;
+	}
+	
+	/**
+     * Finds a course element by its CRN (Course Registration Number).
+     *
+     * @param crn the CRN of the course to retrieve
+     * @return the course element with the specified CRN
+     * @throws IOException if the course with the specified CRN is not found
+     */
+	@Override
+	public CourseDBElement get(int crn) throws IOException {
+		CourseDBElement course = find(crn);
+		if (course == null) {
+			throw new IOException("Course with CRN " + crn + " is not found");
+		}
+		return course;
+	}
+	
+	/**
+     * Finds a course element by its CRN without throwing on a miss.
+     *
+     * @param crn the CRN of the course to retrieve
+     * @return the course element with the specified CRN, or null if not found
+     */
+	@Override
+	public CourseDBElement find(int crn) {
+		if (!inRange(crn)) {
+			return fallback.find(crn);
+		}
+		return slots[crn - CourseDBElement.MIN_CRN];
+	}
+	
+	/**
+     * Returns an ArrayList of string representations of all courses, those in the
+     * CRN range first and in CRN order, followed by the others.
+     *
+     * @return an ArrayList of string representations of courses
+     */
+	@Override
+	public ArrayList<String> showAll() {
+		ArrayList<String> courses = new ArrayList<>(size());
+		for (CourseDBElement element : slots) {
+			if (element != null) {
+				courses.add(element.toString());
+			}
+		}
+		courses.addAll(fallback.showAll());
+		return courses;
+	}
+	
+	/**
+     * Returns an iterator over the courses in the same order as showAll.
+     *
+     * @return an iterator over the courses
+     */
+	@Override
+	public Iterator<CourseDBElement> iterator() {
+		Stream<CourseDBElement> direct = Arrays.stream(slots).filter(Objects::nonNull);
+		return Stream.concat(direct, StreamSupport.stream(fallback.spliterator(), false)).iterator();
+	}
+	
+	/**
+     * Returns the courses with CRNs from lo to hi in CRN order. The part of the
+     * range inside 10000-99999 is read straight from the direct array, which is
+     * already in CRN order; the rest comes from the hashed structure.
+     *
+     * @param lo the smallest CRN to return
+     * @param hi the largest CRN to return
+     * @return a new list of the courses in the range
+     */
+	@Override
+	public ArrayList<CourseDBElement> range(int lo, int hi) {
+		ArrayList<CourseDBElement> result = new ArrayList<>();
+		if (lo > hi) {
+			return result;
+		}
+		if (fallback.size() > 0 && lo < CourseDBElement.MIN_CRN) {
+			result.addAll(fallback.range(lo, Math.min(hi, CourseDBElement.MIN_CRN - 1)));
+		}
+		int from = Math.max(lo, CourseDBElement.MIN_CRN) - CourseDBElement.MIN_CRN;
+		int to = Math.min(hi, CourseDBElement.MAX_CRN) - CourseDBElement.MIN_CRN;
+		for (int i = from; i <= to; i++) {
+			if (slots[i] != null) {
+				result.add(slots[i]);
+			}
+		}
+		if (fallback.size() > 0 && hi > CourseDBElement.MAX_CRN) {
+			result.addAll(fallback.range(Math.max(lo, CourseDBElement.MAX_CRN + 1), hi));
+		}
+		return result;
+	}
+	
+	/**
+     * Returns up to pageSize courses in the same order as showAll. Tokens below
+     * the number of direct slots are positions in the direct array; larger ones
+     * continue in the hashed structure, offset by that number.
+     *
+     * @param token    CourseDBPage.FIRST or the next token of the previous page
+     * @param pageSize the largest number of courses to return
+     * @return the page
+     * @throws IllegalArgumentException if the token is negative or pageSize is
+     *                                  not positive
+     */
+	@Override
+	public CourseDBPage page(long token, int pageSize) {
+		CourseDBPage.check(token, pageSize);
+		if (token >= SLOTS) {
+			CourseDBPage rest = fallback.page(token - SLOTS, pageSize);
+			return new CourseDBPage(rest.getCourses(), rest.hasNext() ? rest.getNextToken() + SLOTS : CourseDBPage.END);
+		}
+		ArrayList<CourseDBElement> courses = new ArrayList<>(pageSize);
+		int i = (int) token;
+		for (; i < SLOTS && courses.size() < pageSize; i++) {
+			if (slots[i] != null) {
+				courses.add(slots[i]);
+			}
+		}
+		while (i < SLOTS && slots[i] == null) {
+			i++;
+		}
+		if (i < SLOTS) {
+			return new CourseDBPage(courses, i);
+		}
+		if (fallback.size() == 0) {
+			return new CourseDBPage(courses, CourseDBPage.END);
+		}
+		if (courses.size() == pageSize) {
+			return new CourseDBPage(courses, SLOTS);
+		}
+		CourseDBPage rest = fallback.page(CourseDBPage.FIRST, pageSize - courses.size());
+		courses.addAll(rest.getCourses());
+		return new CourseDBPage(courses, rest.hasNext() ? rest.getNextToken() + SLOTS : CourseDBPage.END);
+	}
+	
+	/**
+     * Returns the number of slots in the direct array plus the size of the hash
+     * table used for other CRNs.
+     *
+     * @return the number of slots
+     */
+	@Override
+	public int getTableSize() {
+		return SLOTS + fallback.getTableSize();
+	}
+	
+	/**
+     * Returns the number of courses in the data structure.
+     *
+     * @return the number of courses
+     */
+	@Override
+	public int size() {
+		return count + fallback.size();
+	}
+	
+	/**
+     * Checks whether a CRN has a slot in the direct array.
+     *
+     * @param crn the CRN to check
+     * @return true if the CRN is between 10000 and 99999
+     */
+	private boolean inRange (int crn) {
+		return crn >= CourseDBElement.MIN_CRN && crn <= CourseDBElement.MAX_CRN;
+	}
+}
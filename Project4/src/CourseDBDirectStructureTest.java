@@ -0,0 +1,154 @@
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This is the test file for the CourseDBDirectStructure
+ */
+public class CourseDBDirectStructureTest {
+	CourseDBDirectStructure direct;
+
+	@Before
+	public void setUp() throws Exception {
+		direct = new CourseDBDirectStructure(20);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		direct = null;
+	}
+
+	/**
+	 * Test courses inside and outside the direct range
+	 */
+	@Test
+	public void testAddAndGet() {
+		direct.add(new CourseDBElement("CMSC500", 39999, 4, "SC100", "Nobody InParticular"));
+		direct.add(new CourseDBElement("CMSC600", 4000, 4, "SC200", "Somebody"));
+		direct.add(new CourseDBElement("CMSC204", 10000, 4, "SC300", "Lowest"));
+		direct.add(new CourseDBElement("CMSC203", 99999, 4, "SC400", "Highest"));
+		assertEquals(4, direct.size());
+		try {
+			assertEquals("CMSC500", direct.get(39999).getID());
+			assertEquals("CMSC600", direct.get(4000).getID());
+			assertEquals("CMSC204", direct.get(10000).getID());
+			assertEquals("CMSC203", direct.get(99999).getID());
+		} catch (IOException e) {
+			fail("Should not throw exception");
+		}
+		try {
+			direct.get(39998);
+			fail("Should have thrown IOException");
+		} catch (IOException e) {
+			assertTrue("threw Exception successfuly for the course not found", true);
+		}
+		try {
+			direct.get(100000);
+			fail("Should have thrown IOException");
+		} catch (IOException e) {
+			assertTrue("threw Exception successfuly for the course not found", true);
+		}
+	}
+
+	/**
+	 * Test that updates replace the information of an existing course
+	 */
+	@Test
+	public void testUpdate() throws IOException {
+		direct.add(new CourseDBElement("CMSC500", 39999, 4, "SC100", "Nobody InParticular"));
+		direct.add(new CourseDBElement("CMSC500-updated", 39999, 3, "SC100", "updated"));
+		assertEquals(1, direct.size());
+		assertEquals("CMSC500-updated", direct.get(39999).getID());
+		assertEquals(3, direct.get(39999).getCredits());
+	}
+
+	/**
+	 * Test that showAll lists direct courses in CRN order before the others
+	 */
+	@Test
+	public void testShowAll() {
+		direct.add(new CourseDBElement("CMSC600", 4000, 4, "SC200", "Somebody"));
+		direct.add(new CourseDBElement("CMSC500", 39999, 4, "SC100", "Nobody InParticular"));
+		direct.add(new CourseDBElement("CMSC204", 30503, 4, "SC450", "Jill B. Who-Dunit"));
+		ArrayList<String> list = direct.showAll();
+		assertEquals(3, list.size());
+		assertEquals("\nCourse:CMSC204 CRN:30503 Credits:4 Instructor:Jill B. Who-Dunit Room:SC450", list.get(0));
+		assertEquals("\nCourse:CMSC500 CRN:39999 Credits:4 Instructor:Nobody InParticular Room:SC100", list.get(1));
+		assertEquals("\nCourse:CMSC600 CRN:4000 Credits:4 Instructor:Somebody Room:SC200", list.get(2));
+	}
+
+	/**
+	 * Test that CourseDBManager works on top of the direct structure
+	 */
+	@Test
+	public void testManager() {
+		CourseDBManagerInterface dataMgr = new CourseDBManager(new CourseDBDirectStructure(20));
+		dataMgr.add("CMSC203", 30504, 4, "SC450", "Joey Bag-O-Donuts");
+		assertEquals("CMSC203", dataMgr.get(30504).getID());
+		assertNull(dataMgr.get(30505));
+	}
+
+	/**
+	 * Test that range returns courses in CRN order from both the direct array
+	 * and the CRNs outside it
+	 */
+	@Test
+	public void testRange() {
+		CourseDBDirectStructure direct = new CourseDBDirectStructure(10);
+		direct.add(new CourseDBElement("CMSC600", 4000, 4, "SC200", "Somebody"));
+		direct.add(new CourseDBElement("CMSC500", 39999, 4, "SC100", "Nobody InParticular"));
+		direct.add(new CourseDBElement("CMSC203", 30504, 4, "SC450", "Joey Bag-O-Donuts"));
+		direct.add(new CourseDBElement("CMSC700", 123456, 4, "SC300", "Anybody"));
+		ArrayList<CourseDBElement> all = direct.range(0, 200000);
+		assertEquals(4, all.size());
+		assertEquals(4000, all.get(0).getCRN());
+		assertEquals(30504, all.get(1).getCRN());
+		assertEquals(39999, all.get(2).getCRN());
+		assertEquals(123456, all.get(3).getCRN());
+		assertEquals(1, direct.range(30000, 30999).size());
+		assertTrue(direct.range(5000, 9999).isEmpty());
+	}
+
+	/**
+	 * Test that paging walks the direct array and then the CRNs outside it
+	 */
+	@Test
+	public void testPage() {
+		CourseDBDirectStructure direct = new CourseDBDirectStructure(10);
+		for (int i = 0; i < 25; i++) {
+			direct.add(new CourseDBElement("CMSC" + i, 10000 + i * 3000, 3, "SC100", "Instructor " + i));
+			direct.add(new CourseDBElement("CMSC" + i, 200000 + i, 3, "SC100", "Instructor " + i));
+		}
+		for (int pageSize : new int[] {1, 7, 25, 30, 100}) {
+			ArrayList<String> pages = new ArrayList<>();
+			long token = CourseDBPage.FIRST;
+			do {
+				CourseDBPage page = direct.page(token, pageSize);
+				for (CourseDBElement course : page.getCourses()) {
+					pages.add(course.toString());
+				}
+				token = page.getNextToken();
+			} while (token != CourseDBPage.END);
+			assertEquals(direct.showAll(), pages);
+		}
+	}
+
+	/**
+	 * Test that find returns null on a miss inside and outside the direct range
+	 */
+	@Test
+	public void testFind() {
+		CourseDBDirectStructure direct = new CourseDBDirectStructure(10);
+		direct.add(new CourseDBElement("CMSC500", 39999, 4, "SC100", "Nobody InParticular"));
+		direct.add(new CourseDBElement("CMSC600", 4000, 4, "SC200", "Somebody"));
+		assertEquals("Nobody InParticular", direct.find(39999).getInstructor());
+		assertEquals("Somebody", direct.find(4000).getInstructor());
+		assertNull(direct.find(39998));
+		assertNull(direct.find(4001));
+	}
+}
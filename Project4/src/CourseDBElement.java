@@ -1,18 +1,25 @@
+import java.io.IOException;
+
 /**
  * CourseDBElement defines a course within the course database.
  * It encapsulates details about the course, such as its course ID, CRN,
- * credit hours, room number, and instructor.
+ * credit hours, room number, and instructor. An element is immutable: a
+ * structure updates a course by swapping in a new element, so a reader
+ * holding the old one never sees it half-updated.
  * 
  * @author Mariia Honcharenko
  */
 
-public class CourseDBElement implements Comparable<CourseDBElement> {
+public final class CourseDBElement implements Comparable<CourseDBElement>, CourseDBRecord {
+
+	public static final int MIN_CRN = 10000;
+	public static final int MAX_CRN = 99999;
 
-	private String id;
-	private int CRN;
-	private int credits;
-	private String roomNum;
-	private String instructor;
+	private final String id;
+	private final int CRN;
+	private final int credits;
+	private final String roomNum;
+	private final String instructor;
 	
     /**
      * Constructs a CourseDBElement with the specified information.
@@ -62,27 +69,6 @@ public class CourseDBElement implements Comparable<CourseDBElement> {
     public String getInstructor() {
         return instructor;
     }
-    
-    // Setter methods
-    public void setID(String id) {
-        this.id = id;
-    }
-
-    public void setCRN(int CRN) {
-        this.CRN = CRN;
-    }
-
-    public void setCredits(int credits) {
-        this.credits = credits;
-    }
-
-    public void setRoomNum(String roomNum) {
-        this.roomNum = roomNum;
-    }
-
-    public void setInstructor(String instructor) {
-        this.instructor = instructor;
-    }
 	
     /**
      * Compares CourseDBElement objects based on their CRN.
@@ -93,7 +79,7 @@ public class CourseDBElement implements Comparable<CourseDBElement> {
      */
     @Override
 	public int compareTo (CourseDBElement other) {
-		return this.CRN - other.CRN;
+		return getCRN() - other.getCRN();
 	}
     
     /**
@@ -103,11 +89,59 @@ public class CourseDBElement implements Comparable<CourseDBElement> {
      */
     @Override
     public String toString () {
-    	return "\nCourse:" + id +
-    			" CRN:" + CRN +
-    			" Credits:" + credits +
-    			" Instructor:" + instructor +
-    			" Room:" + roomNum;
+    	StringBuilder text = new StringBuilder(64);
+    	try {
+    		formatTo(text);
+    	} catch (IOException e) {
+    		// A StringBuilder never throws, so this cannot happen
+    		throw new AssertionError(e);
+    	}
+    	return text.toString();
+    }
+    
+    /**
+     * Appends the string representation of the CourseDBElement to a buffer or
+     * stream, the same text that toString returns, without building a String
+     * first. Numbers are written digit by digit.
+     * 
+     * @param out the buffer or stream to append to
+     * @throws IOException if the Appendable fails
+     */
+    public void formatTo (Appendable out) throws IOException {
+    	out.append("\nCourse:").append(getID());
+    	out.append(" CRN:");
+    	appendInt(out, getCRN());
+    	out.append(" Credits:");
+    	appendInt(out, getCredits());
+    	out.append(" Instructor:").append(getInstructor());
+    	out.append(" Room:").append(getRoomNum());
+    }
+    
+    /**
+     * Appends the decimal digits of an int.
+     * 
+     * @param out   the Appendable to write to
+     * @param value the number
+     * @throws IOException if the Appendable fails
+     */
+    private static void appendInt (Appendable out, int value) throws IOException {
+    	if (out instanceof StringBuilder) {
+    		((StringBuilder) out).append(value);
+    		return;
+    	}
+    	if (value < 0) {
+    		out.append('-');
+    	}
+    	// Work on the negative value so that Integer.MIN_VALUE needs no special case
+    	int negative = value < 0 ? value : -value;
+    	int divisor = -1;
+    	while (negative / 10 <= divisor) {
+    		divisor *= 10;
+    	}
+    	for (; divisor != 0; divisor /= 10) {
+    		out.append((char) ('0' + negative / divisor));
+    		negative %= divisor;
+    	}
     }
     
     /**
@@ -138,7 +172,7 @@ public class CourseDBElement implements Comparable<CourseDBElement> {
     
     //Helper methods
     private static boolean isValidCRN (int CRN) {
-    	return CRN >= 10000 && CRN <= 99999;
+    	return CRN >= MIN_CRN && CRN <= MAX_CRN;
     }
     
     private static boolean isValidCredits (int credits) {
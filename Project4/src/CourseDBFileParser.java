@@ -0,0 +1,374 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * CourseDBFileParser reads course files at the byte level. The file is mapped in
+ * large windows, lines and fields are found by scanning for separator bytes, and
+ * the CRN and credits are parsed straight from the digits. Only the course ID,
+ * room number and instructor are turned into Strings.
+ *
+ * A line is read the same way as Scanner.nextLine() followed by split(" ", 5):
+ * lines end at "\n", "\r\n" or "\r", the first four fields are separated by single
+ * spaces, and the fifth field is the rest of the line. Lines with fewer than five
+ * fields are skipped, and a CRN or credits value that Integer.parseInt would reject
+ * throws a NumberFormatException.
+ *
+ * A parser reuses internal buffers and must not be shared between threads.
+ * parseParallel splits the file into line-aligned chunks and parses them on a
+ * ForkJoinPool, one parser per chunk, while the calling thread receives every
+ * course in file order.
+ */
+public class CourseDBFileParser {
+
+	static final int WINDOW_BYTES = 64 << 20;
+	static final int CHUNK_BYTES = 1 << 20;
+
+	private static final Charset CHARSET = Charset.defaultCharset();
+
+	/**
+	 * Receives the fields of each course line.
+	 */
+	public interface CourseSink {
+		/**
+		 * Accepts one course line.
+		 *
+		 * @param id         the course ID
+		 * @param crn        the course registration number
+		 * @param credits    the number of credits
+		 * @param roomNum    the room number
+		 * @param instructor the instructor's name
+		 */
+		void accept(String id, int crn, int credits, String roomNum, String instructor);
+	}
+
+	private final int windowBytes;
+	private final int chunkBytes;
+	private byte[] scratch = new byte[256];
+	private int[] spaces = new int[4];
+	
+	/**
+     * Creates a parser that maps files in windows of WINDOW_BYTES and parses
+     * them in parallel in chunks of at least CHUNK_BYTES.
+     */
+	public CourseDBFileParser () {
+		this(WINDOW_BYTES, CHUNK_BYTES);
+	}
+	
+	/**
+     * Creates a parser with a given mapping window and smallest parallel chunk.
+     *
+     * @param windowBytes the number of bytes mapped at a time
+     * @param chunkBytes  the smallest number of bytes parsed by one task
+     */
+	CourseDBFileParser (int windowBytes, int chunkBytes) {
+		this.windowBytes = windowBytes;
+		this.chunkBytes = chunkBytes;
+	}
+
+	/**
+     * Parses every line of a file in order.
+     *
+     * @param file the course file
+     * @param sink the receiver of each course
+     * @throws IOException if the file cannot be read
+     */
+	public void parse(File file, CourseSink sink) throws IOException {
+		parse(file, null, sink);
+	}
+	
+	/**
+     * Parses every line of a file on a ForkJoinPool. Chunks of the file are parsed
+     * concurrently, but the sink is called only from the calling thread and in
+     * file order, so it sees exactly what parse(File, CourseSink) would pass it.
+     * If a chunk fails, the lines before the failure are still delivered and the
+     * failure is then rethrown.
+     *
+     * @param file the course file
+     * @param pool the pool that parses the chunks
+     * @param sink the receiver of each course
+     * @throws IOException if the file cannot be read
+     */
+	public void parseParallel(File file, ForkJoinPool pool, CourseSink sink) throws IOException {
+		parse(file, pool, sink);
+	}
+	
+	/**
+     * Maps a file window by window, each ending at a line end, and parses the
+     * windows sequentially or on a pool.
+     *
+     * @param file the course file
+     * @param pool the pool that parses the chunks, or null to parse on this thread
+     * @param sink the receiver of each course
+     * @throws IOException if the file cannot be read
+     */
+	private void parse (File file, ForkJoinPool pool, CourseSink sink) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			long position = 0;
+			long window = windowBytes;
+			while (position < size) {
+				long length = Math.min(window, size - position);
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+				int end = (int) length;
+				if (position + length < size) {
+					end = lastLineEnd(buffer, (int) length);
+					if (end < 0) {
+						// A single line longer than the window: retry with a larger one
+						window *= 2;
+						continue;
+					}
+				}
+				if (pool == null) {
+					parse(buffer, 0, end, sink);
+				} else {
+					parseChunks(buffer, end, pool, sink);
+				}
+				position += end;
+			}
+		}
+	}
+	
+	/**
+     * Splits a window into line-aligned chunks, parses them on a pool and hands
+     * their courses to the sink chunk by chunk in order. A chunk is delivered as
+     * soon as it and every chunk before it are parsed, so the sink works while
+     * later chunks are still being parsed.
+     *
+     * @param buffer the window
+     * @param end    the index after the last byte to parse
+     * @param pool   the pool that parses the chunks
+     * @param sink   the receiver of each course
+     */
+	private void parseChunks (ByteBuffer buffer, int end, ForkJoinPool pool, CourseSink sink) {
+		int chunk = Math.max(chunkBytes, end / (pool.getParallelism() * 4));
+		ArrayDeque<ForkJoinTask<Batch>> tasks = new ArrayDeque<>();
+		for (int start = 0; start < end; ) {
+			int chunkStart = start;
+			int chunkEnd = nextLineEnd(buffer, Math.min(end, start + chunk), end);
+			ByteBuffer view = buffer.duplicate();
+			tasks.add(pool.submit(() -> {
+				Batch batch = new Batch();
+				try {
+					new CourseDBFileParser(windowBytes, chunkBytes).parse(view, chunkStart, chunkEnd, batch);
+				} catch (RuntimeException e) {
+					batch.failure = e;
+				}
+				return batch;
+			}));
+			start = chunkEnd;
+		}
+		try {
+			while (!tasks.isEmpty()) {
+				tasks.poll().join().deliver(sink);
+			}
+		} finally {
+			for (ForkJoinTask<Batch> task : tasks) {
+				task.cancel(false);
+			}
+		}
+	}
+	
+	/**
+     * Returns the index just after the first line end at or after a position.
+     *
+     * @param buffer the buffer
+     * @param from   the position to search from
+     * @param end    the index after the last byte of the buffer's data
+     * @return the index after the line end, or end if there is none
+     */
+	static int nextLineEnd(ByteBuffer buffer, int from, int end) {
+		for (int i = from; i < end; i++) {
+			if (isLineSeparator(buffer.get(i))) {
+				if (buffer.get(i) == '\r' && i + 1 < end && buffer.get(i + 1) == '\n') {
+					i++;
+				}
+				return i + 1;
+			}
+		}
+		return end;
+	}
+	
+	/**
+     * Parses the lines in a range of a buffer. The range must start at the
+     * beginning of a line and end after a line separator or at the end of the
+     * input.
+     *
+     * @param buffer the bytes of the file
+     * @param start  the first byte of the range
+     * @param end    the index after the last byte of the range
+     * @param sink   the receiver of each course
+     */
+	public void parse(ByteBuffer buffer, int start, int end, CourseSink sink) {
+		int lineStart = start;
+		while (lineStart < end) {
+			int lineEnd = lineStart;
+			while (lineEnd < end && !isLineSeparator(buffer.get(lineEnd))) {
+				lineEnd++;
+			}
+			parseLine(buffer, lineStart, lineEnd, sink);
+			int next = lineEnd + 1;
+			if (lineEnd < end && buffer.get(lineEnd) == '\r' && next < end && buffer.get(next) == '\n') {
+				next++;
+			}
+			lineStart = next;
+		}
+	}
+
+	/**
+     * Returns the index just after the last line separator in the first bytes of
+     * a buffer.
+     *
+     * @param buffer the buffer
+     * @param length the number of bytes to search
+     * @return the index after the last separator, or -1 if there is none
+     */
+	static int lastLineEnd(ByteBuffer buffer, int length) {
+		for (int i = length - 1; i >= 0; i--) {
+			if (isLineSeparator(buffer.get(i))) {
+				return i + 1;
+			}
+		}
+		return -1;
+	}
+
+	/**
+     * Checks whether a byte ends a line.
+     *
+     * @param b the byte
+     * @return true for '\n' and '\r'
+     */
+	static boolean isLineSeparator(byte b) {
+		return b == '\n' || b == '\r';
+	}
+
+	/**
+     * Splits one line into its five fields and hands them to the sink.
+     *
+     * @param buffer the bytes of the file
+     * @param start  the first byte of the line
+     * @param end    the index after the last byte of the line
+     * @param sink   the receiver of the course
+     */
+	private void parseLine (ByteBuffer buffer, int start, int end, CourseSink sink) {
+		int found = 0;
+		for (int i = start; i < end && found < 4; i++) {
+			if (buffer.get(i) == ' ') {
+				spaces[found++] = i;
+			}
+		}
+		if (found < 4) {
+			return;
+		}
+		String id = string(buffer, start, spaces[0]);
+		int crn = parseInt(buffer, spaces[0] + 1, spaces[1]);
+		int credits = parseInt(buffer, spaces[1] + 1, spaces[2]);
+		String roomNum = string(buffer, spaces[2] + 1, spaces[3]);
+		String instructor = string(buffer, spaces[3] + 1, end);
+		sink.accept(id, crn, credits, roomNum, instructor);
+	}
+
+	/**
+     * Parses a decimal int from bytes. Short plain numbers are parsed directly;
+     * anything else is left to Integer.parseInt so that overflow and malformed
+     * input fail the same way.
+     *
+     * @param buffer the bytes of the file
+     * @param start  the first byte of the number
+     * @param end    the index after the last byte
+     * @return the number
+     * @throws NumberFormatException if the bytes are not a valid int
+     */
+	private int parseInt (ByteBuffer buffer, int start, int end) {
+		int i = start;
+		boolean negative = false;
+		if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+			negative = buffer.get(i) == '-';
+			i++;
+		}
+		if (i == end || end - i > 9) {
+			return Integer.parseInt(string(buffer, start, end));
+		}
+		int value = 0;
+		for (; i < end; i++) {
+			int digit = buffer.get(i) - '0';
+			if (digit < 0 || digit > 9) {
+				return Integer.parseInt(string(buffer, start, end));
+			}
+			value = value * 10 + digit;
+		}
+		return negative ? -value : value;
+	}
+
+	/**
+     * Decodes a range of bytes into a String.
+     *
+     * @param buffer the bytes of the file
+     * @param start  the first byte
+     * @param end    the index after the last byte
+     * @return the decoded string
+     */
+	private String string (ByteBuffer buffer, int start, int end) {
+		int length = end - start;
+		if (length > scratch.length) {
+			scratch = new byte[Math.max(length, scratch.length * 2)];
+		}
+		buffer.get(start, scratch, 0, length);
+		return new String(scratch, 0, length, CHARSET);
+	}
+	
+	/**
+	 * The courses parsed from one chunk, kept in file order until the chunks before
+	 * it have been delivered.
+	 */
+	private static class Batch implements CourseSink {
+		private String[] ids = new String[64];
+		private int[] crns = new int[64];
+		private int[] credits = new int[64];
+		private String[] roomNums = new String[64];
+		private String[] instructors = new String[64];
+		private int count;
+		private RuntimeException failure;
+
+		@Override
+		public void accept(String id, int crn, int credits, String roomNum, String instructor) {
+			if (count == crns.length) {
+				int capacity = count * 2;
+				ids = Arrays.copyOf(ids, capacity);
+				crns = Arrays.copyOf(crns, capacity);
+				this.credits = Arrays.copyOf(this.credits, capacity);
+				roomNums = Arrays.copyOf(roomNums, capacity);
+				instructors = Arrays.copyOf(instructors, capacity);
+			}
+			ids[count] = id;
+			crns[count] = crn;
+			this.credits[count] = credits;
+			roomNums[count] = roomNum;
+			instructors[count] = instructor;
+			count++;
+		}
+
+		/**
+	     * Hands the courses to a sink in order, then rethrows the failure that
+	     * ended the chunk early, if any.
+	     *
+	     * @param sink the receiver of each course
+	     */
+		private void deliver (CourseSink sink) {
+			for (int i = 0; i < count; i++) {
+				sink.accept(ids[i], crns[i], credits[i], roomNums[i], instructors[i]);
+			}
+			if (failure != null) {
+				throw failure;
+			}
+		}
+	}
+}
@@ -0,0 +1,144 @@
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+/**
+ * This is the test file for the CourseDBFileParser
+ */
+public class CourseDBFileParserTest {
+
+	/**
+	 * Parses text with CourseDBFileParser and returns one line per course.
+	 */
+	private ArrayList<String> parse(String text) {
+		ArrayList<String> courses = new ArrayList<>();
+		byte[] bytes = text.getBytes(Charset.defaultCharset());
+		new CourseDBFileParser().parse(ByteBuffer.wrap(bytes), 0, bytes.length,
+				(id, crn, credits, roomNum, instructor) ->
+				courses.add(id + "|" + crn + "|" + credits + "|" + roomNum + "|" + instructor));
+		return courses;
+	}
+
+	/**
+	 * Parses text the way readFile used to, with Scanner and split.
+	 */
+	private ArrayList<String> reference(String text) {
+		ArrayList<String> courses = new ArrayList<>();
+		Scanner scanner = new Scanner(text);
+		while (scanner.hasNextLine()) {
+			String[] fields = scanner.nextLine().split(" ", 5);
+			if (fields.length == 5) {
+				courses.add(fields[0] + "|" + Integer.parseInt(fields[1]) + "|" + Integer.parseInt(fields[2])
+						+ "|" + fields[3] + "|" + fields[4]);
+			}
+		}
+		scanner.close();
+		return courses;
+	}
+
+	/**
+	 * Test that the parser reads lines the same way as Scanner and split
+	 */
+	@Test
+	public void testMatchesScanner() {
+		String text = "CMSC203 30504 4 SC450 Joey Bag-O-Donuts\n"
+				+ "CMSC203 30503 4 SC450 Jill B. Who-Dunit\r\n"
+				+ "too short\n"
+				+ "\n"
+				+ "CMSC204 +30559 -4 SC451  Two  Spaces \r"
+				+ "CMSC204 30560 04 distance-learning Last Line";
+		ArrayList<String> expected = reference(text);
+		assertEquals(4, expected.size());
+		assertEquals(expected, parse(text));
+		assertEquals("CMSC204|30559|-4|SC451| Two  Spaces ", parse(text).get(2));
+	}
+
+	/**
+	 * Test that malformed numbers fail like Integer.parseInt
+	 */
+	@Test
+	public void testMalformedNumbers() {
+		try {
+			parse("CMSC203 3050x 4 SC450 Joey Bag-O-Donuts\n");
+			fail("Should have thrown a NumberFormatException");
+		} catch (NumberFormatException e) {
+			assertTrue("Successfully threw a NumberFormatException", true);
+		}
+		try {
+			parse("CMSC203 99999999999 4 SC450 Joey Bag-O-Donuts\n");
+			fail("Should have thrown a NumberFormatException");
+		} catch (NumberFormatException e) {
+			assertTrue("Successfully threw a NumberFormatException", true);
+		}
+		assertEquals("CMSC203|2147483647|4|SC450|Joey", parse("CMSC203 2147483647 4 SC450 Joey").get(0));
+	}
+
+	/**
+	 * Test that a file mapped in many small windows loses no lines at the window
+	 * boundaries
+	 */
+	@Test
+	public void testParseFile() throws IOException {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			text.append("CMSC").append(i % 7).append(' ').append(10000 + i).append(" 3 SC")
+					.append(i % 13).append(" Instructor ").append(i).append(i % 3 == 0 ? "\r\n" : "\n");
+		}
+		File inputFile = new File("ParserTest.txt");
+		try (FileOutputStream out = new FileOutputStream(inputFile)) {
+			out.write(text.toString().getBytes(Charset.defaultCharset()));
+		}
+		ArrayList<String> courses = new ArrayList<>();
+		new CourseDBFileParser(1000, CourseDBFileParser.CHUNK_BYTES).parse(inputFile, (id, crn, credits, roomNum, instructor) ->
+				courses.add(id + "|" + crn + "|" + credits + "|" + roomNum + "|" + instructor));
+		assertEquals(reference(text.toString()), courses);
+		inputFile.delete();
+	}
+
+	/**
+	 * Test that parsing on a pool hands the courses over in file order, and that a
+	 * failing chunk still delivers the lines before the failure
+	 */
+	@Test
+	public void testParseParallel() throws IOException {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 2000; i++) {
+			text.append("CMSC").append(i % 7).append(' ').append(10000 + i % 500).append(" 3 SC")
+					.append(i % 13).append(" Instructor ").append(i).append(i % 3 == 0 ? "\r\n" : "\n");
+		}
+		File inputFile = new File("ParallelParserTest.txt");
+		try (FileOutputStream out = new FileOutputStream(inputFile)) {
+			out.write(text.toString().getBytes(Charset.defaultCharset()));
+		}
+		ForkJoinPool pool = new ForkJoinPool(4);
+		ArrayList<String> courses = new ArrayList<>();
+		new CourseDBFileParser(10000, 100).parseParallel(inputFile, pool, (id, crn, credits, roomNum, instructor) ->
+				courses.add(id + "|" + crn + "|" + credits + "|" + roomNum + "|" + instructor));
+		assertEquals(reference(text.toString()), courses);
+
+		text.append("CMSC203 bad 4 SC450 Joey Bag-O-Donuts\n");
+		text.append("CMSC203 30504 4 SC450 Joey Bag-O-Donuts\n");
+		try (FileOutputStream out = new FileOutputStream(inputFile)) {
+			out.write(text.toString().getBytes(Charset.defaultCharset()));
+		}
+		courses.clear();
+		try {
+			new CourseDBFileParser(10000, 100).parseParallel(inputFile, pool, (id, crn, credits, roomNum, instructor) ->
+					courses.add(id + "|" + crn + "|" + credits + "|" + roomNum + "|" + instructor));
+			fail("Should have thrown a NumberFormatException");
+		} catch (NumberFormatException e) {
+			assertEquals(2000, courses.size());
+		}
+		pool.shutdown();
+		inputFile.delete();
+	}
+}
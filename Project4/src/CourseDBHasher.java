@@ -0,0 +1,65 @@
+/**
+ * CourseDBHasher turns a CRN into the hash code that CourseDBStructure reduces to a
+ * slot index. Implementations work on the int directly, so hashing a CRN never
+ * allocates.
+ */
+public interface CourseDBHasher {
+
+	/**
+	 * The hash code of the CRN's decimal string, the same value as
+	 * Integer.toString(crn).hashCode() but computed from the digits. This keeps
+	 * the slot order of earlier versions of CourseDBStructure.
+	 */
+	public static final CourseDBHasher DECIMAL_STRING = CourseDBHasher::decimalStringHash;
+
+	/**
+	 * Fibonacci hashing: multiplies the CRN by 2^32 divided by the golden ratio so
+	 * that consecutive CRNs are spread across the table.
+	 */
+	public static final CourseDBHasher FIBONACCI = crn -> crn * 0x9E3779B9;
+
+	/**
+	 * The 32-bit finalizer of MurmurHash3, which mixes every input bit into every
+	 * output bit.
+	 */
+	public static final CourseDBHasher MURMUR = crn -> {
+		int h = crn;
+		h ^= h >>> 16;
+		h *= 0x85EBCA6B;
+		h ^= h >>> 13;
+		h *= 0xC2B2AE35;
+		h ^= h >>> 16;
+		return h;
+	};
+
+	/**
+	 * Returns the hash code of a CRN.
+	 *
+	 * @param crn the Course Registration Number (CRN)
+	 * @return the hash code, which may be negative
+	 */
+	public int hash(int crn);
+
+	/**
+	 * Computes String.hashCode() of the decimal representation of a number without
+	 * building the string.
+	 *
+	 * @param crn the number to hash
+	 * @return the hash code of Integer.toString(crn)
+	 */
+	private static int decimalStringHash(int crn) {
+		// Work on the negative value so that Integer.MIN_VALUE needs no special case
+		int remaining = crn < 0 ? crn : -crn;
+		int hash = 0;
+		int power = 1;
+		do {
+			hash += ('0' - remaining % 10) * power;
+			power *= 31;
+			remaining /= 10;
+		} while (remaining != 0);
+		if (crn < 0) {
+			hash += '-' * power;
+		}
+		return hash;
+	}
+}
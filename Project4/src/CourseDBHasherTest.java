@@ -0,0 +1,69 @@
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Tests the CourseDBHasher implementations: the decimal string hasher must match
+ * String.hashCode(), and every hasher must spread the real CRN range evenly.
+ */
+public class CourseDBHasherTest {
+
+	private static final int TABLE_SIZE = 120011; // 4k+3 prime sized for 90000 CRNs at 0.75
+
+	/**
+	 * Test that DECIMAL_STRING matches the hash of the CRN's string
+	 */
+	@Test
+	public void testDecimalStringMatchesString() {
+		int[] samples = {0, 7, 10, 10000, 30504, 99999, 123456789, -1, -30504,
+				Integer.MAX_VALUE, Integer.MIN_VALUE};
+		for (int crn : samples) {
+			assertEquals(Integer.toString(crn).hashCode(), CourseDBHasher.DECIMAL_STRING.hash(crn));
+		}
+		for (int crn = 10000; crn <= 99999; crn++) {
+			assertEquals(Integer.toString(crn).hashCode(), CourseDBHasher.DECIMAL_STRING.hash(crn));
+		}
+	}
+
+	/**
+	 * Test that each hasher distributes the CRN range 10000-99999 close to uniformly
+	 */
+	@Test
+	public void testDistribution() {
+		CourseDBHasher[] hashers = {CourseDBHasher.DECIMAL_STRING, CourseDBHasher.FIBONACCI,
+				CourseDBHasher.MURMUR};
+		for (CourseDBHasher hasher : hashers) {
+			int[] buckets = new int[TABLE_SIZE];
+			int keys = 0;
+			for (int crn = 10000; crn <= 99999; crn++) {
+				buckets[Math.abs(hasher.hash(crn) % TABLE_SIZE)]++;
+				keys++;
+			}
+			double expected = (double) keys / TABLE_SIZE;
+			double chiSquare = 0;
+			int longest = 0;
+			for (int bucket : buckets) {
+				chiSquare += (bucket - expected) * (bucket - expected) / expected;
+				longest = Math.max(longest, bucket);
+			}
+			// A uniform hash gives a statistic close to the number of buckets
+			assertTrue("chi-square too high: " + chiSquare, chiSquare < TABLE_SIZE * 1.1);
+			assertTrue("longest bucket too long: " + longest, longest <= 10);
+		}
+	}
+
+	/**
+	 * Test that a structure using another hasher behaves the same
+	 */
+	@Test
+	public void testStructureWithHasher() throws Exception {
+		CourseDBStructure structure = new CourseDBStructure(20, 0.5, CourseDBHasher.MURMUR);
+		for (int crn = 10000; crn < 11000; crn++) {
+			structure.add(new CourseDBElement("CMSC204", crn, 4, "SC100", "Nobody InParticular"));
+		}
+		assertSame(CourseDBHasher.MURMUR, structure.getHasher());
+		assertEquals(1000, structure.showAll().size());
+		assertEquals(10500, structure.get(10500).getCRN());
+		assertTrue(structure.getLoadFactor() <= 0.5);
+	}
+}
@@ -0,0 +1,98 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.function.Function;
+
+/**
+ * CourseDBIndex is a secondary index from one field of a course, such as the
+ * instructor or the room, to the courses that have that value. A lookup costs
+ * time in the number of courses it returns rather than in the size of the
+ * database, and lists the courses in the order they were indexed or last
+ * updated.
+ *
+ * Courses are tracked by reference. Since a course never changes, an update
+ * is a new element and has to be reported with replace.
+ */
+public class CourseDBIndex {
+
+	private Function<CourseDBElement, String> field;
+	private HashMap<String, LinkedHashSet<CourseDBElement>> postings;
+
+	/**
+     * Constructs an empty index over a field of the courses.
+     *
+     * @param field the function reading the indexed field of a course
+     */
+	public CourseDBIndex (Function<CourseDBElement, String> field) {
+		this.field = field;
+		postings = new HashMap<>();
+	}
+
+	/**
+     * Indexes a course.
+     *
+     * @param element the course
+     */
+	public void add(CourseDBElement element) {
+		postings.computeIfAbsent(field.apply(element), value -> new LinkedHashSet<>()).add(element);
+	}
+
+	/**
+     * Moves the index entry of a course that was replaced by an update. The
+     * updated course is listed after the other courses with its value.
+     *
+     * @param old     the course that was stored
+     * @param updated the course that replaced it
+     */
+	public void replace(CourseDBElement old, CourseDBElement updated) {
+		remove(old);
+		add(updated);
+	}
+
+	/**
+     * Removes the index entry of a course.
+     *
+     * @param element the course that was stored
+     */
+	public void remove(CourseDBElement element) {
+		String value = field.apply(element);
+		LinkedHashSet<CourseDBElement> courses = postings.get(value);
+		if (courses != null) {
+			courses.remove(element);
+			if (courses.isEmpty()) {
+				postings.remove(value);
+			}
+		}
+	}
+
+	/**
+     * Returns the courses whose indexed field equals a value.
+     *
+     * @param value the value to look up
+     * @return a new list of the matching courses, empty if there are none
+     */
+	public ArrayList<CourseDBElement> find(String value) {
+		LinkedHashSet<CourseDBElement> courses = postings.get(value);
+		return courses == null ? new ArrayList<>() : new ArrayList<>(courses);
+	}
+
+	/**
+     * Returns the number of courses whose indexed field equals a value.
+     *
+     * @param value the value to look up
+     * @return the number of matching courses
+     */
+	public int count(String value) {
+		LinkedHashSet<CourseDBElement> courses = postings.get(value);
+		return courses == null ? 0 : courses.size();
+	}
+
+	/**
+     * Returns the number of distinct values in the index.
+     *
+     * @return the number of distinct values
+     */
+	public int size() {
+		return postings.size();
+	}
+}
@@ -0,0 +1,64 @@
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * This is the test file for the CourseDBIndex
+ */
+public class CourseDBIndexTest {
+
+	/**
+	 * Test that courses are found by their indexed field in indexing order
+	 */
+	@Test
+	public void testFind() {
+		CourseDBIndex index = new CourseDBIndex(CourseDBElement::getInstructor);
+		CourseDBElement first = new CourseDBElement("CMSC203", 30504, 4, "SC450", "Joey Bag-O-Donuts");
+		CourseDBElement second = new CourseDBElement("CMSC204", 30503, 4, "SC450", "Jill B. Who-Dunit");
+		CourseDBElement third = new CourseDBElement("CMSC205", 30505, 4, "SC451", "Joey Bag-O-Donuts");
+		index.add(first);
+		index.add(second);
+		index.add(third);
+		assertEquals(2, index.count("Joey Bag-O-Donuts"));
+		assertSame(first, index.find("Joey Bag-O-Donuts").get(0));
+		assertSame(third, index.find("Joey Bag-O-Donuts").get(1));
+		assertTrue(index.find("Nobody InParticular").isEmpty());
+		assertEquals(2, index.size());
+	}
+
+	/**
+	 * Test that replace moves a course to its new value and drops empty values
+	 */
+	@Test
+	public void testReplace() {
+		CourseDBIndex index = new CourseDBIndex(CourseDBElement::getRoomNum);
+		CourseDBElement original = new CourseDBElement("CMSC203", 30504, 4, "SC450", "Joey Bag-O-Donuts");
+		CourseDBElement moved = new CourseDBElement("CMSC203", 30504, 4, "SC451", "Joey Bag-O-Donuts");
+		index.add(original);
+		index.replace(original, moved);
+		assertEquals(0, index.count("SC450"));
+		assertSame(moved, index.find("SC451").get(0));
+		assertEquals(1, index.size());
+
+		CourseDBElement renamed = new CourseDBElement("CMSC203H", 30504, 4, "SC451", "Joey Bag-O-Donuts");
+		index.replace(moved, renamed);
+		assertEquals(1, index.count("SC451"));
+		assertSame(renamed, index.find("SC451").get(0));
+	}
+
+	/**
+	 * Test that remove drops a course and its value once no course has it
+	 */
+	@Test
+	public void testRemove() {
+		CourseDBIndex index = new CourseDBIndex(CourseDBElement::getRoomNum);
+		CourseDBElement first = new CourseDBElement("CMSC203", 30504, 4, "SC450", "Joey Bag-O-Donuts");
+		CourseDBElement second = new CourseDBElement("CMSC204", 30503, 4, "SC450", "Jill B. Who-Dunit");
+		index.add(first);
+		index.add(second);
+		index.remove(first);
+		assertSame(second, index.find("SC450").get(0));
+		index.remove(second);
+		assertEquals(0, index.size());
+	}
+}
@@ -0,0 +1,444 @@
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * CourseDBJournal is an append-only write-ahead log of course updates and
+ * removals. Records are committed by group commit: append returns only once
+ * its record has been written and forced to disk, and the threads appending
+ * at the same time share that write and fsync. The first waiting thread
+ * becomes the leader, takes every record queued so far and forces them with
+ * one write and one fsync, while the others wait for it; records queued during
+ * that fsync form the next group. A caller that adds many records can queue
+ * them with enqueue and wait once, for the last one, with awaitDurable.
+ *
+ * Each record is framed by its length and a CRC32 of its contents, so a record
+ * that was only partly written when the process died is detected. Replay stops
+ * there, and opening the journal again truncates the torn tail.
+ */
+public class CourseDBJournal implements Closeable {
+	
+	static final byte ADD = 1;
+	static final byte REMOVE = 2;
+	
+	private FileChannel channel;
+	// Records are framed straight into pending; the leader of a commit swaps it with spare
+	private byte[] pending = new byte[8192];
+	private int pendingSize;
+	private byte[] spare = new byte[8192];
+	private CRC32 crc = new CRC32();
+	private long queued;
+	private long durable;
+	private boolean flushing;
+	private IOException failure;
+	
+	/**
+     * Opens a journal for appending, dropping any torn record at its end.
+     *
+     * @param file the journal file, created if it does not exist
+     * @throws IOException if the file cannot be opened
+     */
+	public CourseDBJournal (File file) throws IOException {
+		long valid = file.exists() ? replay(file, course -> { }, crn -> { }) : 0;
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		channel.truncate(valid);
+		channel.position(valid);
+	}
+	
+	/**
+     * Appends an add or update of a course and waits until it is on disk.
+     *
+     * @param course the course that was added or updated
+     * @throws IOException if the record cannot be committed
+     */
+	public void append(CourseDBElement course) throws IOException {
+		awaitDurable(enqueue(course));
+	}
+	
+	/**
+     * Appends the removal of a course and waits until it is on disk.
+     *
+     * @param crn the CRN of the course that was removed
+     * @throws IOException if the record cannot be committed
+     */
+	public void appendRemove(int crn) throws IOException {
+		awaitDurable(enqueueRemove(crn));
+	}
+	
+	/**
+     * Queues an add or update of a course without waiting for it to reach the
+     * disk. Records are committed in the order they are queued.
+     *
+     * @param course the course that was added or updated
+     * @return the sequence number of the record, to pass to awaitDurable
+     * @throws IOException              if an earlier commit failed or a string
+     *                                  is longer than 65535 bytes
+     * @throws IllegalArgumentException if a field of the course is null
+     */
+	public synchronized long enqueue(CourseDBElement course) throws IOException {
+		checkFailure();
+		return frameAdd(course);
+	}
+	
+	/**
+     * Queues an add or update of every course of a collection, in order, under
+     * one acquisition of the journal's lock. Either every course is queued or,
+     * if one cannot be recorded, none is.
+     *
+     * @param courses the courses that were added or updated
+     * @return the sequence number of the last record, to pass to awaitDurable,
+     *         or 0 if the collection is empty
+     * @throws IOException              if an earlier commit failed or a string
+     *                                  is longer than 65535 bytes
+     * @throws IllegalArgumentException if a field of a course is null
+     */
+	public synchronized long enqueueAll(Collection<? extends CourseDBElement> courses) throws IOException {
+		checkFailure();
+		int start = pendingSize;
+		long first = queued;
+		long last = 0;
+		try {
+			for (CourseDBElement course : courses) {
+				last = frameAdd(course);
+			}
+		} catch (IOException | RuntimeException e) {
+			pendingSize = start;
+			queued = first;
+			throw e;
+		}
+		return last;
+	}
+	
+	/**
+     * Queues the removal of a course without waiting for it to reach the disk.
+     *
+     * @param crn the CRN of the course that was removed
+     * @return the sequence number of the record, to pass to awaitDurable
+     * @throws IOException if an earlier commit failed
+     */
+	public synchronized long enqueueRemove(int crn) throws IOException {
+		checkFailure();
+		int start = beginRecord(REMOVE);
+		putInt(crn);
+		return endRecord(start);
+	}
+	
+	/**
+     * Frames an add record for a course in the pending group. The strings are
+     * in the modified UTF-8 of DataOutput.writeUTF, which replay reads back.
+     * The caller holds the journal's lock.
+     *
+     * @param course the course
+     * @return the sequence number of the record
+     * @throws IOException              if a string is longer than 65535 bytes
+     * @throws IllegalArgumentException if a field of the course is null
+     */
+	private long frameAdd (CourseDBElement course) throws IOException {
+		// Checked before anything is framed, so a bad course leaves no partial record
+		if (course.getID() == null || course.getRoomNum() == null || course.getInstructor() == null) {
+			throw new IllegalArgumentException("Course " + course.getCRN() + " has a null field, which the journal cannot record");
+		}
+		int start = beginRecord(ADD);
+		putInt(course.getCRN());
+		putInt(course.getCredits());
+		try {
+			putUTF(course.getID());
+			putUTF(course.getRoomNum());
+			putUTF(course.getInstructor());
+		} catch (IOException e) {
+			pendingSize = start;
+			throw e;
+		}
+		return endRecord(start);
+	}
+	
+	/**
+     * Starts a record in the pending group, leaving room for its length and
+     * checksum.
+     *
+     * @param type the record type
+     * @return the offset of the record's frame
+     */
+	private int beginRecord (byte type) {
+		int start = pendingSize;
+		ensure(9);
+		pendingSize += 8;
+		pending[pendingSize++] = type;
+		return start;
+	}
+	
+	/**
+     * Fills in the length and checksum of the record started at an offset.
+     *
+     * @param start the offset of the record's frame
+     * @return the sequence number of the record
+     */
+	private long endRecord (int start) {
+		int length = pendingSize - start - 8;
+		crc.reset();
+		crc.update(pending, start + 8, length);
+		int end = pendingSize;
+		pendingSize = start;
+		putInt(length);
+		putInt((int) crc.getValue());
+		pendingSize = end;
+		return ++queued;
+	}
+	
+	/**
+     * Makes room for more bytes in the pending group.
+     *
+     * @param bytes the number of bytes about to be written
+     */
+	private void ensure (int bytes) {
+		if (pendingSize + bytes > pending.length) {
+			pending = Arrays.copyOf(pending, Math.max(pending.length * 2, pendingSize + bytes));
+		}
+	}
+	
+	/**
+     * Writes a big-endian int to the pending group.
+     *
+     * @param value the int
+     */
+	private void putInt (int value) {
+		ensure(4);
+		pending[pendingSize++] = (byte) (value >>> 24);
+		pending[pendingSize++] = (byte) (value >>> 16);
+		pending[pendingSize++] = (byte) (value >>> 8);
+		pending[pendingSize++] = (byte) value;
+	}
+	
+	/**
+     * Writes a string to the pending group as DataOutput.writeUTF does: its
+     * encoded length as an unsigned short, then each char in one to three
+     * bytes, with the char 0 in two.
+     *
+     * @param value the string
+     * @throws UTFDataFormatException if the encoding is longer than 65535 bytes
+     */
+	private void putUTF (String value) throws UTFDataFormatException {
+		int length = value.length();
+		ensure(2 + 3 * length);
+		int start = pendingSize;
+		pendingSize += 2;
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (c >= 0x01 && c <= 0x7F) {
+				pending[pendingSize++] = (byte) c;
+			} else if (c <= 0x7FF) {
+				pending[pendingSize++] = (byte) (0xC0 | c >> 6);
+				pending[pendingSize++] = (byte) (0x80 | c & 0x3F);
+			} else {
+				pending[pendingSize++] = (byte) (0xE0 | c >> 12);
+				pending[pendingSize++] = (byte) (0x80 | c >> 6 & 0x3F);
+				pending[pendingSize++] = (byte) (0x80 | c & 0x3F);
+			}
+		}
+		int encoded = pendingSize - start - 2;
+		if (encoded > 0xFFFF) {
+			pendingSize = start;
+			throw new UTFDataFormatException("String too long for the journal: " + encoded + " bytes");
+		}
+		pending[start] = (byte) (encoded >>> 8);
+		pending[start + 1] = (byte) encoded;
+	}
+	
+	/**
+     * Waits until the record with a sequence number, and every record queued
+     * before it, is on disk. If no commit is running, this thread leads one
+     * for every record queued so far; otherwise it waits for the running
+     * commit and then, if its record was not in that group, tries again.
+     *
+     * @param sequence the sequence number returned by enqueue, or 0 for none
+     * @throws IOException if the commit fails or the thread is interrupted
+     */
+	public void awaitDurable(long sequence) throws IOException {
+		byte[] group;
+		int groupSize;
+		long last;
+		synchronized (this) {
+			while (durable < sequence && flushing) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted waiting for the journal");
+				}
+			}
+			checkFailure();
+			if (durable >= sequence) {
+				return;
+			}
+			flushing = true;
+			group = pending;
+			groupSize = pendingSize;
+			last = queued;
+			pending = spare;
+			pendingSize = 0;
+		}
+		IOException error = null;
+		try {
+			ByteBuffer bytes = ByteBuffer.wrap(group, 0, groupSize);
+			while (bytes.hasRemaining()) {
+				channel.write(bytes);
+			}
+			channel.force(false);
+		} catch (IOException e) {
+			error = e;
+		}
+		synchronized (this) {
+			flushing = false;
+			spare = group;
+			if (error == null) {
+				durable = last;
+			} else {
+				failure = error;
+			}
+			notifyAll();
+		}
+		if (error != null) {
+			throw error;
+		}
+	}
+	
+	/**
+     * Waits until every record queued so far is on disk.
+     *
+     * @throws IOException if the records cannot be written or forced
+     */
+	public void commit() throws IOException {
+		long last;
+		synchronized (this) {
+			last = queued;
+		}
+		awaitDurable(last);
+	}
+	
+	/**
+     * Discards every record, for example after a snapshot has captured them.
+     * A commit that is running is allowed to finish first.
+     *
+     * @throws IOException if the journal cannot be truncated
+     */
+	public synchronized void reset() throws IOException {
+		while (flushing) {
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted waiting for the journal");
+			}
+		}
+		pendingSize = 0;
+		durable = queued;
+		channel.truncate(0);
+		channel.position(0);
+		channel.force(true);
+		notifyAll();
+	}
+	
+	/**
+     * Commits the pending records and closes the journal.
+     *
+     * @throws IOException if the records cannot be committed
+     */
+	@Override
+	public void close() throws IOException {
+		try {
+			commit();
+		} finally {
+			channel.close();
+		}
+	}
+	
+	/**
+     * Applies every complete record of a journal file to a structure, in order.
+     * Reading stops at the first record that is truncated or fails its checksum.
+     *
+     * @param file   the journal file
+     * @param target the structure to apply the records to
+     * @return the number of bytes of complete records
+     * @throws IOException if the file cannot be read
+     */
+	public static long replay(File file, CourseDBStructureInterface target) throws IOException {
+		return replay(file, target::add, target::remove);
+	}
+	
+	/**
+     * Hands every complete record of a journal file to an action, in order.
+     *
+     * @param file   the journal file
+     * @param add    the action applied to each added or updated course
+     * @param remove the action applied to the CRN of each removed course
+     * @return the number of bytes of complete records
+     * @throws IOException if the file cannot be read
+     */
+	static long replay(File file, Consumer<CourseDBElement> add, IntConsumer remove) throws IOException {
+		try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+			DataInputStream data = new DataInputStream(in);
+			long valid = 0;
+			while (true) {
+				byte[] bytes;
+				int expected;
+				try {
+					int length = data.readInt();
+					expected = data.readInt();
+					if (length <= 0 || length > file.length()) {
+						return valid;
+					}
+					bytes = new byte[length];
+					data.readFully(bytes);
+				} catch (EOFException e) {
+					return valid;
+				}
+				CRC32 crc = new CRC32();
+				crc.update(bytes);
+				if ((int) crc.getValue() != expected) {
+					return valid;
+				}
+				DataInputStream record = new DataInputStream(new ByteArrayInputStream(bytes));
+				byte type = record.readByte();
+				if (type == ADD) {
+					int crn = record.readInt();
+					int credits = record.readInt();
+					String id = record.readUTF();
+					String roomNum = record.readUTF();
+					String instructor = record.readUTF();
+					add.accept(new CourseDBElement(id, crn, credits, roomNum, instructor));
+				} else if (type == REMOVE) {
+					remove.accept(record.readInt());
+				}
+				valid += 8 + bytes.length;
+			}
+		}
+	}
+	
+	/**
+     * Rethrows the failure of an earlier commit, after which nothing more is
+     * written. The caller holds the journal's lock.
+     *
+     * @throws IOException the failure
+     */
+	private void checkFailure () throws IOException {
+		if (failure != null) {
+			throw new IOException("Journal commit failed", failure);
+		}
+	}
+}
@@ -0,0 +1,302 @@
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This is the test file for the CourseDBJournal and its use by CourseDBManager
+ */
+public class CourseDBJournalTest {
+	File journalFile, snapshot;
+
+	@Before
+	public void setUp() throws Exception {
+		journalFile = new File("JournalTest.log");
+		snapshot = new File("JournalTest.cdb");
+		journalFile.delete();
+		snapshot.delete();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		journalFile.delete();
+		snapshot.delete();
+	}
+
+	/**
+	 * Test that appended records are replayed in order
+	 */
+	@Test
+	public void testAppendAndReplay() throws IOException {
+		CourseDBJournal journal = new CourseDBJournal(journalFile);
+		for (int crn = 10000; crn < 10010; crn++) {
+			journal.append(new CourseDBElement("CMSC204", crn, 4, "SC100", "Nobody InParticular"));
+		}
+		journal.append(new CourseDBElement("CMSC204-updated", 10000, 3, "SC200", "updated"));
+		journal.close();
+
+		CourseDBStructure cds = new CourseDBStructure(20);
+		CourseDBJournal.replay(journalFile, cds);
+		assertEquals(10, cds.size());
+		assertEquals("CMSC204-updated", cds.get(10000).getID());
+	}
+
+	/**
+	 * Test that strings outside ASCII, and a too-long string, are encoded the
+	 * way replay reads them
+	 */
+	@Test
+	public void testStringEncoding() throws IOException {
+		CourseDBJournal journal = new CourseDBJournal(journalFile);
+		journal.append(new CourseDBElement("CMSC204\u0000", 10000, 4, "SC\u00e9100", "Ren\u00e9e \u5f20 \ud83d\ude00"));
+		char[] longName = new char[40000];
+		Arrays.fill(longName, '\u00e9');
+		try {
+			journal.enqueue(new CourseDBElement("CMSC204", 10001, 4, "SC100", new String(longName)));
+			fail("Should have thrown IOException");
+		} catch (IOException e) {
+			assertTrue("threw Exception successfuly for a string longer than 65535 bytes", true);
+		}
+		journal.append(new CourseDBElement("CMSC204", 10002, 4, "SC100", "Nobody InParticular"));
+		journal.close();
+
+		CourseDBStructure cds = new CourseDBStructure(20);
+		CourseDBJournal.replay(journalFile, cds);
+		assertEquals(2, cds.size());
+		assertEquals("CMSC204\u0000", cds.get(10000).getID());
+		assertEquals("SC\u00e9100", cds.get(10000).getRoomNum());
+		assertEquals("Ren\u00e9e \u5f20 \ud83d\ude00", cds.get(10000).getInstructor());
+	}
+
+	/**
+	 * Test that a record is on disk when append returns, and that threads
+	 * appending at the same time all get their records committed
+	 */
+	@Test
+	public void testGroupCommit() throws Exception {
+		CourseDBJournal journal = new CourseDBJournal(journalFile);
+		journal.append(new CourseDBElement("CMSC203", 30504, 4, "SC450", "Joey Bag-O-Donuts"));
+		CourseDBStructure cds = new CourseDBStructure(20);
+		CourseDBJournal.replay(journalFile, cds);
+		assertEquals(1, cds.size());
+
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			int first = 10000 + t * 1000;
+			threads[t] = new Thread(() -> {
+				try {
+					for (int crn = first; crn < first + 200; crn++) {
+						journal.append(new CourseDBElement("CMSC204", crn, 4, "SC100", "Nobody InParticular"));
+					}
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		long last = 0;
+		for (int crn = 20000; crn < 20100; crn++) {
+			last = journal.enqueue(new CourseDBElement("CMSC205", crn, 3, "SC200", "Queued"));
+		}
+		journal.awaitDurable(last);
+		// Every record is already on disk, before close
+		cds = new CourseDBStructure(20);
+		CourseDBJournal.replay(journalFile, cds);
+		assertEquals(901, cds.size());
+		journal.close();
+	}
+
+	/**
+	 * Test that a torn record at the end is ignored and truncated on reopen
+	 */
+	@Test
+	public void testTornTail() throws IOException {
+		CourseDBJournal journal = new CourseDBJournal(journalFile);
+		journal.append(new CourseDBElement("CMSC203", 30504, 4, "SC450", "Joey Bag-O-Donuts"));
+		journal.close();
+		long complete = journalFile.length();
+		FileOutputStream out = new FileOutputStream(journalFile, true);
+		out.write(new byte[] {0, 0, 0, 40, 1, 2, 3});
+		out.close();
+
+		CourseDBStructure cds = new CourseDBStructure(20);
+		assertEquals(complete, CourseDBJournal.replay(journalFile, cds));
+		assertEquals(1, cds.size());
+
+		journal = new CourseDBJournal(journalFile);
+		assertEquals(complete, journalFile.length());
+		journal.append(new CourseDBElement("CMSC204", 30503, 4, "SC450", "Jill B. Who-Dunit"));
+		journal.close();
+		cds = new CourseDBStructure(20);
+		CourseDBJournal.replay(journalFile, cds);
+		assertEquals(2, cds.size());
+	}
+
+	/**
+	 * Test recovering a manager from a snapshot plus the journal tail
+	 */
+	@Test
+	public void testManagerRecovery() throws IOException {
+		CourseDBManager dataMgr = new CourseDBManager();
+		dataMgr.openJournal(journalFile);
+		dataMgr.add("CMSC203", 30504, 4, "SC450", "Joey Bag-O-Donuts");
+		dataMgr.checkpoint(snapshot);
+		dataMgr.add("CMSC204", 30503, 4, "SC450", "Jill B. Who-Dunit");
+		dataMgr.merge("CMSC203", 30504, 4, "SC451", "Joey Bag-O-Donuts", (current, added) -> added);
+		dataMgr.addAll(Arrays.asList(new CourseDBElement("CMSC205", 30505, 3, "SC452", "Nobody InParticular")), true);
+		dataMgr.closeJournal();
+
+		CourseDBManager recovered = new CourseDBManager(new CourseDBMappedStructure(snapshot));
+		recovered.openJournal(journalFile);
+		assertEquals("SC451", recovered.get(30504).getRoomNum());
+		assertEquals("Jill B. Who-Dunit", recovered.get(30503).getInstructor());
+		assertEquals("SC452", recovered.get(30505).getRoomNum());
+		assertEquals(3, recovered.showAll().size());
+		recovered.closeJournal();
+	}
+
+	/**
+	 * Test that an update whose record cannot be committed never reaches the
+	 * database, and that a course the journal cannot record is refused before
+	 * anything is queued
+	 */
+	@Test
+	public void testFailedCommitNotPublished() throws IOException {
+		CourseDBManager dataMgr = new CourseDBManager();
+		dataMgr.openJournal(journalFile);
+		dataMgr.add("CMSC203", 30504, 4, "SC450", "Joey Bag-O-Donuts");
+		try {
+			dataMgr.add("CMSC204", 30503, 4, "SC450", null);
+			fail("Should have thrown IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			assertTrue("threw Exception successfuly for a null instructor", true);
+		}
+		try {
+			dataMgr.addAll(Arrays.asList(new CourseDBElement("CMSC205", 30505, 3, "SC452", "Nobody InParticular"),
+					new CourseDBElement(null, 30506, 3, "SC452", "Nobody InParticular")), false);
+			fail("Should have thrown IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			assertTrue("threw Exception successfuly for a null course ID", true);
+		}
+		assertNull(dataMgr.get(30503));
+		assertNull(dataMgr.get(30505));
+		dataMgr.add("CMSC206", 30507, 3, "SC453", "Jill B. Who-Dunit");
+
+		// A closed channel makes the next commit fail
+		dataMgr.getJournal().close();
+		try {
+			dataMgr.add("CMSC203", 30504, 3, "SC999", "Joey Bag-O-Donuts");
+			fail("Should have thrown UncheckedIOException");
+		} catch (UncheckedIOException e) {
+			assertTrue("threw Exception successfuly for a failed commit", true);
+		}
+		try {
+			dataMgr.remove(30507);
+			fail("Should have thrown UncheckedIOException");
+		} catch (UncheckedIOException e) {
+			assertTrue("threw Exception successfuly after a failed commit", true);
+		}
+		assertEquals("SC450", dataMgr.get(30504).getRoomNum());
+		assertEquals("SC453", dataMgr.get(30507).getRoomNum());
+
+		CourseDBStructure cds = new CourseDBStructure(20);
+		CourseDBJournal.replay(journalFile, cds);
+		assertEquals(2, cds.size());
+		assertEquals("SC450", cds.get(30504).getRoomNum());
+	}
+
+	/**
+	 * Test that removals are journaled and replayed after the snapshot
+	 */
+	@Test
+	public void testRemoveRecovery() throws IOException {
+		CourseDBManager dataMgr = new CourseDBManager();
+		dataMgr.openJournal(journalFile);
+		dataMgr.add("CMSC203", 30504, 4, "SC450", "Joey Bag-O-Donuts");
+		dataMgr.add("CMSC204", 30503, 4, "SC450", "Jill B. Who-Dunit");
+		dataMgr.checkpoint(snapshot);
+		dataMgr.remove(30504);
+		dataMgr.add("CMSC205", 30505, 3, "SC452", "Nobody InParticular");
+		dataMgr.remove(30505);
+		dataMgr.remove(11111);
+		dataMgr.closeJournal();
+
+		CourseDBManager recovered = new CourseDBManager(new CourseDBMappedStructure(snapshot));
+		recovered.openJournal(journalFile);
+		assertNull(recovered.get(30504));
+		assertNull(recovered.get(30505));
+		assertEquals("Jill B. Who-Dunit", recovered.get(30503).getInstructor());
+		assertEquals(1, recovered.showAll().size());
+		recovered.closeJournal();
+	}
+
+	/**
+	 * Test checkpointing a database served from the same snapshot file it
+	 * checkpoints to, over several restarts
+	 */
+	@Test
+	public void testCheckpointLoop() throws IOException {
+		CourseDBManager dataMgr = new CourseDBManager();
+		dataMgr.openJournal(journalFile);
+		dataMgr.add("CMSC203", 30504, 4, "SC450", "Joey Bag-O-Donuts");
+		dataMgr.checkpoint(snapshot);
+		dataMgr.closeJournal();
+		for (int restart = 0; restart < 3; restart++) {
+			CourseDBManager recovered = new CourseDBManager(new CourseDBMappedStructure(snapshot));
+			recovered.openJournal(journalFile);
+			recovered.add("CMSC" + restart, 40000 + restart, 3, "SC100", "Restart " + restart);
+			recovered.checkpoint(snapshot);
+			assertEquals(0, journalFile.length());
+			recovered.add("CMSC" + restart, 50000 + restart, 3, "SC100", "After " + restart);
+			assertEquals("Joey Bag-O-Donuts", recovered.get(30504).getInstructor());
+			assertEquals(restart + 3, recovered.showAll().size());
+			recovered.remove(50000 + restart);
+			recovered.closeJournal();
+		}
+		CourseDBManager recovered = new CourseDBManager(new CourseDBMappedStructure(snapshot));
+		recovered.openJournal(journalFile);
+		assertEquals(4, recovered.showAll().size());
+		assertEquals("Restart 2", recovered.get(40002).getInstructor());
+		assertNull(recovered.get(50002));
+		recovered.closeJournal();
+	}
+
+	/**
+	 * Test that adds made while a checkpoint runs end up in the snapshot or in
+	 * the journal after it, never lost between the two
+	 */
+	@Test
+	public void testCheckpointConcurrentAdds() throws Exception {
+		CourseDBManager dataMgr = new CourseDBManager(new CourseDBConcurrentStructure(1000));
+		dataMgr.openJournal(journalFile);
+		Thread writer = new Thread(() -> {
+			for (int crn = 10000; crn < 12000; crn++) {
+				dataMgr.add("CMSC204", crn, 4, "SC450", "Instructor " + crn);
+			}
+		});
+		writer.start();
+		for (int i = 0; i < 5; i++) {
+			dataMgr.checkpoint(snapshot);
+		}
+		writer.join();
+		dataMgr.closeJournal();
+
+		CourseDBManager recovered = new CourseDBManager(new CourseDBMappedStructure(snapshot));
+		recovered.openJournal(journalFile);
+		assertEquals(2000, recovered.showAll().size());
+		for (int crn = 10000; crn < 12000; crn++) {
+			assertEquals("Instructor " + crn, recovered.get(crn).getInstructor());
+		}
+		recovered.closeJournal();
+	}
+}
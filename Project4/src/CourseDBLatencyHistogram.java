@@ -0,0 +1,114 @@
+import java.util.Arrays;
+
+/**
+ * CourseDBLatencyHistogram counts durations in nanoseconds in log-linear
+ * buckets, so that percentiles can be read at any time from a fixed amount of
+ * memory. Durations below 16 ns each have their own bucket; above that every
+ * power of two is split into eight buckets, which keeps a reported percentile
+ * within 12.5% of the true duration. Its methods are synchronized, so threads
+ * may record into one histogram while another reads it.
+ */
+public class CourseDBLatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;
+
+	private final long[] counts = new long[bucketOf(Long.MAX_VALUE) + 1];
+	private long total;
+	private long max;
+
+	/**
+     * Records a duration.
+     *
+     * @param nanos the duration in nanoseconds; a negative one counts as 0
+     */
+	public synchronized void record(long nanos) {
+		nanos = Math.max(nanos, 0);
+		counts[bucketOf(nanos)]++;
+		total++;
+		max = Math.max(max, nanos);
+	}
+
+	/**
+     * Returns the duration below or at which the given share of the recorded
+     * durations lie, rounded up to the end of its bucket.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the duration in nanoseconds, or 0 if nothing was recorded
+     * @throws IllegalArgumentException if the percentile is not between 0 and
+     *                                  100
+     */
+	public synchronized long getPercentile(double percentile) {
+		if (!(percentile >= 0 && percentile <= 100)) {
+			throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+		}
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+		long seen = 0;
+		for (int bucket = 0; bucket < counts.length; bucket++) {
+			seen += counts[bucket];
+			if (seen >= rank) {
+				return Math.min(upperBound(bucket), max);
+			}
+		}
+		return 0;
+	}
+
+	/**
+     * Returns the number of durations recorded.
+     *
+     * @return the number of durations
+     */
+	public synchronized long getCount() {
+		return total;
+	}
+
+	/**
+     * Returns the longest duration recorded.
+     *
+     * @return the longest duration in nanoseconds, or 0 if nothing was recorded
+     */
+	public synchronized long getMax() {
+		return max;
+	}
+
+	/**
+     * Forgets every recorded duration.
+     */
+	public synchronized void reset() {
+		Arrays.fill(counts, 0);
+		total = 0;
+		max = 0;
+	}
+
+	/**
+     * Returns the bucket of a duration: the duration itself below LINEAR_LIMIT,
+     * otherwise its power of two followed by the next SUB_BUCKET_BITS bits.
+     *
+     * @param nanos a duration, not negative
+     * @return the bucket
+     */
+	private static int bucketOf (long nanos) {
+		if (nanos < LINEAR_LIMIT) {
+			return (int) nanos;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+		int shift = exponent - SUB_BUCKET_BITS;
+		return shift * SUB_BUCKETS + (int) (nanos >>> shift);
+	}
+
+	/**
+     * Returns the longest duration that falls in a bucket.
+     *
+     * @param bucket the bucket
+     * @return the duration in nanoseconds
+     */
+	private static long upperBound (int bucket) {
+		if (bucket < LINEAR_LIMIT) {
+			return bucket;
+		}
+		int shift = bucket / SUB_BUCKETS - 1;
+		long top = bucket % SUB_BUCKETS + SUB_BUCKETS + 1;
+		return shift + SUB_BUCKET_BITS >= 63 ? Long.MAX_VALUE : (top << shift) - 1;
+	}
+}
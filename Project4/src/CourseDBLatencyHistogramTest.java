@@ -0,0 +1,67 @@
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Tests CourseDBLatencyHistogram: percentiles are within a bucket of the
+ * recorded durations, never below them, and reset forgets everything.
+ */
+public class CourseDBLatencyHistogramTest {
+
+	/**
+	 * Test that short durations are counted exactly
+	 */
+	@Test
+	public void testExactBelowSixteen() {
+		CourseDBLatencyHistogram histogram = new CourseDBLatencyHistogram();
+		for (long nanos = 0; nanos < 10; nanos++) {
+			histogram.record(nanos);
+		}
+		assertEquals(10, histogram.getCount());
+		assertEquals(0, histogram.getPercentile(0));
+		assertEquals(4, histogram.getPercentile(50));
+		assertEquals(9, histogram.getPercentile(100));
+		assertEquals(9, histogram.getMax());
+	}
+
+	/**
+	 * Test that percentiles of a uniform spread are within 12.5% above the true value
+	 */
+	@Test
+	public void testRelativeError() {
+		CourseDBLatencyHistogram histogram = new CourseDBLatencyHistogram();
+		for (long nanos = 1; nanos <= 1_000_000; nanos++) {
+			histogram.record(nanos);
+		}
+		for (double percentile : new double[] {1, 50, 90, 99, 99.9}) {
+			long exact = (long) Math.ceil(percentile / 100 * 1_000_000);
+			long reported = histogram.getPercentile(percentile);
+			assertTrue(reported >= exact);
+			assertTrue(reported <= exact * 1.125);
+		}
+		assertEquals(1_000_000, histogram.getPercentile(100));
+	}
+
+	/**
+	 * Test extreme durations and reset
+	 */
+	@Test
+	public void testExtremesAndReset() {
+		CourseDBLatencyHistogram histogram = new CourseDBLatencyHistogram();
+		assertEquals(0, histogram.getPercentile(99));
+		histogram.record(-5);
+		histogram.record(Long.MAX_VALUE);
+		assertEquals(0, histogram.getPercentile(50));
+		assertEquals(Long.MAX_VALUE, histogram.getPercentile(100));
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMax());
+		assertEquals(0, histogram.getPercentile(100));
+		try {
+			histogram.getPercentile(101);
+			fail("Should have thrown IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+}
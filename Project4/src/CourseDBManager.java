@@ -1,8 +1,15 @@
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
-import java.util.Scanner;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BinaryOperator;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
 
 /**
  * CourseDBManager is a class that implements the CourseDBManagerInterface
@@ -12,31 +19,95 @@ import java.util.Scanner;
  * @author Mariia Honcharenko
  */
 public class CourseDBManager implements CourseDBManagerInterface {
-	private CourseDBStructure courseStructure;
+	private volatile CourseDBStructureInterface courseStructure;
+	private CourseDBJournal journal;
+	// Journaled updates share the read lock; a checkpoint takes the write lock
+	private final ReentrantReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+	
+	private static final int DEFAULT_ESTIMATED_SIZE = 500;
 	
 	/**
      * Constructor for CourseDBManager. Initializes the courseStructure with a
      * specified size.
      */
 	public CourseDBManager() {
-		courseStructure = new CourseDBStructure(500);
+		this(DEFAULT_ESTIMATED_SIZE);
     }
 	
 	/**
-     * Adds a new course to the database.
+     * Constructor for CourseDBManager. Initializes the courseStructure for the
+     * estimated number of courses; the structure grows past it on its own.
+     *
+     * @param estimSize the estimated number of courses
+     */
+	public CourseDBManager(int estimSize) {
+		this(new CourseDBStructure(estimSize));
+    }
+	
+	/**
+     * Constructor for CourseDBManager. Stores the courses in the given structure,
+     * for example a CourseDBDirectStructure when CRNs fall in the valid range.
+     *
+     * @param courseStructure the structure that holds the courses
+     */
+	public CourseDBManager(CourseDBStructureInterface courseStructure) {
+		this.courseStructure = courseStructure;
+    }
+	
+	/**
+     * Adds a new course to the database. With a journal open the course is
+     * first appended to it, and is stored only once the record is on disk.
      *
      * @param id         the course ID
      * @param crn        the course registration number
      * @param credits    the number of credits
      * @param roomNum    the room number
      * @param instructor the instructor's name
+     * @throws UncheckedIOException     if the journal cannot be written
+     * @throws IllegalArgumentException if a journal is open and a field is null
      */
 	@Override
 	public void add(String id, int crn, int credits, String roomNum, String instructor) {
         CourseDBElement course = new CourseDBElement(id, crn, credits, roomNum, instructor);
-        courseStructure.add(course);
+        if (journal == null) {
+            courseStructure.add(course);
+        } else {
+            compute(crn, current -> course);
+        }
     }
 
+	/**
+     * Adds every course of a collection in one bulk operation. With a journal
+     * open every course is queued in the journal in one batch, the call waits
+     * for the disk once, and only then are the courses stored. Unique courses
+     * can share the journal with other updates, since none has the same CRN;
+     * otherwise the batch holds off every other journaled update, so the
+     * journal and the database apply updates of a CRN in the same order.
+     *
+     * @param courses    the courses to add
+     * @param uniqueCRNs true if no two courses share a CRN and none is in the
+     *                   database yet
+     * @throws UncheckedIOException     if the journal cannot be written
+     * @throws IllegalArgumentException if a journal is open and a field is null
+     */
+	@Override
+	public void addAll(Collection<? extends CourseDBElement> courses, boolean uniqueCRNs) {
+		if (journal == null) {
+			courseStructure.addAll(courses, uniqueCRNs);
+			return;
+		}
+		Lock lock = uniqueCRNs ? checkpointLock.readLock() : checkpointLock.writeLock();
+		lock.lock();
+		try {
+			journal.awaitDurable(journal.enqueueAll(courses));
+			courseStructure.addAll(courses, uniqueCRNs);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			lock.unlock();
+		}
+	}
+
 	/**
      * Retrieves a course with the specified CRN from the database.
      *
@@ -45,43 +116,303 @@ public class CourseDBManager implements CourseDBManagerInterface {
      */
 	@Override
 	public CourseDBElement get(int crn) {
+		return courseStructure.find(crn);
+	}
+	
+	/**
+     * Removes the course with the specified CRN from the database. With a journal
+     * open the removal is written to the journal before the course is removed,
+     * atomically with other updates of the CRN when the structure is
+     * thread-safe, and the course is removed only once the record is on disk.
+     *
+     * @param crn the course registration number
+     * @return the course that was removed, or null if there was none
+     * @throws UncheckedIOException if the journal cannot be written
+     */
+	@Override
+	public CourseDBElement remove(int crn) {
+		if (journal == null) {
+			return courseStructure.remove(crn);
+		}
+		checkpointLock.readLock().lock();
 		try {
-	        CourseDBElement course = courseStructure.get(crn);
-	        return course;
-	    } catch (IOException e) {
-	        return null;
-	    }
+			return courseStructure.remove(crn, current -> {
+				try {
+					journal.appendRemove(crn);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} finally {
+			checkpointLock.readLock().unlock();
+		}
+	}
+	
+	/**
+     * Finds the courses that match every given field. A null field matches any
+     * value. The query is answered from secondary indexes when the structure
+     * keeps them, for example a CourseDBStructure with setSecondaryIndexes(true).
+     *
+     * @param id         the course ID to match, or null
+     * @param roomNum    the room number to match, or null
+     * @param instructor the instructor to match, or null
+     * @return the matching courses
+     */
+	@Override
+	public ArrayList<CourseDBElement> select(String id, String roomNum, String instructor) {
+		return courseStructure.select(id, roomNum, instructor);
+	}
+	
+	/**
+     * Finds every section of a course.
+     *
+     * @param id the course ID
+     * @return the courses with that ID
+     */
+	public ArrayList<CourseDBElement> findByID(String id) {
+		return select(id, null, null);
+	}
+	
+	/**
+     * Finds every course held in a room.
+     *
+     * @param roomNum the room number
+     * @return the courses in that room
+     */
+	public ArrayList<CourseDBElement> findByRoom(String roomNum) {
+		return select(null, roomNum, null);
+	}
+	
+	/**
+     * Finds every course taught by an instructor.
+     *
+     * @param instructor the instructor's name
+     * @return the courses taught by that instructor
+     */
+	public ArrayList<CourseDBElement> findByInstructor(String instructor) {
+		return select(null, null, instructor);
+	}
+	
+	/**
+     * Finds the courses with CRNs from lo to hi, both included, in CRN order. The
+     * query walks only the range when the structure keeps courses ordered, for
+     * example a CourseDBDirectStructure or a CourseDBStructure with
+     * setOrderedIndex(true).
+     *
+     * @param lo the smallest CRN to return
+     * @param hi the largest CRN to return
+     * @return the courses in the range
+     */
+	@Override
+	public ArrayList<CourseDBElement> range(int lo, int hi) {
+		return courseStructure.range(lo, hi);
+	}
+	
+	/**
+     * Replaces the course with the given CRN by the result of the remapping
+     * function. The structure decides whether the update is atomic; a
+     * CourseDBConcurrentStructure performs it under the CRN's stripe lock. With
+     * a journal open the result is written to the journal inside the update and
+     * stored only once it is on disk, so a reader never sees a course that a
+     * crash could lose; threads updating at the same time share one fsync.
+     *
+     * @param crn       the course registration number
+     * @param remapping the function computing the course to store from the
+     *                  current one, or from null if there is none
+     * @return the course stored for the CRN after the call, or null if none
+     * @throws UncheckedIOException     if the journal cannot be written
+     * @throws IllegalArgumentException if the computed course has another CRN,
+     *                                  or a journal is open and a field is null
+     */
+	@Override
+	public CourseDBElement compute(int crn, UnaryOperator<CourseDBElement> remapping) {
+		if (journal == null) {
+			return courseStructure.compute(crn, remapping);
+		}
+		checkpointLock.readLock().lock();
+		try {
+			return courseStructure.compute(crn, current -> {
+				CourseDBElement result = remapping.apply(current);
+				if (result != null) {
+					// Checked here too, so a course that will not be stored is never logged
+					if (result.getCRN() != crn) {
+						throw new IllegalArgumentException("Computed course has CRN " + result.getCRN() + ", expected " + crn);
+					}
+					try {
+						journal.append(result);
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}
+				return result;
+			});
+		} finally {
+			checkpointLock.readLock().unlock();
+		}
+	}
+	
+	/**
+     * Adds a new course, or combines it with the existing course with the same CRN.
+     *
+     * @param id         the course ID
+     * @param crn        the course registration number
+     * @param credits    the number of credits
+     * @param roomNum    the room number
+     * @param instructor the instructor's name
+     * @param remapping  the function combining the existing course and the new one
+     * @return the course stored for the CRN after the call
+     */
+	@Override
+	public CourseDBElement merge(String id, int crn, int credits, String roomNum, String instructor,
+			BinaryOperator<CourseDBElement> remapping) {
+		CourseDBElement course = new CourseDBElement(id, crn, credits, roomNum, instructor);
+		return compute(crn, current -> current == null ? course : remapping.apply(current, course));
 	}
 	
 	/**
-     * Reads course information from a file and adds it to the database.
+     * Reads course information from a file and adds it to the database. Course
+     * IDs, room numbers and instructor names are interned, so a value repeated on
+     * many lines of the file is stored once. The pool of interned strings lasts
+     * for the one call, so it keeps nothing alive once the courses are removed
+     * and is never shared between threads reading files. The file is parsed at the byte level by a
+     * CourseDBFileParser.
      *
      * @param input the input file containing course information
      * @throws FileNotFoundException if the input file is not found
      */
 	@Override
     public void readFile(File input) throws FileNotFoundException {
+        readFile(input, null);
+    }
+	
+	/**
+     * Reads course information from a file like readFile(File), but parses the
+     * file in line-aligned chunks on a ForkJoinPool. The courses are still added
+     * in file order, so a CRN that appears more than once ends up with its last
+     * line, exactly as with the sequential read. With a journal open the
+     * courses are collected first and added as by addAll, so the call waits
+     * for the disk once and stores them after.
+     *
+     * @param input the input file containing course information
+     * @param pool  the pool that parses the chunks, or null to parse on this thread
+     * @throws FileNotFoundException if the input file is not found
+     */
+    public void readFile(File input, ForkJoinPool pool) throws FileNotFoundException {
+        if (!input.isFile() || !input.canRead()) {
+            throw new FileNotFoundException("The input file could not be found.");
+        }
+        CourseDBDictionary strings = new CourseDBDictionary();
+        if (journal == null) {
+            parse(input, pool, (id, crn, credits, roomNum, instructor) ->
+                    add(strings.intern(id), crn, credits, strings.intern(roomNum), strings.intern(instructor)));
+            return;
+        }
+        // Journal every line in one batch and wait for the disk once, after the last
+        ArrayList<CourseDBElement> courses = new ArrayList<>();
+        parse(input, pool, (id, crn, credits, roomNum, instructor) -> courses.add(
+                new CourseDBElement(strings.intern(id), crn, credits, strings.intern(roomNum),
+                        strings.intern(instructor))));
+        addAll(courses, false);
+    }
+	
+	/**
+     * Parses a course file and hands each line's course to a sink, in file order.
+     *
+     * @param input the input file containing course information
+     * @param pool  the pool that parses the chunks, or null to parse on this thread
+     * @param sink  the sink that receives the courses
+     * @throws UncheckedIOException if the file cannot be read
+     */
+    private void parse (File input, ForkJoinPool pool, CourseDBFileParser.CourseSink sink) {
         try {
-            Scanner scanner = new Scanner(input);
-            while (scanner.hasNextLine()) {
-                String str = scanner.nextLine();
-                String[] fields = str.split(" ", 5);
-                if (fields.length == 5) {
-                    String id = fields[0];
-                    int CRN = Integer.parseInt(fields[1]);
-                    int credits = Integer.parseInt(fields[2]);
-                    String roomNum = fields[3];
-                    String instructor = fields[4];
-
-                    add(id, CRN, credits, roomNum, instructor);
-                }
+            if (pool == null) {
+                new CourseDBFileParser().parse(input, sink);
+            } else {
+                new CourseDBFileParser().parseParallel(input, pool, sink);
             }
-            scanner.close();
-        } catch (FileNotFoundException e) {
-            throw new FileNotFoundException("The input file could not be found.");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 	
+	/**
+     * Writes every course to a binary snapshot file. A later process can open it
+     * with new CourseDBManager(new CourseDBMappedStructure(file)) instead of
+     * reading the text file again.
+     *
+     * @param snapshot the snapshot file to write
+     * @throws IOException if the snapshot cannot be written
+     */
+	public void writeSnapshot(File snapshot) throws IOException {
+		CourseDBSnapshot.write(courseStructure, snapshot);
+	}
+	
+	/**
+     * Opens a write-ahead journal. Updates already in the journal, for example
+     * those made after the last snapshot, are replayed into the database first;
+     * every later add, compute, merge and remove is appended to it.
+     *
+     * @param journalFile the journal file, created if it does not exist
+     * @throws IOException if the journal cannot be read or opened
+     */
+	public void openJournal(File journalFile) throws IOException {
+		closeJournal();
+		if (journalFile.exists()) {
+			CourseDBJournal.replay(journalFile, courseStructure);
+		}
+		journal = new CourseDBJournal(journalFile);
+	}
+	
+	/**
+     * Writes a snapshot of every course and empties the journal, whose updates
+     * the snapshot now holds. Journaled updates wait while the checkpoint runs,
+     * so none can fall between the snapshot and the reset of the journal. The
+     * snapshot replaces the file atomically, and a database served from a
+     * mapped snapshot is then served from the new one, which may be the same
+     * file.
+     *
+     * @param snapshot the snapshot file to write
+     * @throws IOException if the snapshot or the journal cannot be written
+     */
+	public void checkpoint(File snapshot) throws IOException {
+		checkpointLock.writeLock().lock();
+		try {
+			if (journal != null) {
+				journal.commit();
+			}
+			writeSnapshot(snapshot);
+			if (courseStructure instanceof CourseDBMappedStructure) {
+				courseStructure = new CourseDBMappedStructure(snapshot);
+			}
+			if (journal != null) {
+				journal.reset();
+			}
+		} finally {
+			checkpointLock.writeLock().unlock();
+		}
+	}
+	
+	/**
+     * Commits and closes the journal, if one is open.
+     *
+     * @throws IOException if the pending updates cannot be committed
+     */
+	public void closeJournal() throws IOException {
+		if (journal != null) {
+			journal.close();
+			journal = null;
+		}
+	}
+	
+	/**
+     * Returns the open journal, so that a test can make its commits fail.
+     *
+     * @return the journal, or null if none is open
+     */
+	CourseDBJournal getJournal() {
+		return journal;
+	}
+	
 	/**
      * Returns an ArrayList of string representations of all courses in the database.
      *
@@ -91,5 +422,45 @@ public class CourseDBManager implements CourseDBManagerInterface {
 	public ArrayList<String> showAll() {
 		return courseStructure.showAll();
 	}
+	
+	/**
+     * Returns one page of courses in the same order as showAll, so a large
+     * database can be browsed a page at a time. Start with CourseDBPage.FIRST
+     * and pass each page's next token to fetch the following page.
+     *
+     * @param token    CourseDBPage.FIRST or the next token of the previous page
+     * @param pageSize the largest number of courses on the page
+     * @return the page
+     * @throws IllegalArgumentException if the token is negative or pageSize is
+     *                                  not positive
+     */
+	@Override
+	public CourseDBPage page(long token, int pageSize) {
+		return courseStructure.page(token, pageSize);
+	}
+	
+	/**
+     * Returns a stream over the courses in the same order as showAll, without
+     * collecting them or building their strings.
+     *
+     * @return a stream of the courses
+     */
+	@Override
+	public Stream<CourseDBElement> stream() {
+		return courseStructure.stream();
+	}
+	
+	/**
+     * Writes every course to a buffer or stream in the same order and format as
+     * showAll. Each course is formatted straight into the Appendable, so writing
+     * a catalog takes no memory beyond what the Appendable keeps.
+     *
+     * @param out the buffer or stream to write to
+     * @throws IOException if the Appendable fails
+     */
+	@Override
+	public void writeAll(Appendable out) throws IOException {
+		courseStructure.writeAll(out);
+	}
 
 }
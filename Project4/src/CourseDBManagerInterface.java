@@ -2,6 +2,9 @@
 
 import java.io.*;
 import java.util.*;
+import java.util.function.BinaryOperator;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
 
 public interface CourseDBManagerInterface {
 
@@ -16,6 +19,15 @@ public interface CourseDBManagerInterface {
 	 */
 	public void add(String id, int crn, int credits, String roomNum, String instructor);
 	
+	/**
+	 * Adds every course of a collection, in iteration order. The structure is
+	 * sized for all of them at once.
+	 * @param courses the courses to add
+	 * @param uniqueCRNs true if the caller guarantees that no two courses share
+	 * a crn and none is in the database yet, which skips the duplicate checks
+	 */
+	public void addAll(Collection<? extends CourseDBElement> courses, boolean uniqueCRNs);
+	
 	/**
 	 * finds  CourseDBElement based on the crn key
 	 * @param crn course crn (key)
@@ -24,6 +36,56 @@ public interface CourseDBManagerInterface {
 	 */
 	public CourseDBElement get(int crn);
 	
+	/**
+	 * removes the CourseDBElement with the crn key, for example a cancelled section
+	 * @param crn course crn (key)
+	 * @return the CourseDBElement that was removed, or null if there was none
+	 */
+	public CourseDBElement remove(int crn);
+	
+	/**
+	 * finds the courses that match every given field; a null field matches
+	 * any value
+	 * @param id course id, or null
+	 * @param roomNum course room number, or null
+	 * @param instructor name of the instructor, or null
+	 * @return a list of the matching CourseDBElement objects
+	 */
+	public ArrayList<CourseDBElement> select(String id, String roomNum, String instructor);
+	
+	/**
+	 * finds the courses whose crns lie from lo to hi, both included
+	 * @param lo smallest crn
+	 * @param hi largest crn
+	 * @return a list of the CourseDBElement objects in crn order
+	 */
+	public ArrayList<CourseDBElement> range(int lo, int hi);
+	
+	/**
+	 * Replaces the course with the given crn by the result of the remapping
+	 * function, which receives the current course or null if there is none.
+	 * If the function returns null nothing is stored.
+	 * @param crn course crn (key)
+	 * @param remapping function computing the course to store
+	 * @return the course stored for the crn after the call, or null if none
+	 */
+	public CourseDBElement compute(int crn, UnaryOperator<CourseDBElement> remapping);
+	
+	/**
+	 * Adds a course with the given information, or if a course with the same
+	 * crn exists, stores the result of combining the existing course with the
+	 * new one.
+	 * @param id course id 
+	 * @param crn course crn
+	 * @param credits number of credits
+	 * @param roomNum course room number
+	 * @param instructor name of the instructor
+	 * @param remapping function combining the existing course and the new one
+	 * @return the course stored for the crn after the call
+	 */
+	public CourseDBElement merge(String id, int crn, int credits, String roomNum, String instructor,
+			BinaryOperator<CourseDBElement> remapping);
+	
 	/**
 	 * Reads the information of courses from a test file and adds them
 	 * to the CourseDBStructure data structure
@@ -39,5 +101,27 @@ public interface CourseDBManagerInterface {
 	 * Course:CMSC600 CRN:4000 Credits:4 Instructor:Somebody Room:SC200
 	 */
 	public ArrayList<String> showAll();
+	
+	/**
+	 * Returns one page of courses in the same order as showAll
+	 * @param token CourseDBPage.FIRST, or the next token of the previous page
+	 * @param pageSize the largest number of courses on the page
+	 * @return the page and the token of the next one
+	 */
+	public CourseDBPage page(long token, int pageSize);
+	
+	/**
+	 * @return a stream of the CourseDBElement objects in the same order as
+	 * showAll, produced one at a time
+	 */
+	public Stream<CourseDBElement> stream();
+	
+	/**
+	 * Writes the string representation of each course, in the same order and
+	 * format as showAll, to a buffer or stream
+	 * @param out the buffer or stream to write to
+	 * @throws IOException if writing fails
+	 */
+	public void writeAll(Appendable out) throws IOException;
 
 }
@@ -2,7 +2,11 @@ import static org.junit.Assert.*;
 
 import java.io.File;
 import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.HashMap;
+import java.util.Random;
 
 import org.junit.After;
 import org.junit.Before;
@@ -82,4 +86,177 @@ public class CourseDBManager_STUDENT_Test {
             fail("Should not have thrown an exception");
         }
     }
+
+    /**
+     * Test that a parallel read gives the same database as a sequential one, with
+     * the last line winning for a repeated CRN.
+     */
+    @Test
+    public void testReadFileParallel() throws Exception {
+        File inputFile = new File("StudentTest_Parallel.txt");
+        PrintWriter inFile = new PrintWriter(inputFile);
+        for (int i = 0; i < 3000; i++) {
+            inFile.println("CMSC" + (i % 9) + " " + (20000 + i % 1000) + " 3 SC" + (i % 11) + " Instructor " + i);
+        }
+        inFile.close();
+        CourseDBManager sequential = new CourseDBManager();
+        sequential.readFile(inputFile);
+        CourseDBManager parallel = new CourseDBManager();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        parallel.readFile(inputFile, pool);
+        pool.shutdown();
+        assertEquals(sequential.showAll(), parallel.showAll());
+        assertEquals("Instructor 2999", parallel.get(20999).getInstructor());
+        inputFile.delete();
+    }
+
+    /**
+     * Test the addAll method for bulk loading courses.
+     */
+    @Test
+    public void testAddAll() {
+        ArrayList<CourseDBElement> courses = new ArrayList<>();
+        courses.add(new CourseDBElement("MATH101", 20101, 3, "MH101", "Prof. Johnson"));
+        courses.add(new CourseDBElement("PHYS202", 20202, 4, "PH220", "Dr. Anderson"));
+        dataMgr.addAll(courses, true);
+        courses.clear();
+        courses.add(new CourseDBElement("PHYS202", 20202, 4, "PH221", "Dr. Anderson"));
+        courses.add(new CourseDBElement("CHEM303", 20303, 4, "CH330", "Dr. Davis"));
+        dataMgr.addAll(courses, false);
+        assertEquals(3, dataMgr.showAll().size());
+        assertEquals("PH221", dataMgr.get(20202).getRoomNum());
+        assertEquals("Prof. Johnson", dataMgr.get(20101).getInstructor());
+    }
+
+    /**
+     * Test the query methods with and without secondary indexes.
+     */
+    @Test
+    public void testSelect() {
+        CourseDBStructure structure = new CourseDBStructure(10);
+        structure.setSecondaryIndexes(true);
+        for (CourseDBManager manager : new CourseDBManager[] {new CourseDBManager(), new CourseDBManager(structure)}) {
+            manager.add("MATH101", 20101, 3, "MH101", "Prof. Johnson");
+            manager.add("MATH101", 20102, 3, "MH102", "Prof. Johnson");
+            manager.add("PHYS202", 20202, 4, "MH101", "Dr. Anderson");
+            assertEquals(2, manager.findByID("MATH101").size());
+            assertEquals(2, manager.findByRoom("MH101").size());
+            assertEquals(2, manager.findByInstructor("Prof. Johnson").size());
+            assertEquals(20101, manager.select("MATH101", "MH101", null).get(0).getCRN());
+            assertTrue(manager.findByInstructor("Dr. Davis").isEmpty());
+        }
+    }
+
+    /**
+     * Test that writeAll and stream produce the courses of showAll in order.
+     */
+    @Test
+    public void testWriteAllAndStream() throws Exception {
+        dataMgr.add("MATH101", 20101, 3, "MH101", "Prof. Johnson");
+        dataMgr.add("PHYS202", 20202, 4, "PH220", "Dr. Anderson");
+        dataMgr.add("CHEM303", 20303, 4, "CH330", "Dr. Davis");
+        StringBuilder written = new StringBuilder();
+        dataMgr.writeAll(written);
+        assertEquals(String.join("", dataMgr.showAll()), written.toString());
+        StringWriter writer = new StringWriter();
+        dataMgr.writeAll(writer);
+        assertEquals(written.toString(), writer.toString());
+        assertEquals(3, dataMgr.stream().count());
+        assertEquals(dataMgr.showAll().get(0), dataMgr.stream().findFirst().get().toString());
+    }
+
+    /**
+     * Test paging through the database, also with a structure that relies on
+     * the default paging.
+     */
+    @Test
+    public void testPage() {
+        CourseDBManager[] managers = {new CourseDBManager(), new CourseDBManager(new CourseDBConcurrentStructure(10))};
+        for (CourseDBManager manager : managers) {
+            for (int i = 0; i < 5; i++) {
+                manager.add("MATH10" + i, 20100 + i, 3, "MH101", "Prof. Johnson");
+            }
+            CourseDBPage first = manager.page(CourseDBPage.FIRST, 3);
+            assertEquals(3, first.getCourses().size());
+            assertTrue(first.hasNext());
+            CourseDBPage second = manager.page(first.getNextToken(), 3);
+            assertEquals(2, second.getCourses().size());
+            assertFalse(second.hasNext());
+            ArrayList<String> pages = new ArrayList<>();
+            for (CourseDBElement course : first.getCourses()) {
+                pages.add(course.toString());
+            }
+            for (CourseDBElement course : second.getCourses()) {
+                pages.add(course.toString());
+            }
+            assertEquals(manager.showAll(), pages);
+        }
+    }
+
+    /**
+     * Test the compute and merge methods for read-modify-write updates.
+     */
+    @Test
+    public void testComputeAndMerge() {
+        dataMgr.add("MATH101", 20101, 3, "MH101", "Prof. Johnson");
+        CourseDBElement moved = dataMgr.compute(20101, current -> new CourseDBElement(
+                current.getID(), current.getCRN(), current.getCredits(), "MH202", current.getInstructor()));
+        assertEquals("MH202", moved.getRoomNum());
+        assertEquals("MH202", dataMgr.get(20101).getRoomNum());
+
+        dataMgr.merge("PHYS202", 20202, 4, "PH220", "Dr. Anderson", (current, added) -> added);
+        assertEquals("Dr. Anderson", dataMgr.get(20202).getInstructor());
+        dataMgr.merge("PHYS202", 20202, 4, "PH220", "Dr. Lee", (current, added) -> new CourseDBElement(
+                current.getID(), current.getCRN(), current.getCredits(), current.getRoomNum(),
+                current.getInstructor() + " and " + added.getInstructor()));
+        assertEquals("Dr. Anderson and Dr. Lee", dataMgr.get(20202).getInstructor());
+    }
+
+    /**
+     * Test that remove works the same on every structure under a churn of
+     * adds and removes, and that the churn does not grow the strings kept by
+     * the columnar and off-heap structures.
+     */
+    @Test
+    public void testRemove() throws Exception {
+        CourseDBColumnarStructure columnar = new CourseDBColumnarStructure(10);
+        CourseDBOffHeapStructure offHeap = new CourseDBOffHeapStructure(10);
+        CourseDBManager[] managers = {new CourseDBManager(), new CourseDBManager(new CourseDBDirectStructure(10)),
+                new CourseDBManager(new CourseDBConcurrentStructure(10)), new CourseDBManager(columnar),
+                new CourseDBManager(offHeap), new CourseDBManager(new CourseDBCuckooStructure(10))};
+        long warmBytes = 0;
+        for (CourseDBManager manager : managers) {
+            HashMap<Integer, String> expected = new HashMap<>();
+            Random random = new Random(24);
+            for (int round = 0; round < 6; round++) {
+                for (int i = round * 50000; i < (round + 1) * 50000; i++) {
+                    int crn = 10000 + random.nextInt(5000);
+                    if (random.nextBoolean()) {
+                        CourseDBElement removed = manager.remove(crn);
+                        String instructor = expected.remove(crn);
+                        assertEquals(instructor, removed == null ? null : removed.getInstructor());
+                    } else {
+                        manager.add("CMSC204", crn, 3, "SC450", "Instructor " + i);
+                        expected.put(crn, "Instructor " + i);
+                    }
+                }
+                if (manager == managers[3]) {
+                    // One distinct instructor per stored course, plus the shared ID and room
+                    assertEquals(expected.size() + 2, columnar.getStringCount());
+                } else if (manager == managers[4]) {
+                    // The buffers reach their size while the first rounds fill the CRN range
+                    if (round == 1) {
+                        warmBytes = offHeap.getOffHeapBytes();
+                    }
+                    assertTrue(round < 1 || offHeap.getOffHeapBytes() <= warmBytes);
+                }
+            }
+            assertEquals(expected.size(), manager.showAll().size());
+            for (int crn = 10000; crn < 15000; crn++) {
+                CourseDBElement course = manager.get(crn);
+                assertEquals(expected.get(crn), course == null ? null : course.getInstructor());
+            }
+        }
+        assertNull(dataMgr.remove(20101));
+    }
 }
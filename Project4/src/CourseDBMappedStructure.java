@@ -0,0 +1,405 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * CourseDBMappedStructure serves courses from a snapshot written by
+ * CourseDBSnapshot. The file is memory-mapped and lookups probe the index inside
+ * the mapping, building a CourseDBElement only for the course that is found, so
+ * opening even a large snapshot takes no parsing. The Bloom filter stored in the
+ * snapshot is copied out of the mapping and screens every probe of the index, so
+ * a CRN that is not in the snapshot rarely touches an index page; for a version
+ * 1 snapshot, which has none, the filter is built from the index instead.
+ *
+ * The snapshot itself is never modified. Courses added afterwards go into an
+ * in-memory CourseDBStructure that is consulted first and shadows the snapshot.
+ * Removed snapshot CRNs are remembered in a set that hides their records; the
+ * next snapshot written from this structure leaves them out for good.
+ */
+public class CourseDBMappedStructure implements CourseDBStructureInterface {
+	
+	private MappedByteBuffer buffer;
+	private int snapshotCount;
+	private int indexSize;
+	private CourseDBStructure overlay;
+	private int shadowed;
+	private HashSet<Integer> removed = new HashSet<>();
+	private CourseDBBloomFilter bloomFilter;
+	private int recordsStart;
+	
+	/**
+     * Maps a snapshot file. The header and the index are checked against the
+     * length of the file, so a truncated or corrupt snapshot is refused here
+     * rather than failing a later lookup.
+     *
+     * @param file the snapshot file
+     * @throws IOException if the file cannot be mapped, is not a snapshot or is
+     *                     corrupt
+     */
+	public CourseDBMappedStructure (File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Snapshot larger than 2 GB: " + file);
+			}
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		if (buffer.capacity() < CourseDBSnapshot.HEADER_BYTES
+				|| buffer.getInt(0) != CourseDBSnapshot.MAGIC) {
+			throw new IOException("Not a course snapshot: " + file);
+		}
+		int version = buffer.getInt(4);
+		if (version != 1 && version != CourseDBSnapshot.VERSION) {
+			throw new IOException("Unsupported snapshot version " + version + ": " + file);
+		}
+		snapshotCount = buffer.getInt(8);
+		indexSize = buffer.getInt(12);
+		validateIndex(file);
+		if (version == 1) {
+			bloomFilter = new CourseDBBloomFilter(snapshotCount, CourseDBBloomFilter.DEFAULT_FALSE_POSITIVE_RATE);
+		} else {
+			loadBloomFilter(file);
+		}
+		validateRecords(file, version == 1);
+		overlay = new CourseDBStructure(16);
+	}
+	
+	/**
+     * Adds a course element to the in-memory overlay. If a course with the same
+     * CRN exists in the overlay or the snapshot, the new element shadows it.
+     *
+     * @param element the course element to add or update
+     */
+	@Override
+	public void add(CourseDBElement element) {
+		int before = overlay.size();
+		overlay.add(element);
+		if (overlay.size() > before && inSnapshot(element.getCRN())) {
+			shadowed++;
+		}
+	}
+	
+	/**
+     * Removes a course element by its CRN from the overlay and hides its
+     * snapshot record, if any.
+     *
+     * @param crn the CRN of the course to remove
+     * @return the course element that was removed, or null if there was none
+     */
+	@Override
+	public CourseDBElement remove(int crn) {
+		CourseDBElement course = overlay.remove(crn);
+		if (!inSnapshot(crn)) {
+			return course;
+		}
+		if (course == null) {
+			course = readRecord(findRecord(crn));
+		} else {
+			shadowed--;
+		}
+		removed.add(crn);
+		return course;
+	}
+	
+	/**
+     * Finds a course element by its CRN (Course Registration Number), first in the
+     * overlay and then in the snapshot.
+     *
+     * @param crn the CRN of the course to retrieve
+     * @return the course element with the specified CRN
+     * @throws IOException if the course with the specified CRN is not found
+     */
+	@Override
+	public CourseDBElement get(int crn) throws IOException {
+		CourseDBElement course = find(crn);
+		if (course == null) {
+			throw new IOException("Course with CRN " + crn + " is not found");
+		}
+		return course;
+	}
+	
+	/**
+     * Finds a course element by its CRN, first in the overlay and then in the
+     * snapshot, without throwing on a miss.
+     *
+     * @param crn the CRN of the course to retrieve
+     * @return the course element with the specified CRN, or null if not found
+     */
+	@Override
+	public CourseDBElement find(int crn) {
+		CourseDBElement course = overlay.find(crn);
+		if (course != null) {
+			return course;
+		}
+		if (removed.contains(crn) || !bloomFilter.mightContain(crn)) {
+			return null;
+		}
+		int record = probeIndex(crn);
+		if (record < 0) {
+			bloomFilter.recordFalsePositive();
+			return null;
+		}
+		return readRecord(record);
+	}
+	
+	/**
+     * Returns the Bloom filter over the snapshot's CRNs, whose counters give the
+     * false-positive rate seen by find so far. Courses in the overlay are not
+     * in it; they are looked up first.
+     *
+     * @return the Bloom filter
+     */
+	public CourseDBBloomFilter getBloomFilter() {
+		return bloomFilter;
+	}
+	
+	/**
+     * Returns an ArrayList of string representations of all courses, those added
+     * to the overlay first.
+     *
+     * @return an ArrayList of string representations of courses
+     */
+	@Override
+	public ArrayList<String> showAll() {
+		ArrayList<String> courses = new ArrayList<>(size());
+		for (CourseDBElement element : this) {
+			courses.add(element.toString());
+		}
+		return courses;
+	}
+	
+	/**
+     * Returns an iterator over the overlay courses followed by the snapshot
+     * courses that they do not shadow. Snapshot courses are built as they are
+     * reached.
+     *
+     * @return an iterator over the courses
+     */
+	@Override
+	public Iterator<CourseDBElement> iterator() {
+		Stream<CourseDBElement> added = StreamSupport.stream(overlay.spliterator(), false);
+		Stream<CourseDBElement> mapped = IntStream.range(0, indexSize)
+				.map(slot -> buffer.getInt(indexEntry(slot) + 4))
+				.filter(record -> record != 0)
+				.mapToObj(this::readRecord)
+				.filter(course -> !inOverlay(course.getCRN()) && !removed.contains(course.getCRN()));
+		return Stream.concat(added, mapped).iterator();
+	}
+	
+	/**
+     * Returns the size of the snapshot index.
+     *
+     * @return the number of slots in the index
+     */
+	@Override
+	public int getTableSize() {
+		return indexSize;
+	}
+	
+	/**
+     * Returns the number of courses in the snapshot and the overlay together.
+     *
+     * @return the number of courses
+     */
+	@Override
+	public int size() {
+		return snapshotCount - removed.size() + overlay.size() - shadowed;
+	}
+	
+	/**
+     * Checks that the index fits in the file and has room for its courses.
+     *
+     * @param file the snapshot file, for the messages
+     * @throws IOException if the snapshot is corrupt
+     */
+	private void validateIndex (File file) throws IOException {
+		if (indexSize <= 0 || Integer.bitCount(indexSize) != 1) {
+			throw new IOException("Corrupt snapshot, index size " + indexSize + " is not a power of two: " + file);
+		}
+		if (snapshotCount < 0 || snapshotCount >= indexSize) {
+			throw new IOException("Corrupt snapshot, " + snapshotCount + " courses do not fit an index of "
+					+ indexSize + ": " + file);
+		}
+		long indexEnd = CourseDBSnapshot.HEADER_BYTES + (long) indexSize * CourseDBSnapshot.INDEX_ENTRY_BYTES;
+		if (indexEnd > buffer.capacity()) {
+			throw new IOException("Corrupt snapshot, index of " + indexSize + " slots runs past the end of the "
+					+ buffer.capacity() + "-byte file: " + file);
+		}
+		recordsStart = (int) indexEnd;
+	}
+	
+	/**
+     * Copies the Bloom filter section that follows the index out of the mapping.
+     *
+     * @param file the snapshot file, for the messages
+     * @throws IOException if the filter section is corrupt
+     */
+	private void loadBloomFilter (File file) throws IOException {
+		if (recordsStart + (long) CourseDBSnapshot.FILTER_HEADER_BYTES > buffer.capacity()) {
+			throw new IOException("Corrupt snapshot, Bloom filter header runs past the end of the file: " + file);
+		}
+		int hashes = buffer.getInt(recordsStart);
+		int words = buffer.getInt(recordsStart + 4);
+		long filterEnd = recordsStart + (long) CourseDBSnapshot.FILTER_HEADER_BYTES + (long) words * Long.BYTES;
+		if (words < 0 || filterEnd > buffer.capacity()) {
+			throw new IOException("Corrupt snapshot, Bloom filter of " + words + " words runs past the end of the "
+					+ buffer.capacity() + "-byte file: " + file);
+		}
+		long[] bits = new long[words];
+		buffer.slice(recordsStart + CourseDBSnapshot.FILTER_HEADER_BYTES, words * Long.BYTES).asLongBuffer().get(bits);
+		try {
+			bloomFilter = new CourseDBBloomFilter(bits, hashes, snapshotCount);
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Corrupt snapshot, " + e.getMessage() + ": " + file);
+		}
+		recordsStart = (int) filterEnd;
+	}
+	
+	/**
+     * Checks that every index entry points at a record inside the file whose
+     * three string lengths keep it inside the file, and that the Bloom filter
+     * passes its CRN, or adds the CRN to a filter being built. The strings
+     * themselves are decoded only when their records are looked up.
+     *
+     * @param file     the snapshot file, for the messages
+     * @param building true if the filter is being built from the index
+     * @throws IOException if the snapshot is corrupt
+     */
+	private void validateRecords (File file, boolean building) throws IOException {
+		// The smallest record is two ints and three empty strings
+		long lastRecord = buffer.capacity() - 14L;
+		int entries = 0;
+		for (int slot = 0; slot < indexSize; slot++) {
+			int entry = indexEntry(slot);
+			int record = buffer.getInt(entry + 4);
+			if (record == 0) {
+				continue;
+			}
+			if (record < recordsStart || record > lastRecord) {
+				throw new IOException("Corrupt snapshot, index slot " + slot + " points at offset " + record
+						+ " outside the records: " + file);
+			}
+			long end = record + 8L;
+			for (int field = 0; field < 3; field++) {
+				if (end + 2 > buffer.capacity()
+						|| (end += 2 + (buffer.getShort((int) end) & 0xFFFF)) > buffer.capacity()) {
+					throw new IOException("Corrupt snapshot, record at offset " + record
+							+ " runs past the end of the file: " + file);
+				}
+			}
+			int crn = buffer.getInt(entry);
+			if (building) {
+				bloomFilter.add(crn);
+			} else if (!bloomFilter.test(crn)) {
+				throw new IOException("Corrupt snapshot, Bloom filter rejects CRN " + crn + ": " + file);
+			}
+			entries++;
+		}
+		if (entries != snapshotCount) {
+			throw new IOException("Corrupt snapshot, header counts " + snapshotCount + " courses but the index holds "
+					+ entries + ": " + file);
+		}
+	}
+	
+	/**
+     * Probes the mapped index for a CRN the Bloom filter passes.
+     *
+     * @param crn the CRN to look for
+     * @return the file offset of the course's record, or -1 if it is not in the
+     *         snapshot
+     */
+	private int findRecord (int crn) {
+		return bloomFilter.test(crn) ? probeIndex(crn) : -1;
+	}
+	
+	/**
+     * Probes the mapped index for a CRN, without consulting the Bloom filter.
+     *
+     * @param crn the CRN to look for
+     * @return the file offset of the course's record, or -1 if it is not in the
+     *         snapshot
+     */
+	private int probeIndex (int crn) {
+		int slot = CourseDBSnapshot.homeSlot(crn, indexSize);
+		while (true) {
+			int entry = indexEntry(slot);
+			int record = buffer.getInt(entry + 4);
+			if (record == 0) {
+				return -1;
+			}
+			if (buffer.getInt(entry) == crn) {
+				return record;
+			}
+			slot = (slot + 1) & (indexSize - 1);
+		}
+	}
+	
+	/**
+     * Returns the file offset of an index slot.
+     *
+     * @param slot the index slot
+     * @return the offset of its (CRN, record offset) pair
+     */
+	private int indexEntry (int slot) {
+		return CourseDBSnapshot.HEADER_BYTES + slot * CourseDBSnapshot.INDEX_ENTRY_BYTES;
+	}
+	
+	/**
+     * Builds a course element from a record.
+     *
+     * @param offset the file offset of the record
+     * @return the course element
+     */
+	private CourseDBElement readRecord (int offset) {
+		int crn = buffer.getInt(offset);
+		int credits = buffer.getInt(offset + 4);
+		int position = offset + 8;
+		String id = readString(position);
+		position += 2 + (buffer.getShort(position) & 0xFFFF);
+		String roomNum = readString(position);
+		position += 2 + (buffer.getShort(position) & 0xFFFF);
+		String instructor = readString(position);
+		return new CourseDBElement(id, crn, credits, roomNum, instructor);
+	}
+	
+	/**
+     * Decodes a length-prefixed UTF-8 string.
+     *
+     * @param position the file offset of the length
+     * @return the string
+     */
+	private String readString (int position) {
+		byte[] bytes = new byte[buffer.getShort(position) & 0xFFFF];
+		buffer.get(position + 2, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+	
+	/**
+     * Checks whether the snapshot holds a course for a CRN that has not been
+     * removed.
+     *
+     * @param crn the CRN
+     * @return true if the snapshot record of the CRN is visible
+     */
+	private boolean inSnapshot (int crn) {
+		return !removed.contains(crn) && findRecord(crn) >= 0;
+	}
+	
+	/**
+     * Checks whether a CRN has been added to the overlay.
+     *
+     * @param crn the CRN
+     * @return true if the overlay holds the CRN
+     */
+	private boolean inOverlay (int crn) {
+		return overlay.size() > 0 && overlay.find(crn) != null;
+	}
+}
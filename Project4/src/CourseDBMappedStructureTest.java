@@ -0,0 +1,264 @@
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This is the test file for CourseDBSnapshot and CourseDBMappedStructure
+ */
+public class CourseDBMappedStructureTest {
+	File snapshot;
+
+	@Before
+	public void setUp() throws Exception {
+		snapshot = new File("SnapshotTest.cdb");
+		CourseDBStructure cds = new CourseDBStructure(20);
+		for (int crn = 10000; crn < 11000; crn++) {
+			cds.add(new CourseDBElement("CMSC" + (crn % 10), crn, 1 + crn % 4, "SC" + (crn % 7),
+					"Instructor " + crn));
+		}
+		cds.add(new CourseDBElement("CMSC204", 30559, 4, "SC450", "BillyBob Jones \u00fc"));
+		CourseDBSnapshot.write(cds, snapshot);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		snapshot.delete();
+	}
+
+	/**
+	 * Test that every course can be read back from the mapped snapshot
+	 */
+	@Test
+	public void testGet() throws IOException {
+		CourseDBMappedStructure mapped = new CourseDBMappedStructure(snapshot);
+		assertEquals(1001, mapped.size());
+		CourseDBElement course = mapped.get(30559);
+		assertEquals("CMSC204", course.getID());
+		assertEquals(4, course.getCredits());
+		assertEquals("SC450", course.getRoomNum());
+		assertEquals("BillyBob Jones \u00fc", course.getInstructor());
+		for (int crn = 10000; crn < 11000; crn++) {
+			assertEquals("Instructor " + crn, mapped.get(crn).getInstructor());
+		}
+		try {
+			mapped.get(11000);
+			fail("Should have thrown IOException");
+		} catch (IOException e) {
+			assertTrue("threw Exception successfuly for the course not found", true);
+		}
+	}
+
+	/**
+	 * Test that added courses shadow the snapshot without changing it
+	 */
+	@Test
+	public void testOverlay() throws IOException {
+		CourseDBMappedStructure mapped = new CourseDBMappedStructure(snapshot);
+		mapped.add(new CourseDBElement("CMSC204-updated", 30559, 3, "SC100", "updated"));
+		mapped.add(new CourseDBElement("CMSC600", 4000, 4, "SC200", "Somebody"));
+		assertEquals(1002, mapped.size());
+		assertEquals(1002, mapped.showAll().size());
+		assertEquals("CMSC204-updated", mapped.get(30559).getID());
+		assertEquals("CMSC600", mapped.get(4000).getID());
+		assertEquals("CMSC204", new CourseDBMappedStructure(snapshot).get(30559).getID());
+	}
+
+	/**
+	 * Test the manager round trip through a snapshot
+	 */
+	@Test
+	public void testManagerSnapshot() throws IOException {
+		CourseDBManager dataMgr = new CourseDBManager();
+		dataMgr.add("CMSC203", 30504, 4, "SC450", "Joey Bag-O-Donuts");
+		dataMgr.add("CMSC204", 30503, 4, "SC450", "Jill B. Who-Dunit");
+		dataMgr.writeSnapshot(snapshot);
+		CourseDBManager loaded = new CourseDBManager(new CourseDBMappedStructure(snapshot));
+		assertEquals("Jill B. Who-Dunit", loaded.get(30503).getInstructor());
+		assertEquals(2, loaded.showAll().size());
+		assertNull(loaded.get(30505));
+	}
+
+	/**
+	 * Test that a file that is not a snapshot is rejected
+	 */
+	@Test
+	public void testNotASnapshot() throws IOException {
+		File text = new File("NotASnapshot.txt");
+		PrintWriter out = new PrintWriter(text);
+		out.println("CMSC203 30504 4 SC450 Joey Bag-O-Donuts");
+		out.close();
+		try {
+			new CourseDBMappedStructure(text);
+			fail("Should have thrown IOException");
+		} catch (IOException e) {
+			assertTrue("threw Exception successfuly for the invalid file", true);
+		}
+		text.delete();
+	}
+
+	/**
+	 * Test that find looks in the overlay and the snapshot and returns null on
+	 * a miss
+	 */
+	@Test
+	public void testFind() throws IOException {
+		CourseDBMappedStructure mapped = new CourseDBMappedStructure(snapshot);
+		mapped.add(new CourseDBElement("CMSC205", 30560, 3, "SC451", "Nobody InParticular"));
+		assertEquals("SC451", mapped.find(30560).getRoomNum());
+		assertEquals("BillyBob Jones \u00fc", mapped.find(30559).getInstructor());
+		assertNull(mapped.find(30561));
+	}
+
+	/**
+	 * Test removing snapshot courses, overlay courses and courses in both
+	 */
+	@Test
+	public void testRemove() throws IOException {
+		CourseDBMappedStructure mapped = new CourseDBMappedStructure(snapshot);
+		mapped.add(new CourseDBElement("CMSC204-updated", 30559, 3, "SC100", "updated"));
+		mapped.add(new CourseDBElement("CMSC600", 4000, 4, "SC200", "Somebody"));
+		assertEquals("CMSC204-updated", mapped.remove(30559).getID());
+		assertEquals("Instructor 10000", mapped.remove(10000).getInstructor());
+		assertEquals("CMSC600", mapped.remove(4000).getID());
+		assertNull(mapped.remove(10000));
+		assertNull(mapped.find(30559));
+		assertNull(mapped.find(10000));
+		assertEquals(999, mapped.size());
+		assertEquals(999, mapped.showAll().size());
+		mapped.add(new CourseDBElement("CMSC203", 10000, 4, "SC450", "Joey Bag-O-Donuts"));
+		assertEquals(1000, mapped.size());
+		assertEquals("CMSC203", mapped.get(10000).getID());
+		assertEquals(1000, mapped.stream().count());
+	}
+
+	/**
+	 * Test that rewriting a snapshot replaces it whole, leaves no temporary file
+	 * and does not disturb a structure that still maps the old file
+	 */
+	@Test
+	public void testRewrite() throws IOException {
+		CourseDBMappedStructure mapped = new CourseDBMappedStructure(snapshot);
+		CourseDBStructure smaller = new CourseDBStructure(20);
+		smaller.add(new CourseDBElement("CMSC203", 30504, 4, "SC450", "Joey Bag-O-Donuts"));
+		CourseDBSnapshot.write(smaller, snapshot);
+		assertFalse(new File(snapshot.getPath() + ".tmp").exists());
+		assertEquals("BillyBob Jones \u00fc", mapped.get(30559).getInstructor());
+		assertEquals(1001, mapped.stream().count());
+		CourseDBMappedStructure reopened = new CourseDBMappedStructure(snapshot);
+		assertEquals(1, reopened.size());
+		assertEquals("CMSC203", reopened.get(30504).getID());
+	}
+
+	/**
+	 * Test that the Bloom filter stored in the snapshot rejects misses and
+	 * passes every stored CRN, including after removals and overlay adds
+	 */
+	@Test
+	public void testBloomFilter() throws IOException {
+		CourseDBMappedStructure mapped = new CourseDBMappedStructure(snapshot);
+		CourseDBBloomFilter filter = mapped.getBloomFilter();
+		assertFalse(filter.isCounting());
+		for (int crn = 10000; crn < 11000; crn++) {
+			assertNotNull(mapped.find(crn));
+		}
+		assertEquals(0, filter.getRejectedCount());
+		for (int crn = 20000; crn < 30000; crn++) {
+			assertNull(mapped.find(crn));
+		}
+		assertEquals(10000, filter.getRejectedCount() + filter.getFalsePositiveCount());
+		assertTrue(filter.getFalsePositiveRate() < 0.02);
+		mapped.remove(10000);
+		mapped.add(new CourseDBElement("CMSC600", 20000, 4, "SC200", "Somebody"));
+		assertNull(mapped.find(10000));
+		assertEquals("CMSC600", mapped.find(20000).getID());
+		assertEquals(1001, mapped.size());
+	}
+
+	/**
+	 * Test that a version 1 snapshot, which has no Bloom filter, is still read
+	 * and gets a filter built from its index
+	 */
+	@Test
+	public void testVersion1() throws IOException {
+		CourseDBStructure cds = new CourseDBStructure(20);
+		for (int crn = 10000; crn < 11000; crn++) {
+			cds.add(new CourseDBElement("CMSC204", crn, 4, "SC450", "Instructor " + crn));
+		}
+		CourseDBSnapshot.write(cds, snapshot, 1);
+		CourseDBMappedStructure mapped = new CourseDBMappedStructure(snapshot);
+		assertEquals(1000, mapped.size());
+		for (int crn = 10000; crn < 11000; crn++) {
+			assertEquals("Instructor " + crn, mapped.get(crn).getInstructor());
+		}
+		assertNull(mapped.find(11000));
+		assertEquals(1, mapped.getBloomFilter().getRejectedCount() + mapped.getBloomFilter().getFalsePositiveCount());
+	}
+
+	/**
+	 * Test that a truncated snapshot, one whose header disagrees with its index
+	 * or one whose Bloom filter is damaged is rejected when it is opened
+	 */
+	@Test
+	public void testCorruptSnapshot() throws IOException {
+		// 1001 courses get an index of 2048 slots, so the Bloom filter section starts at 16400
+		int[][] corruptions = {{12, 3}, {12, 1 << 30}, {8, 5000}, {8, -1}, {8, 1000}, {16400, 0}, {16404, 3},
+				{16404, 1 << 28}, {16408, 0}};
+		for (int[] corruption : corruptions) {
+			CourseDBStructure cds = new CourseDBStructure(20);
+			for (int crn = 10000; crn < 11001; crn++) {
+				cds.add(new CourseDBElement("CMSC204", crn, 4, "SC450", "Instructor"));
+			}
+			CourseDBSnapshot.write(cds, snapshot);
+			try (RandomAccessFile file = new RandomAccessFile(snapshot, "rw")) {
+				file.seek(corruption[0]);
+				file.writeInt(corruption[1]);
+			}
+			try {
+				new CourseDBMappedStructure(snapshot);
+				fail("Should have thrown IOException");
+			} catch (IOException e) {
+				assertTrue("threw Exception successfuly for a corrupt header", e.getMessage().contains("Corrupt"));
+			}
+		}
+		// A string length that runs past the end of the file, in the last record
+		CourseDBStructure cds = new CourseDBStructure(20);
+		for (int crn = 10000; crn < 11001; crn++) {
+			cds.add(new CourseDBElement("CMSC204", crn, 4, "SC450", "Instructor"));
+		}
+		CourseDBSnapshot.write(cds, snapshot);
+		new CourseDBMappedStructure(snapshot);
+		try (RandomAccessFile file = new RandomAccessFile(snapshot, "rw")) {
+			int lastRecord = 0;
+			for (int slot = 0; slot < 2048; slot++) {
+				file.seek(16 + slot * 8 + 4);
+				lastRecord = Math.max(lastRecord, file.readInt());
+			}
+			file.seek(lastRecord + 8 + 2 + "CMSC204".length());
+			file.writeShort(0xFFFF);
+		}
+		try {
+			new CourseDBMappedStructure(snapshot);
+			fail("Should have thrown IOException");
+		} catch (IOException e) {
+			assertTrue("threw Exception successfuly for a corrupt string length", e.getMessage().contains("Corrupt"));
+		}
+		try (RandomAccessFile file = new RandomAccessFile(snapshot, "rw")) {
+			file.seek(8);
+			file.writeInt(1001);
+			file.setLength(file.length() / 2);
+		}
+		try {
+			new CourseDBMappedStructure(snapshot);
+			fail("Should have thrown IOException");
+		} catch (IOException e) {
+			assertTrue("threw Exception successfuly for a truncated snapshot", e.getMessage().contains("Corrupt"));
+		}
+	}
+}
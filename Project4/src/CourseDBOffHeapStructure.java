@@ -0,0 +1,644 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.stream.IntStream;
+
+/**
+ * CourseDBOffHeapStructure is a CourseDBStructureInterface implementation that
+ * keeps every course outside the Java heap, in direct ByteBuffers, so that a very
+ * large catalog adds nothing for the garbage collector to trace. Its heap
+ * footprint is a few buffer references whatever the number of courses.
+ *
+ * Each course is a fixed-width record of five ints: the CRN, the credits and
+ * references to its course ID, room and instructor. Strings are stored once each
+ * in an off-heap arena as a hash, a length, a reference count and their UTF-8
+ * bytes, and are found again through an off-heap hash table of arena references. CRNs are mapped to
+ * records by an off-heap open-addressing index.
+ *
+ * get, find and iteration return heap copies, as every structure does. view and
+ * views return flyweights instead: CourseDBRecord implementations that hold only
+ * the record's position and CRN and read each field from the buffers when it is
+ * asked for, so a scan allocates no strings it does not read. A view is
+ * read-only and always shows the current record, so it reflects a later update
+ * of the same CRN.
+ *
+ * Removing a course moves the last record into its place and shifts index
+ * entries back instead of leaving tombstones. Views of the removed course and
+ * of the moved one are stale afterwards: each removal starts a new generation,
+ * and a view from an older one checks that its position still holds its CRN
+ * before reading, throwing IllegalStateException if not.
+ *
+ * A string whose last record is removed or overwritten stays in the arena as
+ * dead bytes, and comes back to life if a later course uses it again. Once dead
+ * strings take more of the arena than live ones, the arena is compacted: live
+ * strings are copied to a new arena, records are pointed at the copies and the
+ * string table is rebuilt, so add and remove churn does not grow the buffers.
+ */
+public class CourseDBOffHeapStructure implements CourseDBStructureInterface {
+	
+	private static final int RECORD_BYTES = 20;
+	private static final int INDEX_ENTRY_BYTES = 8;
+	private static final int STRING_HEADER_BYTES = 10;
+	private static final int MIN_ARENA_BYTES = 4096;
+	private static final int MIN_STRING_SLOTS = 256;
+	private static final double INDEX_LOAD_FACTOR = 0.75;
+	private static final int MAX_BUFFER_BYTES = Integer.MAX_VALUE - 8;
+	
+	private ByteBuffer records;
+	private int rows;
+	private ByteBuffer index;
+	private int indexSlots;
+	private ByteBuffer arena;
+	private int arenaEnd;
+	private int deadBytes;
+	private ByteBuffer strings;
+	private int stringSlots;
+	private int stringCount;
+	private int generation;
+	
+	/**
+     * Constructs a CourseDBOffHeapStructure with the estimated size.
+     *
+     * @param estimSize the estimated size for the data structure
+     */
+	public CourseDBOffHeapStructure (int estimSize) {
+		int capacity = Math.max(estimSize, 16);
+		records = allocate((long) capacity * RECORD_BYTES);
+		indexSlots = Integer.highestOneBit((int) (capacity / INDEX_LOAD_FACTOR)) << 1;
+		index = allocate((long) indexSlots * INDEX_ENTRY_BYTES);
+		arena = allocate(MIN_ARENA_BYTES);
+		stringSlots = MIN_STRING_SLOTS;
+		strings = allocate(stringSlots * 4L);
+	}
+	
+	/**
+     * Adds a course element to the data structure. If a course with the same CRN
+     * exists, its record is overwritten.
+     *
+     * @param element the course element to add or update
+     * @throws IllegalArgumentException if a string is longer than 65535 bytes
+     * @throws IllegalStateException    if a buffer would exceed 2 GB
+     */
+	@Override
+	public void add(CourseDBElement element) {
+		int crn = element.getCRN();
+		int id = 0;
+		int roomNum = 0;
+		int instructor = 0;
+		int row;
+		// Intern first so that a string that is too long leaves no half-written record
+		try {
+			id = intern(element.getID());
+			roomNum = intern(element.getRoomNum());
+			instructor = intern(element.getInstructor());
+			int entry = probe(crn) * INDEX_ENTRY_BYTES;
+			row = index.getInt(entry + 4) - 1;
+			if (row < 0) {
+				records = ensure(records, (long) (rows + 1) * RECORD_BYTES, (long) rows * RECORD_BYTES);
+				row = rows++;
+				index.putInt(entry, crn);
+				index.putInt(entry + 4, row + 1);
+				records.putInt(row * RECORD_BYTES + 8, 0);
+				records.putInt(row * RECORD_BYTES + 12, 0);
+				records.putInt(row * RECORD_BYTES + 16, 0);
+			}
+		} catch (RuntimeException e) {
+			release(id);
+			release(roomNum);
+			release(instructor);
+			throw e;
+		}
+		int record = row * RECORD_BYTES;
+		// Release the strings the record drops after interning its new ones, which may be the same
+		releaseStrings(record);
+		records.putInt(record, crn);
+		records.putInt(record + 4, element.getCredits());
+		records.putInt(record + 8, id);
+		records.putInt(record + 12, roomNum);
+		records.putInt(record + 16, instructor);
+		// Grow after the record is written, since the new index is built from the records
+		if (rows > INDEX_LOAD_FACTOR * indexSlots) {
+			growIndex();
+		}
+		compactIfWasteful();
+	}
+	
+	/**
+     * Removes a course by its CRN. The last record is moved into the freed one,
+     * so it changes position in showAll and iteration.
+     *
+     * @param crn the CRN of the course to remove
+     * @return a heap copy of the removed course, or null if there was none
+     */
+	@Override
+	public CourseDBElement remove(int crn) {
+		int slot = probe(crn);
+		int row = index.getInt(slot * INDEX_ENTRY_BYTES + 4) - 1;
+		if (row < 0) {
+			return null;
+		}
+		CourseDBElement element = copy(row);
+		releaseStrings(row * RECORD_BYTES);
+		deleteSlot(slot);
+		generation++;
+		int last = --rows;
+		if (row != last) {
+			for (int i = 0; i < RECORD_BYTES; i += 4) {
+				records.putInt(row * RECORD_BYTES + i, records.getInt(last * RECORD_BYTES + i));
+			}
+			index.putInt(probe(records.getInt(row * RECORD_BYTES)) * INDEX_ENTRY_BYTES + 4, row + 1);
+		}
+		compactIfWasteful();
+		return element;
+	}
+	
+	/**
+     * Finds a course by its CRN (Course Registration Number) and returns a heap
+     * copy of its record.
+     *
+     * @param crn the CRN of the course to retrieve
+     * @return a copy of the course
+     * @throws IOException if the course with the specified CRN is not found
+     */
+	@Override
+	public CourseDBElement get(int crn) throws IOException {
+		CourseDBElement course = find(crn);
+		if (course == null) {
+			throw new IOException("Course with CRN " + crn + " is not found");
+		}
+		return course;
+	}
+	
+	/**
+     * Finds a course by its CRN without throwing on a miss.
+     *
+     * @param crn the CRN of the course to retrieve
+     * @return a copy of the course, or null if not found
+     */
+	@Override
+	public CourseDBElement find(int crn) {
+		int row = index.getInt(probe(crn) * INDEX_ENTRY_BYTES + 4) - 1;
+		return row < 0 ? null : copy(row);
+	}
+	
+	/**
+     * Finds a course by its CRN and returns a flyweight view of its record,
+     * which reads each field from the buffers when it is asked for.
+     *
+     * @param crn the CRN of the course to view
+     * @return a read-only view of the course, or null if not found
+     */
+	public CourseDBRecord view(int crn) {
+		int row = index.getInt(probe(crn) * INDEX_ENTRY_BYTES + 4) - 1;
+		return row < 0 ? null : new CourseView(row);
+	}
+	
+	/**
+     * Returns an iterator over flyweight views of the courses, in the order they
+     * were first added. Removing a course during the iteration makes the views
+     * of the removed and the moved course stale.
+     *
+     * @return an iterator over views of the courses
+     */
+	public Iterator<CourseDBRecord> views() {
+		return IntStream.range(0, rows).<CourseDBRecord>mapToObj(CourseView::new).iterator();
+	}
+	
+	/**
+     * Returns an ArrayList of string representations of all courses, in the order
+     * they were first added.
+     *
+     * @return an ArrayList of string representations of courses
+     */
+	@Override
+	public ArrayList<String> showAll() {
+		ArrayList<String> courses = new ArrayList<>(rows);
+		for (int row = 0; row < rows; row++) {
+			courses.add(copy(row).toString());
+		}
+		return courses;
+	}
+	
+	/**
+     * Returns an iterator over copies of the courses, in the order they were
+     * first added.
+     *
+     * @return an iterator over the courses
+     */
+	@Override
+	public Iterator<CourseDBElement> iterator() {
+		return IntStream.range(0, rows).mapToObj(this::copy).iterator();
+	}
+	
+	/**
+     * Returns up to pageSize courses in the order they were first added. The
+     * token is the record to start from, so any page costs time in its size only.
+     *
+     * @param token    CourseDBPage.FIRST or the next token of the previous page
+     * @param pageSize the largest number of courses to return
+     * @return the page
+     * @throws IllegalArgumentException if the token is negative or pageSize is
+     *                                  not positive
+     */
+	@Override
+	public CourseDBPage page(long token, int pageSize) {
+		CourseDBPage.check(token, pageSize);
+		int start = (int) Math.min(token, rows);
+		int end = (int) Math.min((long) start + pageSize, rows);
+		ArrayList<CourseDBElement> courses = new ArrayList<>(end - start);
+		for (int row = start; row < end; row++) {
+			courses.add(copy(row));
+		}
+		return new CourseDBPage(courses, end < rows ? end : CourseDBPage.END);
+	}
+	
+	/**
+     * Returns the size of the CRN index.
+     *
+     * @return the number of slots in the index
+     */
+	@Override
+	public int getTableSize() {
+		return indexSlots;
+	}
+	
+	/**
+     * Returns the number of courses in the data structure.
+     *
+     * @return the number of courses
+     */
+	@Override
+	public int size() {
+		return rows;
+	}
+	
+	/**
+     * Returns the number of off-heap bytes reserved for records, strings and
+     * indexes.
+     *
+     * @return the capacity of every buffer together
+     */
+	public long getOffHeapBytes() {
+		return (long) records.capacity() + index.capacity() + arena.capacity() + strings.capacity();
+	}
+	
+	/**
+     * Builds a heap copy of a record.
+     *
+     * @param row the record number
+     * @return the course
+     */
+	private CourseDBElement copy (int row) {
+		int record = row * RECORD_BYTES;
+		return new CourseDBElement(readString(records.getInt(record + 8)), records.getInt(record),
+				records.getInt(record + 4), readString(records.getInt(record + 12)),
+				readString(records.getInt(record + 16)));
+	}
+	
+	/**
+     * Probes the CRN index.
+     *
+     * @param crn the CRN to look for
+     * @return the index slot holding the CRN, or the empty slot where it would go
+     */
+	private int probe (int crn) {
+		int mask = indexSlots - 1;
+		int slot = CourseDBHasher.MURMUR.hash(crn) & mask;
+		while (true) {
+			int entry = slot * INDEX_ENTRY_BYTES;
+			if (index.getInt(entry + 4) == 0 || index.getInt(entry) == crn) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+	}
+	
+	/**
+     * Empties an index slot and moves back each later entry of its run that can
+     * no longer be reached from its home slot across the gap.
+     *
+     * @param i the slot to empty
+     */
+	private void deleteSlot (int i) {
+		int mask = indexSlots - 1;
+		for (int j = (i + 1) & mask; index.getInt(j * INDEX_ENTRY_BYTES + 4) != 0; j = (j + 1) & mask) {
+			int key = index.getInt(j * INDEX_ENTRY_BYTES);
+			int home = CourseDBHasher.MURMUR.hash(key) & mask;
+			if (((j - home) & mask) >= ((j - i) & mask)) {
+				index.putInt(i * INDEX_ENTRY_BYTES, key);
+				index.putInt(i * INDEX_ENTRY_BYTES + 4, index.getInt(j * INDEX_ENTRY_BYTES + 4));
+				i = j;
+			}
+		}
+		index.putInt(i * INDEX_ENTRY_BYTES + 4, 0);
+	}
+	
+	/**
+     * Doubles the CRN index and reinserts every record.
+     */
+	private void growIndex () {
+		if ((long) indexSlots * 2 * INDEX_ENTRY_BYTES > MAX_BUFFER_BYTES) {
+			throw new IllegalStateException("Off-heap index would exceed 2 GB");
+		}
+		indexSlots *= 2;
+		index = allocate((long) indexSlots * INDEX_ENTRY_BYTES);
+		for (int row = 0; row < rows; row++) {
+			int entry = probe(records.getInt(row * RECORD_BYTES)) * INDEX_ENTRY_BYTES;
+			index.putInt(entry, records.getInt(row * RECORD_BYTES));
+			index.putInt(entry + 4, row + 1);
+		}
+	}
+	
+	/**
+     * Returns the reference of a string in the arena, appending it if it is not
+     * there yet, and counts one more reference to it.
+     *
+     * @param value the string
+     * @return the arena offset of the string plus one, or 0 for null
+     * @throws IllegalArgumentException if the string is longer than 65535 bytes
+     */
+	private int intern (String value) {
+		if (value == null) {
+			return 0;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length > 0xFFFF) {
+			throw new IllegalArgumentException("String too long for off-heap store: " + bytes.length + " bytes");
+		}
+		int hash = value.hashCode();
+		int mask = stringSlots - 1;
+		int slot = CourseDBHasher.MURMUR.hash(hash) & mask;
+		for (int ref; (ref = strings.getInt(slot * 4)) != 0; slot = (slot + 1) & mask) {
+			if (matches(ref - 1, hash, bytes)) {
+				int references = arena.getInt(ref - 1 + 6);
+				if (references == 0) {
+					deadBytes -= STRING_HEADER_BYTES + bytes.length;
+				}
+				arena.putInt(ref - 1 + 6, references + 1);
+				return ref;
+			}
+		}
+		int offset = arenaEnd;
+		arena = ensure(arena, (long) offset + STRING_HEADER_BYTES + bytes.length, offset);
+		arena.putInt(offset, hash);
+		arena.putShort(offset + 4, (short) bytes.length);
+		arena.putInt(offset + 6, 1);
+		arena.put(offset + STRING_HEADER_BYTES, bytes);
+		arenaEnd += STRING_HEADER_BYTES + bytes.length;
+		strings.putInt(slot * 4, offset + 1);
+		if (++stringCount > INDEX_LOAD_FACTOR * stringSlots) {
+			rehashStrings(stringSlots * 2);
+		}
+		return offset + 1;
+	}
+	
+	/**
+     * Drops one reference to a string. A string whose last reference is dropped
+     * becomes dead bytes until it is used again or the arena is compacted.
+     *
+     * @param ref the arena offset of the string plus one, or 0 for null
+     */
+	private void release (int ref) {
+		if (ref == 0) {
+			return;
+		}
+		int offset = ref - 1;
+		int references = arena.getInt(offset + 6) - 1;
+		arena.putInt(offset + 6, references);
+		if (references == 0) {
+			deadBytes += STRING_HEADER_BYTES + (arena.getShort(offset + 4) & 0xFFFF);
+		}
+	}
+	
+	/**
+     * Drops the references of a record to its three strings.
+     *
+     * @param record the buffer offset of the record
+     */
+	private void releaseStrings (int record) {
+		release(records.getInt(record + 8));
+		release(records.getInt(record + 12));
+		release(records.getInt(record + 16));
+	}
+	
+	/**
+     * Compacts the arena once dead strings take more of it than live ones. Live
+     * strings are copied in order to a new arena and each old header is
+     * overwritten with the reference of its copy, so every record can then be
+     * pointed at the copies with one read per string.
+     */
+	private void compactIfWasteful () {
+		int liveBytes = arenaEnd - deadBytes;
+		if (deadBytes <= MIN_ARENA_BYTES || deadBytes <= liveBytes) {
+			return;
+		}
+		// Keep the capacity unless most of it would stay unused, so steady churn does not reallocate
+		long capacity = arena.capacity() > 4L * liveBytes ? Math.max(MIN_ARENA_BYTES, 2L * liveBytes) : arena.capacity();
+		ByteBuffer compacted = allocate(capacity);
+		int end = 0;
+		int live = 0;
+		for (int offset = 0, next; offset < arenaEnd; offset = next) {
+			int length = STRING_HEADER_BYTES + (arena.getShort(offset + 4) & 0xFFFF);
+			next = offset + length;
+			if (arena.getInt(offset + 6) > 0) {
+				ByteBuffer string = arena.duplicate();
+				string.clear().position(offset).limit(next);
+				compacted.position(end);
+				compacted.put(string);
+				arena.putInt(offset, end + 1);
+				end += length;
+				live++;
+			}
+		}
+		compacted.clear();
+		for (int row = 0; row < rows; row++) {
+			for (int field = 8; field < RECORD_BYTES; field += 4) {
+				int ref = records.getInt(row * RECORD_BYTES + field);
+				if (ref != 0) {
+					records.putInt(row * RECORD_BYTES + field, arena.getInt(ref - 1));
+				}
+			}
+		}
+		arena = compacted;
+		arenaEnd = end;
+		deadBytes = 0;
+		stringCount = live;
+		int slots = MIN_STRING_SLOTS;
+		while (live > INDEX_LOAD_FACTOR / 2 * slots) {
+			slots *= 2;
+		}
+		rehashStrings(slots);
+	}
+	
+	/**
+     * Checks whether the arena string at an offset has the given hash and bytes.
+     *
+     * @param offset the arena offset of the string
+     * @param hash   the hash of the string looked for
+     * @param bytes  the UTF-8 bytes of the string looked for
+     * @return true if they are the same string
+     */
+	private boolean matches (int offset, int hash, byte[] bytes) {
+		if (arena.getInt(offset) != hash || (arena.getShort(offset + 4) & 0xFFFF) != bytes.length) {
+			return false;
+		}
+		for (int i = 0; i < bytes.length; i++) {
+			if (arena.get(offset + STRING_HEADER_BYTES + i) != bytes[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+     * Rebuilds the string table with the given number of slots and reinserts
+     * every string of the arena, using the hash stored in front of each.
+     *
+     * @param slots the new number of slots, a power of two
+     */
+	private void rehashStrings (int slots) {
+		stringSlots = slots;
+		strings = allocate(stringSlots * 4L);
+		int mask = stringSlots - 1;
+		for (int offset = 0; offset < arenaEnd;
+				offset += STRING_HEADER_BYTES + (arena.getShort(offset + 4) & 0xFFFF)) {
+			int slot = CourseDBHasher.MURMUR.hash(arena.getInt(offset)) & mask;
+			while (strings.getInt(slot * 4) != 0) {
+				slot = (slot + 1) & mask;
+			}
+			strings.putInt(slot * 4, offset + 1);
+		}
+	}
+	
+	/**
+     * Decodes a string of the arena.
+     *
+     * @param ref the arena offset of the string plus one, or 0 for null
+     * @return the string
+     */
+	private String readString (int ref) {
+		if (ref == 0) {
+			return null;
+		}
+		int offset = ref - 1;
+		byte[] bytes = new byte[arena.getShort(offset + 4) & 0xFFFF];
+		arena.get(offset + STRING_HEADER_BYTES, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+	
+	/**
+     * Allocates a zeroed direct buffer in native byte order.
+     *
+     * @param bytes the capacity
+     * @return the buffer
+     */
+	private static ByteBuffer allocate (long bytes) {
+		return ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder());
+	}
+	
+	/**
+     * Returns a buffer of at least the needed capacity: the given one if it is
+     * large enough, otherwise a new one at least twice as large holding a copy of
+     * its used bytes. The old buffer's memory is released once it is collected.
+     *
+     * @param buffer the buffer
+     * @param needed the capacity needed
+     * @param used   the number of bytes in use
+     * @return a buffer with room for the needed bytes
+     * @throws IllegalStateException if the buffer would exceed 2 GB
+     */
+	private static ByteBuffer ensure (ByteBuffer buffer, long needed, long used) {
+		if (needed <= buffer.capacity()) {
+			return buffer;
+		}
+		if (needed > MAX_BUFFER_BYTES) {
+			throw new IllegalStateException("Off-heap buffer would exceed 2 GB");
+		}
+		ByteBuffer grown = allocate(Math.max(needed, Math.min(buffer.capacity() * 2L, MAX_BUFFER_BYTES)));
+		ByteBuffer source = buffer.duplicate();
+		source.clear().limit((int) used);
+		grown.put(source).clear();
+		return grown;
+	}
+	
+	/**
+     * A read-only view of one record. It holds only the record's position and
+     * CRN and reads each field from the current buffers when it is asked for.
+     * A view made before the latest removal checks that its position still holds
+     * its CRN before each read.
+     */
+	private class CourseView implements CourseDBRecord {
+		private final int row;
+		private final int crn;
+		private int viewGeneration;
+	
+		/**
+	     * Creates a view of a record.
+	     *
+	     * @param row the record number
+	     */
+		private CourseView (int row) {
+			this.row = row;
+			crn = records.getInt(row * RECORD_BYTES);
+			viewGeneration = generation;
+		}
+	
+		@Override
+		public String getID() {
+			return readString(records.getInt(record() + 8));
+		}
+	
+		@Override
+		public int getCRN() {
+			record();
+			return crn;
+		}
+	
+		@Override
+		public int getCredits() {
+			return records.getInt(record() + 4);
+		}
+	
+		@Override
+		public String getRoomNum() {
+			return readString(records.getInt(record() + 12));
+		}
+	
+		@Override
+		public String getInstructor() {
+			return readString(records.getInt(record() + 16));
+		}
+	
+		/**
+	     * Returns the text of a copy of the course, the same as
+	     * CourseDBElement.toString.
+	     *
+	     * @return a string representation of the course
+	     */
+		@Override
+		public String toString() {
+			return copy(record() / RECORD_BYTES).toString();
+		}
+	
+		/**
+	     * Returns the buffer offset of the record, after checking that the view
+	     * is not stale.
+	     *
+	     * @return the offset of the record
+	     * @throws IllegalStateException if the course was removed or moved
+	     */
+		private int record () {
+			int record = row * RECORD_BYTES;
+			if (viewGeneration != generation) {
+				if (row >= rows || records.getInt(record) != crn) {
+					throw new IllegalStateException("View of CRN " + crn + " is stale: the course was removed or moved");
+				}
+				viewGeneration = generation;
+			}
+			return record;
+		}
+	}
+}
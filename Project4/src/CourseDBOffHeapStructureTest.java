@@ -0,0 +1,136 @@
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This is the test file for the CourseDBOffHeapStructure
+ */
+public class CourseDBOffHeapStructureTest {
+	CourseDBOffHeapStructure offHeap;
+
+	@Before
+	public void setUp() throws Exception {
+		offHeap = new CourseDBOffHeapStructure(4);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		offHeap = null;
+	}
+
+	/**
+	 * Test adding, updating and getting courses past the initial buffer sizes
+	 */
+	@Test
+	public void testAddAndGet() throws IOException {
+		for (int crn = 10000; crn < 20000; crn++) {
+			offHeap.add(new CourseDBElement("CMSC" + (crn % 500), crn, 1 + crn % 4, "SC" + (crn % 300),
+					"Instructor " + crn));
+		}
+		offHeap.add(new CourseDBElement("CMSC204", 10500, 4, "SC450", "BillyBob Jones"));
+		assertEquals(10000, offHeap.size());
+		CourseDBElement course = offHeap.get(10500);
+		assertEquals("CMSC204", course.getID());
+		assertEquals(10500, course.getCRN());
+		assertEquals(4, course.getCredits());
+		assertEquals("SC450", course.getRoomNum());
+		assertEquals("BillyBob Jones", course.getInstructor());
+		assertEquals("Instructor 19999", offHeap.get(19999).getInstructor());
+		assertNull(offHeap.find(20000));
+		try {
+			offHeap.get(20000);
+			fail("Should have thrown an IOException");
+		} catch (IOException e) {
+			assertTrue("threw Exception successfuly for the missing CRN", true);
+		}
+	}
+
+	/**
+	 * Test that views read the current record and that get returns a copy
+	 */
+	@Test
+	public void testViews() throws IOException {
+		offHeap.add(new CourseDBElement("CMSC204", 30504, 4, "SC450", "Joey Bag-O-Donuts"));
+		offHeap.add(new CourseDBElement("CMSC203", 30503, 4, "SC450", null));
+		CourseDBRecord view = offHeap.view(30504);
+		CourseDBElement copy = offHeap.get(30504);
+		offHeap.add(new CourseDBElement("CMSC204", 30504, 3, "SC451", "Jill B. Who-Dunit"));
+		assertEquals(3, view.getCredits());
+		assertEquals("Jill B. Who-Dunit", view.getInstructor());
+		assertEquals(30504, view.getCRN());
+		assertEquals(4, copy.getCredits());
+		assertEquals("Joey Bag-O-Donuts", copy.getInstructor());
+		assertNull(offHeap.view(30503).getInstructor());
+		assertNull(offHeap.view(30505));
+		assertTrue(offHeap.get(30503).compareTo(offHeap.get(30504)) < 0);
+		assertEquals(offHeap.get(30504).toString(), view.toString());
+	}
+
+	/**
+	 * Test that views of a removed course and of the course moved into its
+	 * place throw instead of showing another course, while other views stay
+	 * valid
+	 */
+	@Test
+	public void testStaleViews() throws IOException {
+		for (int crn = 10000; crn < 10005; crn++) {
+			offHeap.add(new CourseDBElement("CMSC" + crn, crn, 4, "SC450", "Instructor " + crn));
+		}
+		CourseDBRecord removed = offHeap.view(10001);
+		CourseDBRecord moved = offHeap.view(10004);
+		CourseDBRecord kept = offHeap.view(10002);
+		assertEquals("CMSC10001", offHeap.remove(10001).getID());
+		try {
+			removed.getID();
+			fail("Should have thrown IllegalStateException");
+		} catch (IllegalStateException e) {
+			assertTrue("threw Exception successfuly for a view of a removed course", true);
+		}
+		try {
+			moved.getCredits();
+			fail("Should have thrown IllegalStateException");
+		} catch (IllegalStateException e) {
+			assertTrue("threw Exception successfuly for a view of a moved course", true);
+		}
+		assertEquals("Instructor 10002", kept.getInstructor());
+		assertEquals("CMSC10004", offHeap.view(10004).getID());
+		// The last record moved into the removed one's place
+		int[] expected = {10000, 10004, 10002, 10003};
+		int viewed = 0;
+		for (Iterator<CourseDBRecord> views = offHeap.views(); views.hasNext();) {
+			assertEquals(expected[viewed++], views.next().getCRN());
+		}
+		assertEquals(4, viewed);
+	}
+
+	/**
+	 * Test that showAll, iteration and paging follow insertion order
+	 */
+	@Test
+	public void testShowAllAndPage() {
+		ArrayList<String> expected = new ArrayList<>();
+		for (int crn = 99999; crn > 99000; crn -= 3) {
+			CourseDBElement course = new CourseDBElement("CMSC" + crn, crn, 2, "HU10" + (crn % 5), "\u00dcn\u00efc\u00f6d\u00e9 " + crn);
+			offHeap.add(course);
+			expected.add(course.toString());
+		}
+		assertEquals(expected, offHeap.showAll());
+		ArrayList<String> paged = new ArrayList<>();
+		long token = CourseDBPage.FIRST;
+		do {
+			CourseDBPage page = offHeap.page(token, 50);
+			for (CourseDBElement course : page.getCourses()) {
+				paged.add(course.toString());
+			}
+			token = page.getNextToken();
+		} while (token != CourseDBPage.END);
+		assertEquals(expected, paged);
+		assertEquals(expected.size(), offHeap.stream().count());
+	}
+}
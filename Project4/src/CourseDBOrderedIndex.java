@@ -0,0 +1,385 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * CourseDBOrderedIndex keeps courses sorted by CRN in a B+-tree so that a range
+ * of CRNs can be read in order without scanning every course. CRNs are stored in
+ * primitive int arrays: inner nodes hold separator keys and leaves hold the keys
+ * next to their courses, with each leaf linked to the next one. A range scan
+ * descends once to the first leaf and then walks the leaves in order.
+ *
+ * Removing a course keeps every node but the root at least about half full: a
+ * node that falls below MIN_KEYS borrows a key from a sibling, updating the
+ * separator between them, or merges with it, which drops the separator from
+ * the parent and may cascade up to the root. So the tree stays as shallow as
+ * its size needs and a range scan never walks empty leaves.
+ */
+public class CourseDBOrderedIndex {
+
+	static final int NODE_KEYS = 64;
+	// A node this small and a sibling that cannot lend merge into fewer than NODE_KEYS keys
+	static final int MIN_KEYS = NODE_KEYS / 2 - 1;
+
+	private Node root;
+	private int size;
+	private int splitKey;
+
+	/**
+     * Constructs an empty index.
+     */
+	public CourseDBOrderedIndex () {
+		root = new Leaf();
+	}
+
+	/**
+     * Adds a course, replacing the course with the same CRN if there is one.
+     *
+     * @param element the course
+     */
+	public void put(CourseDBElement element) {
+		Node sibling = root.put(element.getCRN(), element, this);
+		if (sibling != null) {
+			Inner parent = new Inner();
+			parent.keys[0] = splitKey;
+			parent.children[0] = root;
+			parent.children[1] = sibling;
+			parent.count = 1;
+			root = parent;
+		}
+	}
+
+	/**
+     * Removes the course with a CRN, if there is one.
+     *
+     * @param crn the CRN of the course to remove
+     * @return true if a course was removed
+     */
+	public boolean remove(int crn) {
+		if (!root.remove(crn, this)) {
+			return false;
+		}
+		if (root instanceof Inner && root.count == 0) {
+			root = ((Inner) root).children[0];
+		}
+		return true;
+	}
+
+	/**
+     * Returns the courses with CRNs from lo to hi, both included, in CRN order.
+     *
+     * @param lo the smallest CRN to return
+     * @param hi the largest CRN to return
+     * @return a new list of the courses in the range
+     */
+	public ArrayList<CourseDBElement> range(int lo, int hi) {
+		ArrayList<CourseDBElement> result = new ArrayList<>();
+		if (lo > hi) {
+			return result;
+		}
+		Node node = root;
+		while (node instanceof Inner) {
+			Inner inner = (Inner) node;
+			node = inner.children[inner.childFor(lo)];
+		}
+		for (Leaf leaf = (Leaf) node; leaf != null; leaf = leaf.next) {
+			for (int i = leaf.lowerBound(lo); i < leaf.count; i++) {
+				if (leaf.keys[i] > hi) {
+					return result;
+				}
+				result.add(leaf.values[i]);
+			}
+		}
+		return result;
+	}
+
+	/**
+     * Returns the number of courses in the index.
+     *
+     * @return the number of courses
+     */
+	public int size() {
+		return size;
+	}
+
+	/**
+     * Returns the number of levels of the tree, 1 when the root is a leaf.
+     *
+     * @return the height of the tree
+     */
+	int height() {
+		int height = 1;
+		for (Node node = root; node instanceof Inner; node = ((Inner) node).children[0]) {
+			height++;
+		}
+		return height;
+	}
+
+	/**
+	 * A node of the tree with its keys in sorted order.
+	 */
+	private abstract static class Node {
+		protected int[] keys = new int[NODE_KEYS];
+		protected int count;
+
+		/**
+	     * Inserts or replaces a course below this node.
+	     *
+	     * @param crn     the CRN of the course
+	     * @param element the course
+	     * @param index   the index whose size and split key are kept
+	     * @return the new right sibling if this node split, or null; the key
+	     *         separating it from this node is left in the index's split key
+	     */
+		protected abstract Node put(int crn, CourseDBElement element, CourseDBOrderedIndex index);
+
+		/**
+	     * Removes a course below this node. The caller rebalances this node if it
+	     * is left with fewer than MIN_KEYS keys.
+	     *
+	     * @param crn   the CRN of the course to remove
+	     * @param index the index whose size is kept
+	     * @return true if a course was removed
+	     */
+		protected abstract boolean remove(int crn, CourseDBOrderedIndex index);
+
+		/**
+	     * Returns the first position whose key is not smaller than a CRN.
+	     *
+	     * @param crn the CRN
+	     * @return the position, or count if every key is smaller
+	     */
+		protected int lowerBound(int crn) {
+			int low = 0;
+			int high = count;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (keys[mid] < crn) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+	}
+
+	/**
+	 * An inner node. Child i + 1 holds the CRNs from keys[i] up to keys[i + 1].
+	 */
+	private static class Inner extends Node {
+		private Node[] children = new Node[NODE_KEYS + 1];
+
+		/**
+	     * Returns the child whose CRNs include a CRN.
+	     *
+	     * @param crn the CRN
+	     * @return the position of the child
+	     */
+		private int childFor(int crn) {
+			int i = lowerBound(crn);
+			return i < count && keys[i] == crn ? i + 1 : i;
+		}
+
+		@Override
+		protected Node put(int crn, CourseDBElement element, CourseDBOrderedIndex index) {
+			int child = childFor(crn);
+			Node sibling = children[child].put(crn, element, index);
+			if (sibling == null) {
+				return null;
+			}
+			System.arraycopy(keys, child, keys, child + 1, count - child);
+			System.arraycopy(children, child + 1, children, child + 2, count - child);
+			keys[child] = index.splitKey;
+			children[child + 1] = sibling;
+			count++;
+			if (count < NODE_KEYS) {
+				return null;
+			}
+			// The middle key moves up; its right child becomes the sibling's first
+			Inner right = new Inner();
+			int middle = count / 2;
+			right.count = count - middle - 1;
+			System.arraycopy(keys, middle + 1, right.keys, 0, right.count);
+			System.arraycopy(children, middle + 1, right.children, 0, right.count + 1);
+			Arrays.fill(children, middle + 1, count + 1, null);
+			index.splitKey = keys[middle];
+			count = middle;
+			return right;
+		}
+
+		@Override
+		protected boolean remove(int crn, CourseDBOrderedIndex index) {
+			int child = childFor(crn);
+			if (!children[child].remove(crn, index)) {
+				return false;
+			}
+			if (children[child].count < MIN_KEYS) {
+				rebalance(child);
+			}
+			return true;
+		}
+
+		/**
+	     * Refills a child that fell below MIN_KEYS keys from a sibling that can
+	     * spare one, or merges it with a sibling.
+	     *
+	     * @param child the position of the child
+	     */
+		private void rebalance(int child) {
+			if (child > 0 && children[child - 1].count > MIN_KEYS) {
+				borrowFromLeft(child);
+			} else if (child < count && children[child + 1].count > MIN_KEYS) {
+				borrowFromRight(child);
+			} else if (child > 0) {
+				merge(child - 1);
+			} else {
+				merge(child);
+			}
+		}
+
+		/**
+	     * Moves the last key of a child's left sibling to the front of the child
+	     * and lowers the separator between them to match.
+	     *
+	     * @param child the position of the child
+	     */
+		private void borrowFromLeft(int child) {
+			Node left = children[child - 1];
+			Node right = children[child];
+			System.arraycopy(right.keys, 0, right.keys, 1, right.count);
+			if (right instanceof Leaf) {
+				Leaf leftLeaf = (Leaf) left;
+				Leaf rightLeaf = (Leaf) right;
+				System.arraycopy(rightLeaf.values, 0, rightLeaf.values, 1, right.count);
+				right.keys[0] = left.keys[left.count - 1];
+				rightLeaf.values[0] = leftLeaf.values[left.count - 1];
+				leftLeaf.values[left.count - 1] = null;
+				keys[child - 1] = right.keys[0];
+			} else {
+				Inner leftInner = (Inner) left;
+				Inner rightInner = (Inner) right;
+				// The separator comes down and the left sibling's last key goes up
+				System.arraycopy(rightInner.children, 0, rightInner.children, 1, right.count + 1);
+				right.keys[0] = keys[child - 1];
+				rightInner.children[0] = leftInner.children[left.count];
+				leftInner.children[left.count] = null;
+				keys[child - 1] = left.keys[left.count - 1];
+			}
+			left.count--;
+			right.count++;
+		}
+
+		/**
+	     * Moves the first key of a child's right sibling to the end of the child
+	     * and raises the separator between them to match.
+	     *
+	     * @param child the position of the child
+	     */
+		private void borrowFromRight(int child) {
+			Node left = children[child];
+			Node right = children[child + 1];
+			if (left instanceof Leaf) {
+				Leaf leftLeaf = (Leaf) left;
+				Leaf rightLeaf = (Leaf) right;
+				left.keys[left.count] = right.keys[0];
+				leftLeaf.values[left.count] = rightLeaf.values[0];
+				System.arraycopy(rightLeaf.values, 1, rightLeaf.values, 0, right.count - 1);
+				rightLeaf.values[right.count - 1] = null;
+				System.arraycopy(right.keys, 1, right.keys, 0, right.count - 1);
+				keys[child] = right.keys[0];
+			} else {
+				Inner leftInner = (Inner) left;
+				Inner rightInner = (Inner) right;
+				// The separator comes down and the right sibling's first key goes up
+				left.keys[left.count] = keys[child];
+				leftInner.children[left.count + 1] = rightInner.children[0];
+				keys[child] = right.keys[0];
+				System.arraycopy(right.keys, 1, right.keys, 0, right.count - 1);
+				System.arraycopy(rightInner.children, 1, rightInner.children, 0, right.count);
+				rightInner.children[right.count] = null;
+			}
+			left.count++;
+			right.count--;
+		}
+
+		/**
+	     * Merges a child with its right sibling and removes the separator between
+	     * them, with the sibling, from this node.
+	     *
+	     * @param child the position of the left child of the pair
+	     */
+		private void merge(int child) {
+			Node left = children[child];
+			Node right = children[child + 1];
+			if (left instanceof Leaf) {
+				Leaf leftLeaf = (Leaf) left;
+				Leaf rightLeaf = (Leaf) right;
+				System.arraycopy(right.keys, 0, left.keys, left.count, right.count);
+				System.arraycopy(rightLeaf.values, 0, leftLeaf.values, left.count, right.count);
+				left.count += right.count;
+				leftLeaf.next = rightLeaf.next;
+			} else {
+				Inner leftInner = (Inner) left;
+				Inner rightInner = (Inner) right;
+				// The separator comes down between the two halves
+				left.keys[left.count] = keys[child];
+				System.arraycopy(right.keys, 0, left.keys, left.count + 1, right.count);
+				System.arraycopy(rightInner.children, 0, leftInner.children, left.count + 1, right.count + 1);
+				left.count += right.count + 1;
+			}
+			System.arraycopy(keys, child + 1, keys, child, count - child - 1);
+			System.arraycopy(children, child + 2, children, child + 1, count - child - 1);
+			children[count--] = null;
+		}
+	}
+
+	/**
+	 * A leaf holding courses next to their CRNs.
+	 */
+	private static class Leaf extends Node {
+		private CourseDBElement[] values = new CourseDBElement[NODE_KEYS];
+		private Leaf next;
+
+		@Override
+		protected Node put(int crn, CourseDBElement element, CourseDBOrderedIndex index) {
+			int i = lowerBound(crn);
+			if (i < count && keys[i] == crn) {
+				values[i] = element;
+				return null;
+			}
+			System.arraycopy(keys, i, keys, i + 1, count - i);
+			System.arraycopy(values, i, values, i + 1, count - i);
+			keys[i] = crn;
+			values[i] = element;
+			count++;
+			index.size++;
+			if (count < NODE_KEYS) {
+				return null;
+			}
+			Leaf right = new Leaf();
+			int middle = count / 2;
+			right.count = count - middle;
+			System.arraycopy(keys, middle, right.keys, 0, right.count);
+			System.arraycopy(values, middle, right.values, 0, right.count);
+			Arrays.fill(values, middle, count, null);
+			count = middle;
+			right.next = next;
+			next = right;
+			index.splitKey = right.keys[0];
+			return right;
+		}
+
+		@Override
+		protected boolean remove(int crn, CourseDBOrderedIndex index) {
+			int i = lowerBound(crn);
+			if (i == count || keys[i] != crn) {
+				return false;
+			}
+			System.arraycopy(keys, i + 1, keys, i, count - i - 1);
+			System.arraycopy(values, i + 1, values, i, count - i - 1);
+			values[--count] = null;
+			index.size--;
+			return true;
+		}
+	}
+}
@@ -0,0 +1,124 @@
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+/**
+ * This is the test file for the CourseDBOrderedIndex
+ */
+public class CourseDBOrderedIndexTest {
+
+	/**
+	 * Test that ranges match a sorted map after many random inserts and updates
+	 */
+	@Test
+	public void testRange() {
+		CourseDBOrderedIndex index = new CourseDBOrderedIndex();
+		TreeMap<Integer, CourseDBElement> expected = new TreeMap<>();
+		Random random = new Random(204);
+		for (int i = 0; i < 20000; i++) {
+			int crn = random.nextInt(50000) - 10000;
+			CourseDBElement course = new CourseDBElement("CMSC" + i, crn, 3, "SC100", "Instructor " + i);
+			index.put(course);
+			expected.put(crn, course);
+		}
+		assertEquals(expected.size(), index.size());
+		for (int q = 0; q < 200; q++) {
+			int lo = random.nextInt(60000) - 15000;
+			int hi = lo + random.nextInt(3000);
+			ArrayList<CourseDBElement> actual = index.range(lo, hi);
+			Map<Integer, CourseDBElement> range = expected.subMap(lo, true, hi, true);
+			assertEquals(range.size(), actual.size());
+			int k = 0;
+			for (CourseDBElement course : range.values()) {
+				assertSame(course, actual.get(k++));
+			}
+		}
+		assertEquals(expected.size(), index.range(Integer.MIN_VALUE, Integer.MAX_VALUE).size());
+		assertTrue(index.range(5, 4).isEmpty());
+	}
+
+	/**
+	 * Test that a repeated CRN replaces the course instead of adding one
+	 */
+	@Test
+	public void testReplace() {
+		CourseDBOrderedIndex index = new CourseDBOrderedIndex();
+		index.put(new CourseDBElement("CMSC203", 30504, 4, "SC450", "Joey Bag-O-Donuts"));
+		index.put(new CourseDBElement("CMSC204", 30503, 4, "SC450", "Jill B. Who-Dunit"));
+		index.put(new CourseDBElement("CMSC203", 30504, 4, "SC451", "Joey Bag-O-Donuts"));
+		assertEquals(2, index.size());
+		assertEquals(30503, index.range(30503, 30504).get(0).getCRN());
+		assertEquals("SC451", index.range(30504, 30504).get(0).getRoomNum());
+	}
+
+	/**
+	 * Test that removed CRNs leave the ranges and can be added again
+	 */
+	@Test
+	public void testRemove() {
+		CourseDBOrderedIndex index = new CourseDBOrderedIndex();
+		TreeMap<Integer, CourseDBElement> expected = new TreeMap<>();
+		Random random = new Random(205);
+		for (int i = 0; i < 30000; i++) {
+			int crn = random.nextInt(5000);
+			if (random.nextBoolean()) {
+				assertEquals(expected.remove(crn) != null, index.remove(crn));
+			} else {
+				CourseDBElement course = new CourseDBElement("CMSC" + i, crn, 3, "SC100", "Instructor " + i);
+				index.put(course);
+				expected.put(crn, course);
+			}
+		}
+		assertEquals(expected.size(), index.size());
+		ArrayList<CourseDBElement> all = index.range(Integer.MIN_VALUE, Integer.MAX_VALUE);
+		assertEquals(new ArrayList<>(expected.values()), all);
+		assertFalse(index.remove(-1));
+	}
+
+	/**
+	 * Test that removing most courses shrinks the tree back, with every range
+	 * still right, and that removing all of them leaves a single leaf
+	 */
+	@Test
+	public void testRemoveShrinks() {
+		CourseDBOrderedIndex index = new CourseDBOrderedIndex();
+		TreeMap<Integer, CourseDBElement> expected = new TreeMap<>();
+		for (int crn = 0; crn < 100000; crn++) {
+			CourseDBElement course = new CourseDBElement("CMSC" + crn, crn, 3, "SC100", "Instructor");
+			index.put(course);
+			expected.put(crn, course);
+		}
+		assertEquals(4, index.height());
+		Random random = new Random(206);
+		// Remove whole blocks so that leaves empty out next to full ones
+		for (int block = 0; block < 100000; block += 1000) {
+			if (random.nextInt(10) > 0) {
+				for (int crn = block; crn < block + 1000; crn++) {
+					assertTrue(index.remove(crn));
+					expected.remove(crn);
+				}
+			}
+		}
+		assertEquals(expected.size(), index.size());
+		assertEquals(new ArrayList<>(expected.values()), index.range(Integer.MIN_VALUE, Integer.MAX_VALUE));
+		for (int q = 0; q < 200; q++) {
+			int lo = random.nextInt(100000);
+			int hi = lo + random.nextInt(5000);
+			assertEquals(new ArrayList<>(expected.subMap(lo, true, hi, true).values()), index.range(lo, hi));
+		}
+		assertTrue(index.height() < 4);
+		for (int crn : new ArrayList<>(expected.keySet())) {
+			assertTrue(index.remove(crn));
+		}
+		assertEquals(0, index.size());
+		assertEquals(1, index.height());
+		assertTrue(index.range(Integer.MIN_VALUE, Integer.MAX_VALUE).isEmpty());
+		index.put(new CourseDBElement("CMSC203", 30504, 4, "SC450", "Joey Bag-O-Donuts"));
+		assertEquals(1, index.range(30504, 30504).size());
+	}
+}
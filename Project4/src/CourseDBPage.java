@@ -0,0 +1,72 @@
+import java.util.ArrayList;
+
+/**
+ * CourseDBPage is one page of courses returned by a paged read of the database,
+ * together with the continuation token that fetches the next page. A token is
+ * only meaningful to the structure that issued it. Pages are read without a
+ * snapshot: courses added while paging may or may not appear, and a token should
+ * not be reused after the structure has grown.
+ */
+public class CourseDBPage {
+
+	public static final long FIRST = 0;
+	public static final long END = -1;
+
+	private ArrayList<CourseDBElement> courses;
+	private long nextToken;
+
+	/**
+     * Constructs a page.
+     *
+     * @param courses   the courses of the page
+     * @param nextToken the token of the next page, or END if this is the last
+     */
+	public CourseDBPage (ArrayList<CourseDBElement> courses, long nextToken) {
+		this.courses = courses;
+		this.nextToken = nextToken;
+	}
+
+	/**
+     * Returns the courses of the page.
+     *
+     * @return the courses
+     */
+	public ArrayList<CourseDBElement> getCourses() {
+		return courses;
+	}
+
+	/**
+     * Returns the token that fetches the next page.
+     *
+     * @return the next token, or END if this is the last page
+     */
+	public long getNextToken() {
+		return nextToken;
+	}
+
+	/**
+     * Checks whether there is a page after this one.
+     *
+     * @return true if getNextToken is not END
+     */
+	public boolean hasNext() {
+		return nextToken != END;
+	}
+
+	/**
+     * Checks the arguments of a paged read.
+     *
+     * @param token    the continuation token
+     * @param pageSize the largest number of courses to return
+     * @throws IllegalArgumentException if the token is negative or pageSize is
+     *                                  not positive
+     */
+	static void check(long token, int pageSize) {
+		if (token < 0) {
+			throw new IllegalArgumentException("Invalid page token: " + token);
+		}
+		if (pageSize < 1) {
+			throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+		}
+	}
+}
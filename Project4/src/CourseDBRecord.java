@@ -0,0 +1,43 @@
+/**
+ * CourseDBRecord is the read-only view of a course: its course ID, CRN, credit
+ * hours, room number and instructor. CourseDBElement is the heap implementation;
+ * a structure that stores courses elsewhere can hand out lighter views of its
+ * own without them passing for CourseDBElement values.
+ */
+public interface CourseDBRecord {
+
+	/**
+     * Returns the course ID.
+     *
+     * @return the course ID
+     */
+	public String getID();
+
+	/**
+     * Returns the CRN (Course Registration Number).
+     *
+     * @return the CRN
+     */
+	public int getCRN();
+
+	/**
+     * Returns the number of credits.
+     *
+     * @return the number of credits
+     */
+	public int getCredits();
+
+	/**
+     * Returns the room number.
+     *
+     * @return the room number
+     */
+	public String getRoomNum();
+
+	/**
+     * Returns the name of the instructor.
+     *
+     * @return the name of the instructor
+     */
+	public String getInstructor();
+}
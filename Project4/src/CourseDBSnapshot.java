@@ -0,0 +1,205 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * CourseDBSnapshot writes the courses of a structure to a compact binary file that
+ * CourseDBMappedStructure can serve lookups from without parsing it.
+ *
+ * The file starts with a header (magic number, version, number of courses and
+ * index size), followed by an open-addressing index of (CRN, record offset) int
+ * pairs, a Bloom filter over the CRNs and then the records. The filter section
+ * holds the hash count and the number of 64-bit words as ints, then the words,
+ * so a reader can reject most misses without probing the index. Version 1
+ * files have no filter section. A record holds the CRN and credits as ints and the
+ * course ID, room number and instructor as UTF-8 strings prefixed with their
+ * length as an unsigned short. All numbers are big-endian.
+ *
+ * A snapshot is written to a temporary file next to the target, forced to disk
+ * and renamed over the target, so a crash leaves either the old snapshot or the
+ * new one, never a torn file. A structure that maps the old file keeps reading
+ * it until it is reopened.
+ */
+public class CourseDBSnapshot {
+	
+	static final int MAGIC = 0x43444231; // "CDB1"
+	static final int VERSION = 2;
+	static final int HEADER_BYTES = 16;
+	static final int INDEX_ENTRY_BYTES = 8;
+	static final int FILTER_HEADER_BYTES = 8;
+	
+	private CourseDBSnapshot () {
+	}
+	
+	/**
+     * Writes every course of a structure to a snapshot file, replacing the file if
+     * it exists. The file is replaced atomically once the new contents are on
+     * disk.
+     *
+     * @param structure the courses to write
+     * @param file      the snapshot file
+     * @throws IOException if the file cannot be written or would exceed 2 GB
+     */
+	public static void write(CourseDBStructureInterface structure, File file) throws IOException {
+		write(structure, file, VERSION);
+	}
+	
+	/**
+     * Writes every course of a structure to a snapshot file in the layout of a
+     * given version, so that readers of older files can be tested.
+     *
+     * @param structure the courses to write
+     * @param file      the snapshot file
+     * @param version   1 for no Bloom filter, 2 for one
+     * @throws IOException if the file cannot be written or would exceed 2 GB
+     */
+	static void write(CourseDBStructureInterface structure, File file, int version) throws IOException {
+		ArrayList<CourseDBElement> courses = new ArrayList<>(structure.size());
+		for (CourseDBElement course : structure) {
+			courses.add(course);
+		}
+		int indexSize = indexSize(courses.size());
+		CourseDBBloomFilter filter = null;
+		long recordsStart = HEADER_BYTES + (long) indexSize * INDEX_ENTRY_BYTES;
+		if (version >= 2) {
+			filter = new CourseDBBloomFilter(courses.size(), CourseDBBloomFilter.DEFAULT_FALSE_POSITIVE_RATE);
+			for (CourseDBElement course : courses) {
+				filter.add(course.getCRN());
+			}
+			recordsStart += FILTER_HEADER_BYTES + (long) filter.getBits().length * Long.BYTES;
+		}
+
+		ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+		DataOutputStream records = new DataOutputStream(recordBytes);
+		int[] indexKeys = new int[indexSize];
+		int[] indexOffsets = new int[indexSize];
+		for (CourseDBElement course : courses) {
+			long offset = recordsStart + records.size();
+			if (offset > Integer.MAX_VALUE) {
+				throw new IOException("Snapshot would exceed 2 GB");
+			}
+			int slot = probe(indexKeys, indexOffsets, course.getCRN());
+			indexKeys[slot] = course.getCRN();
+			indexOffsets[slot] = (int) offset;
+			records.writeInt(course.getCRN());
+			records.writeInt(course.getCredits());
+			writeString(records, course.getID());
+			writeString(records, course.getRoomNum());
+			writeString(records, course.getInstructor());
+		}
+
+		File temporary = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp");
+		try {
+			try (FileOutputStream stream = new FileOutputStream(temporary);
+					DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+				out.writeInt(MAGIC);
+				out.writeInt(version);
+				out.writeInt(courses.size());
+				out.writeInt(indexSize);
+				for (int i = 0; i < indexSize; i++) {
+					out.writeInt(indexKeys[i]);
+					out.writeInt(indexOffsets[i]);
+				}
+				if (filter != null) {
+					out.writeInt(filter.getHashCount());
+					out.writeInt(filter.getBits().length);
+					for (long word : filter.getBits()) {
+						out.writeLong(word);
+					}
+				}
+				recordBytes.writeTo(out);
+				out.flush();
+				stream.getChannel().force(true);
+			}
+			try {
+				Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+						StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temporary.toPath());
+		}
+		forceDirectory(file.getAbsoluteFile().getParentFile());
+	}
+	
+	/**
+     * Forces a directory to disk so that a rename inside it survives a crash.
+     * Some platforms cannot open a directory for this, in which case the rename
+     * is left to the file system.
+     *
+     * @param directory the directory
+     */
+	private static void forceDirectory (File directory) {
+		try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException e) {
+			// Not supported here; the rename is still atomic
+		}
+	}
+	
+	/**
+     * Returns the index size for a number of courses: a power of two that keeps
+     * the index at most half full.
+     *
+     * @param courses the number of courses
+     * @return the number of index slots
+     */
+	static int indexSize(int courses) {
+		return Integer.highestOneBit(Math.max(courses, 4)) << 2;
+	}
+	
+	/**
+     * Returns the first index slot to probe for a CRN.
+     *
+     * @param crn       the CRN
+     * @param indexSize the number of index slots, a power of two
+     * @return the home slot
+     */
+	static int homeSlot(int crn, int indexSize) {
+		return CourseDBHasher.MURMUR.hash(crn) & (indexSize - 1);
+	}
+	
+	/**
+     * Probes the index being built for a free slot. An offset of 0 marks an empty
+     * slot, since no record starts inside the header.
+     *
+     * @param keys    the CRNs of the index
+     * @param offsets the record offsets of the index
+     * @param crn     the CRN to place
+     * @return the free slot
+     */
+	private static int probe (int[] keys, int[] offsets, int crn) {
+		int i = homeSlot(crn, keys.length);
+		while (offsets[i] != 0) {
+			i = (i + 1) & (keys.length - 1);
+		}
+		return i;
+	}
+	
+	/**
+     * Writes a string as its UTF-8 length followed by its UTF-8 bytes.
+     *
+     * @param out   the stream to write to
+     * @param value the string
+     * @throws IOException if the string is longer than 65535 bytes
+     */
+	private static void writeString (DataOutputStream out, String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length > 0xFFFF) {
+			throw new IOException("String too long for snapshot: " + bytes.length + " bytes");
+		}
+		out.writeShort(bytes.length);
+		out.write(bytes);
+	}
+}
@@ -1,18 +1,110 @@
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
 
 /**
  * CourseDBStructure is a class that implements the CourseDBStructureInterface and
  * represents the data structure for managing course elements. It has methods to add,
  * retrieve, and display course information.
- * 
+ *
+ * The table uses open addressing with linear probing. CRNs are kept in a primitive
+ * int array parallel to the array of course elements, so a lookup compares ints
+ * in one contiguous array instead of walking a chain of list nodes. When the
+ * number of courses exceeds the load factor the table grows to the next 4k+3
+ * prime at least twice its size and every course is rehashed.
+ *
+ * With incremental rehashing enabled, growing only allocates the new table. The
+ * old table is kept alongside it and every add or remove moves a bounded
+ * number of its slots over, so no single operation pays for the whole rehash.
+ * Until the move is finished, every CRN lives in exactly one of the two tables:
+ * a course leaving the old table, because it was moved, updated or removed,
+ * leaves a tombstone there so that the probes through its slot still work.
+ * Lookups, showAll, remove, page and the probe statistics consult both tables
+ * and never finish the move early.
+ *
+ * addAll sizes the table for the final count once instead of growing step by
+ * step. When the caller guarantees that the CRNs are new and distinct, each
+ * course goes into the first empty slot from its home without comparing keys.
+ *
+ * Secondary indexes on course ID, room and instructor can be turned on with
+ * setSecondaryIndexes, and an index ordered by CRN with setOrderedIndex. They are
+ * kept up to date by every add and update and let select and range answer in
+ * time proportional to the number of matches.
+ *
+ * An optional CourseDBBloomFilter over the stored CRNs, turned on with
+ * setBloomFilter, lets find reject most CRNs that are not stored without probing
+ * the table. It is a counting filter, so every add and remove keeps it exact
+ * without ever rebuilding it. When the table grows, an empty filter sized for
+ * the new table is filled as the rehash moves courses into it, and the old
+ * filter screens the old table until the rehash is done.
+ *
+ * In Robin Hood mode, chosen at construction, an insert takes the slot of any
+ * course that sits closer to its home slot than the new course would, and the
+ * displaced course moves on instead. This evens out probe distances when CRNs
+ * arrive in clustered blocks, and a lookup for a missing CRN stops as soon as
+ * it meets a course closer to home than itself. remove shifts the following
+ * courses back instead of leaving tombstones, in both modes.
+ *
+ * getStats takes a CourseDBStructureStats snapshot of the size, load, probe
+ * distances, resizes and lookup outcomes, and registerMBean publishes it over
+ * JMX. find counts hits and misses always; with setLookupTiming it also times
+ * one lookup in LOOKUP_TIMING_INTERVAL, which keeps the clock reads off most
+ * lookups. getStats only reads the structure, so a JMX client may call it
+ * while the owning thread works; the snapshot is then approximate.
+ *
+ * Reads never change the tables: get, find, showAll, iteration, page, select
+ * and range leave a rehash where it is, and the hit, miss and timing counts
+ * they keep are atomic. Any number of threads may therefore read at once. The structure is not otherwise thread-safe, so a write must not
+ * run at the same time as any other call; callers that mix them need a lock,
+ * such as a ReadWriteLock whose read lock covers the reads.
+ *
+ * CRNs are hashed by a CourseDBHasher. The default hashes the decimal digits of
+ * the CRN, which keeps the slot order of earlier versions without building a
+ * String for every lookup.
+ *
  * @author Mariia Honcharenko
  */
-public class CourseDBStructure implements CourseDBStructureInterface {
-
-	private LinkedList<CourseDBElement>[] hashTable;
-	private int hashTableSize;
+public class CourseDBStructure implements CourseDBStructureInterface, CourseDBStructureMXBean {
+	
+	public static final double DEFAULT_LOAD_FACTOR = 0.75;
+	public static final int DEFAULT_MIGRATION_STEP = 8;
+	public static final int LOOKUP_TIMING_INTERVAL = 16;
+	
+	// Marks a slot of the old table whose course has left it
+	private static final CourseDBElement REMOVED = new CourseDBElement();
+	
+	private Table table;
+	private Table oldTable;
+	private int migrateCursor;
+	private int count;
+	private double maxLoadFactor = DEFAULT_LOAD_FACTOR;
+	private boolean incrementalRehash;
+	private int migrationStep = DEFAULT_MIGRATION_STEP;
+	private CourseDBHasher hasher = CourseDBHasher.DECIMAL_STRING;
+	private boolean robinHood;
+	private CourseDBIndex idIndex;
+	private CourseDBIndex roomIndex;
+	private CourseDBIndex instructorIndex;
+	private CourseDBOrderedIndex orderedIndex;
+	private CourseDBBloomFilter bloomFilter;
+	private CourseDBBloomFilter oldBloomFilter;
+	private double bloomFalsePositiveRate;
+	private int initialTableSize;
+	private int estimatedSize;
+	private int resizeCount;
+	private final LongAdder hitCount = new LongAdder();
+	private final LongAdder missCount = new LongAdder();
+	private final AtomicInteger lookups = new AtomicInteger();
+	private volatile CourseDBLatencyHistogram lookupLatency;
 	
 	/**
      * Constructs a CourseDBStructure with the estimated size.
@@ -20,8 +112,55 @@ public class CourseDBStructure implements CourseDBStructureInterface {
      * @param estimSize the estimated size for the data structure
      */
 	public CourseDBStructure (int estimSize) {
-		int hashTableSize = findNextPrime(estimSize);
-		implementHashTable(hashTableSize);
+		this(estimSize, DEFAULT_LOAD_FACTOR);
+	}
+	
+	/**
+     * Constructs a CourseDBStructure with the estimated size and the load factor
+     * past which the table grows.
+     *
+     * @param estimSize     the estimated size for the data structure
+     * @param maxLoadFactor the load factor that triggers a resize, between 0 and 1
+     * @throws IllegalArgumentException if the load factor is not between 0 and 1
+     */
+	public CourseDBStructure (int estimSize, double maxLoadFactor) {
+		this(estimSize, maxLoadFactor, CourseDBHasher.DECIMAL_STRING);
+	}
+	
+	/**
+     * Constructs a CourseDBStructure with the estimated size, the load factor past
+     * which the table grows and the hash function for CRNs.
+     *
+     * @param estimSize     the estimated size for the data structure
+     * @param maxLoadFactor the load factor that triggers a resize, between 0 and 1
+     * @param hasher        the hash function for CRNs
+     * @throws IllegalArgumentException if the load factor is not between 0 and 1
+     */
+	public CourseDBStructure (int estimSize, double maxLoadFactor, CourseDBHasher hasher) {
+		this(estimSize, maxLoadFactor, hasher, false);
+	}
+	
+	/**
+     * Constructs a CourseDBStructure with the estimated size, the load factor past
+     * which the table grows, the hash function for CRNs and the probing scheme.
+     * The table starts at the first 4k+3 prime not smaller than estimSize / 1.5
+     * and grows once the load factor is crossed.
+     *
+     * @param estimSize     the estimated size for the data structure
+     * @param maxLoadFactor the load factor that triggers a resize, between 0 and 1
+     * @param hasher        the hash function for CRNs
+     * @param robinHood     true for Robin Hood probing, false for linear probing
+     * @throws IllegalArgumentException if the load factor is not between 0 and 1
+     */
+	public CourseDBStructure (int estimSize, double maxLoadFactor, CourseDBHasher hasher, boolean robinHood) {
+		if (!(maxLoadFactor > 0 && maxLoadFactor < 1)) {
+			throw new IllegalArgumentException("Load factor must be between 0 and 1: " + maxLoadFactor);
+		}
+		this.maxLoadFactor = maxLoadFactor;
+		this.hasher = hasher;
+		this.robinHood = robinHood;
+		estimatedSize = Math.max(estimSize, 1);
+		implementHashTable(nextPrimeAtLeast((int) (estimSize / 1.5)));
 	}
 	
 	/**
@@ -32,6 +171,21 @@ public class CourseDBStructure implements CourseDBStructureInterface {
      */
 	public CourseDBStructure (String testing, int hashTableSize) {
 		implementHashTable(hashTableSize);
+		estimatedSize = Math.max((int) (maxLoadFactor * table.size), 1);
+	}
+	
+	/**
+     * Constructs a CourseDBStructure for testing with a specific hash table size
+     * and probing scheme.
+     *
+     * @param testing       a testing parameter (not used for production)
+     * @param hashTableSize the size of the hash table
+     * @param robinHood     true for Robin Hood probing, false for linear probing
+     */
+	public CourseDBStructure (String testing, int hashTableSize, boolean robinHood) {
+		this.robinHood = robinHood;
+		implementHashTable(hashTableSize);
+		estimatedSize = Math.max((int) (maxLoadFactor * table.size), 1);
 	}
 	
 	/**
@@ -39,38 +193,93 @@ public class CourseDBStructure implements CourseDBStructureInterface {
      *
      * @param size the size of the hash table
      */
-	@SuppressWarnings("unchecked")
 	private void implementHashTable (int size) {
-		hashTableSize = size;
-		hashTable = new LinkedList[hashTableSize];
-		for (int i = 0; i < hashTableSize; i++) {
-			hashTable[i] = new LinkedList<>();
-		}
+		table = new Table(Math.max(size, 2), hasher, robinHood);
+		oldTable = null;
+		count = 0;
+		initialTableSize = table.size;
 	}
 	
 	/**
      * Adds a course element to the data structure. If a course with the same CRN
-     * exists, its information is updated.
+     * exists, it is replaced by the new element in a single reference write; the
+     * stored course is never modified in place.
      *
      * @param element the course element to add or update
      */
 	@Override
 	public void add(CourseDBElement element) {
-	    int i = getIndex(element.getCRN());
-	    LinkedList<CourseDBElement> bucket = hashTable[i];
-
-	    for (CourseDBElement course : bucket) {
-	        if (course.getCRN() == element.getCRN()) {
-	            course.setID(element.getID());
-	            course.setCredits(element.getCredits());
-	            course.setInstructor(element.getInstructor());
-	            course.setRoomNum(element.getRoomNum());
+	    migrate();
+	    int crn = element.getCRN();
+	    int i = table.probe(crn);
+
+	    if (table.holds(i, crn)) {
+	        reindex(table.values[i], element);
+	        table.values[i] = element;
+	        return;
+	    }
+
+	    if (oldTable != null) {
+	        int j = oldTable.probe(crn);
+	        if (oldTable.holds(j, crn)) {
+	            // Already counted; the course moves to the new table with its update
+	            reindex(oldTable.values[j], element);
+	            oldTable.tombstone(j);
+	            table.put(i, crn, element);
+	            if (bloomFilter != null) {
+	                oldBloomFilter.remove(crn);
+	                bloomFilter.add(crn);
+	            }
 	            return;
 	        }
 	    }
-	    bucket.add(element);
-	}
 
+	    // Keep at least one empty slot so that a probe for a missing CRN terminates
+	    if (table.count + 1 >= table.size) {
+	        grow();
+	        add(element);
+	        return;
+	    }
+	    table.put(i, crn, element);
+	    reindex(null, element);
+	    if (bloomFilter != null) {
+	        bloomFilter.add(crn);
+	    }
+	    count++;
+	    if (count > maxLoadFactor * table.size) {
+	        grow();
+	    }
+	}
+	
+	/**
+     * Adds every course of a collection. The table is first grown once to hold
+     * all of them. With uniqueCRNs each course is then put in without comparing
+     * CRNs: in the first empty slot from its home, or in Robin Hood mode where
+     * its probe distance places it.
+     *
+     * @param elements   the courses to add
+     * @param uniqueCRNs true if every CRN is new and appears once
+     */
+	@Override
+	public void addAll(Collection<? extends CourseDBElement> elements, boolean uniqueCRNs) {
+		ensureCapacity(count + elements.size());
+		if (!uniqueCRNs) {
+			for (CourseDBElement element : elements) {
+				add(element);
+			}
+			return;
+		}
+		finishMigration();
+		for (CourseDBElement element : elements) {
+			table.putNew(element.getCRN(), element);
+			reindex(null, element);
+			if (bloomFilter != null) {
+				bloomFilter.add(element.getCRN());
+			}
+		}
+		count += elements.size();
+	}
+	
 	/**
      * Finds a course element by its CRN (Course Registration Number).
      *
@@ -80,32 +289,233 @@ public class CourseDBStructure implements CourseDBStructureInterface {
      */
 	@Override
 	public CourseDBElement get(int crn) throws IOException {
-		int i = getIndex(crn);
-		LinkedList<CourseDBElement> bucket = hashTable[i];
-		for (CourseDBElement element : bucket) {
-			if (element.getCRN() == crn) {
-				return element;
+		CourseDBElement element = find(crn);
+		if (element == null) {
+			throw new IOException("Course with CRN " + crn + " is not found");
+		}
+		return element;
+	}
+	
+	/**
+     * Finds a course element by its CRN without throwing on a miss. With the
+     * Bloom filter on, a CRN it rejects is reported missing without probing, and
+     * a miss it let through is recorded as a false positive. With lookup timing
+     * on, every LOOKUP_TIMING_INTERVAL-th call is timed.
+     *
+     * @param crn the CRN of the course to retrieve
+     * @return the course element with the specified CRN, or null if not found
+     */
+	@Override
+	public CourseDBElement find(int crn) {
+		CourseDBLatencyHistogram latency = lookupLatency;
+		if (latency == null || (lookups.incrementAndGet() & (LOOKUP_TIMING_INTERVAL - 1)) != 0) {
+			return lookup(crn);
+		}
+		long start = System.nanoTime();
+		CourseDBElement element = lookup(crn);
+		latency.record(System.nanoTime() - start);
+		return element;
+	}
+	
+	/**
+     * Finds a course element by its CRN and counts the hit or miss. During a
+     * rehash each table is probed only if its own filter lets the CRN through,
+     * and the outcome is counted once, on the current filter. The rehash is not
+     * advanced, so a lookup only reads the tables.
+     *
+     * @param crn the CRN of the course to retrieve
+     * @return the course element with the specified CRN, or null if not found
+     */
+	private CourseDBElement lookup (int crn) {
+		CourseDBElement element = null;
+		boolean probed = false;
+		if (bloomFilter == null || bloomFilter.test(crn)) {
+			probed = true;
+			element = table.lookup(crn);
+		}
+		if (element == null && oldTable != null && (oldBloomFilter == null || oldBloomFilter.test(crn))) {
+			probed = true;
+			element = oldTable.lookup(crn);
+		}
+		if (element != null) {
+			hitCount.increment();
+			return element;
+		}
+		missCount.increment();
+		if (bloomFilter != null) {
+			if (probed) {
+				bloomFilter.recordFalsePositive();
+			} else {
+				bloomFilter.recordRejection();
 			}
 		}
-		throw new IOException("Course with CRN " + crn + " is not found");
+		return null;
 	}
-
+	
+	/**
+     * Returns the courses that match every given field; a null field matches any
+     * value. With secondary indexes the candidates come from the index of the
+     * given field with the fewest matches and only they are checked against the
+     * other fields; without them every course is scanned.
+     *
+     * @param id         the course ID to match, or null
+     * @param roomNum    the room number to match, or null
+     * @param instructor the instructor to match, or null
+     * @return a new list of the matching courses
+     */
+	@Override
+	public ArrayList<CourseDBElement> select(String id, String roomNum, String instructor) {
+		if (idIndex == null || (id == null && roomNum == null && instructor == null)) {
+			return CourseDBStructureInterface.super.select(id, roomNum, instructor);
+		}
+		CourseDBIndex best = null;
+		String bestValue = null;
+		int fewest = Integer.MAX_VALUE;
+		CourseDBIndex[] indexes = {idIndex, roomIndex, instructorIndex};
+		String[] values = {id, roomNum, instructor};
+		for (int k = 0; k < indexes.length; k++) {
+			if (values[k] != null && indexes[k].count(values[k]) < fewest) {
+				best = indexes[k];
+				bestValue = values[k];
+				fewest = best.count(bestValue);
+			}
+		}
+		ArrayList<CourseDBElement> result = best.find(bestValue);
+		result.removeIf(element -> (id != null && !id.equals(element.getID()))
+				|| (roomNum != null && !roomNum.equals(element.getRoomNum()))
+				|| (instructor != null && !instructor.equals(element.getInstructor())));
+		return result;
+	}
+	
+	/**
+     * Returns the courses with CRNs from lo to hi in CRN order. With the ordered
+     * index the range is read from it; without it every course is scanned and
+     * the matches are sorted.
+     *
+     * @param lo the smallest CRN to return
+     * @param hi the largest CRN to return
+     * @return a new list of the courses in the range
+     */
+	@Override
+	public ArrayList<CourseDBElement> range(int lo, int hi) {
+		if (orderedIndex == null) {
+			return CourseDBStructureInterface.super.range(lo, hi);
+		}
+		return orderedIndex.range(lo, hi);
+	}
+	
 	/**
-     * Returns an ArrayList of string representations of all courses in the data structure.
+     * Returns an ArrayList of string representations of all courses in the data
+     * structure, in the order of iterator.
      *
      * @return an ArrayList of string representations of courses
      */
 	@Override
 	public ArrayList<String> showAll() {
-		ArrayList<String> courses = new ArrayList<>();
-		for (LinkedList<CourseDBElement> bucket : hashTable) {
-			for (CourseDBElement element : bucket) {
-				courses.add(element.toString());
-			}
+		ArrayList<String> courses = new ArrayList<>(count);
+		for (CourseDBElement element : this) {
+			courses.add(element.toString());
 		}
 		return courses;
 	}
-
+	
+	/**
+     * Returns an iterator over the courses in slot order, those of the old table
+     * that have not been moved yet first. Adding courses while iterating is not
+     * supported.
+     *
+     * @return an iterator over the courses
+     */
+	@Override
+	public Iterator<CourseDBElement> iterator() {
+		Stream<CourseDBElement> courses = Arrays.stream(table.values);
+		if (oldTable != null) {
+			courses = Stream.concat(Arrays.stream(oldTable.values, migrateCursor, oldTable.size), courses);
+		}
+		return courses.filter(element -> element != null && element != REMOVED).iterator();
+	}
+	
+	/**
+     * Returns up to pageSize courses in the order of iterator, starting at the
+     * slot given by the token. During a rehash the slots of the old table are
+     * numbered before those of the current one, and the slots the rehash has
+     * already emptied are skipped at once, so a page never scans the sparse
+     * start of a table that is still filling: both regions it walks are at
+     * least half as full as the load factor allows. A course the rehash moves
+     * while a caller is paging can be returned twice but is never skipped. The
+     * next token is the slot after the last course returned, so fetching any
+     * page costs time in the page's size only. Tokens are invalidated when the
+     * table grows or a rehash finishes.
+     *
+     * @param token    CourseDBPage.FIRST or the next token of the previous page
+     * @param pageSize the largest number of courses to return
+     * @return the page
+     * @throws IllegalArgumentException if the token is negative or pageSize is
+     *                                  not positive
+     */
+	@Override
+	public CourseDBPage page(long token, int pageSize) {
+		CourseDBPage.check(token, pageSize);
+		int end = table.size + (oldTable == null ? 0 : oldTable.size);
+		ArrayList<CourseDBElement> courses = new ArrayList<>(Math.min(pageSize, count));
+		int i = (int) Math.min(token, end);
+		if (oldTable != null && i < migrateCursor) {
+			i = migrateCursor;
+		}
+		for (; i < end && courses.size() < pageSize; i++) {
+			CourseDBElement element = slot(i);
+			if (element != null) {
+				courses.add(element);
+			}
+		}
+		while (i < end && slot(i) == null) {
+			i++;
+		}
+		return new CourseDBPage(courses, i < end ? i : CourseDBPage.END);
+	}
+	
+	/**
+     * Removes the course with a CRN from whichever table holds it. In the
+     * current table the courses after it in its run are shifted back so that no
+     * tombstone is left and later probes stay short; in the old table, which is
+     * dropped once the rehash is done, its slot becomes a tombstone. The CRN is
+     * also removed from the Bloom filter of that table.
+     *
+     * @param crn the CRN of the course to remove
+     * @return the course that was removed, or null if there was none
+     */
+	@Override
+	public CourseDBElement remove(int crn) {
+		migrate();
+		CourseDBElement element;
+		int i = table.probe(crn);
+		if (table.holds(i, crn)) {
+			element = table.values[i];
+			table.delete(i);
+			if (bloomFilter != null) {
+				bloomFilter.remove(crn);
+			}
+		} else if (oldTable != null && oldTable.holds(i = oldTable.probe(crn), crn)) {
+			element = oldTable.values[i];
+			oldTable.tombstone(i);
+			if (oldBloomFilter != null) {
+				oldBloomFilter.remove(crn);
+			}
+		} else {
+			return null;
+		}
+		count--;
+		if (orderedIndex != null) {
+			orderedIndex.remove(crn);
+		}
+		if (idIndex != null) {
+			idIndex.remove(element);
+			roomIndex.remove(element);
+			instructorIndex.remove(element);
+		}
+		return element;
+	}
+	
 	/**
      * Returns the size of the hash table.
      *
@@ -113,17 +523,338 @@ public class CourseDBStructure implements CourseDBStructureInterface {
      */
 	@Override
 	public int getTableSize() {
-		return hashTableSize;
+		return table.size;
+	}
+	
+	/**
+     * Returns the number of courses in the data structure.
+     *
+     * @return the number of courses
+     */
+	@Override
+	public int size() {
+		return count;
+	}
+	
+	/**
+     * Returns the current load factor, the number of courses divided by the size
+     * of the hash table.
+     *
+     * @return the current load factor
+     */
+	public double getLoadFactor() {
+		return (double) count / table.size;
+	}
+	
+	/**
+     * Returns the longest probe distance of any course, the number of slots
+     * between its home slot and the slot it is stored in. A lookup of a stored
+     * course visits at most one more slot than this. During a rehash the courses
+     * not yet moved count at their distance in the old table.
+     *
+     * @return the longest probe distance, 0 if the structure is empty
+     */
+	public int getMaxProbeDistance() {
+		return Math.max(probeHistogram().length - 1, 0);
+	}
+	
+	/**
+     * Returns the mean probe distance of the courses.
+     *
+     * @return the mean probe distance, 0 if the structure is empty
+     */
+	public double getMeanProbeDistance() {
+		long[] histogram = probeHistogram();
+		long courses = 0;
+		long total = 0;
+		for (int distance = 0; distance < histogram.length; distance++) {
+			courses += histogram[distance];
+			total += distance * histogram[distance];
+		}
+		return courses == 0 ? 0 : (double) total / courses;
+	}
+	
+	/**
+     * Returns a snapshot of the metrics of the structure. The probe histogram is
+     * kept up to date by every change to the tables, so a poll costs time in the
+     * longest probe distance, not in the size of the table.
+     *
+     * @return the metrics
+     */
+	@Override
+	public CourseDBStructureStats getStats() {
+		return new CourseDBStructureStats(count, table.size, initialTableSize, estimatedSize, maxLoadFactor,
+				probeHistogram(), resizeCount, hitCount.sum(), missCount.sum(), lookupLatency);
+	}
+	
+	/**
+     * Resets the hit and miss counts and the lookup times. The resize count is
+     * kept.
+     */
+	@Override
+	public void resetLookupStats() {
+		hitCount.reset();
+		missCount.reset();
+		CourseDBLatencyHistogram latency = lookupLatency;
+		if (latency != null) {
+			latency.reset();
+		}
+	}
+	
+	/**
+     * Turns the timing of lookups on or off. When on, one find in
+     * LOOKUP_TIMING_INTERVAL is timed and its time goes into the percentiles of
+     * getStats. Turning it off drops the times recorded so far.
+     *
+     * @param enabled true to time lookups
+     */
+	public void setLookupTiming(boolean enabled) {
+		if (!enabled) {
+			lookupLatency = null;
+		} else if (lookupLatency == null) {
+			lookupLatency = new CourseDBLatencyHistogram();
+		}
+	}
+	
+	/**
+     * Returns whether lookups are timed.
+     *
+     * @return true if setLookupTiming turned timing on
+     */
+	public boolean isLookupTiming() {
+		return lookupLatency != null;
+	}
+	
+	/**
+     * Registers the structure with the platform MBean server under the object
+     * name CourseDB:type=CourseDBStructure,name=&lt;name&gt;. It stays registered
+     * until that name is unregistered from the same server.
+     *
+     * @param name the name that tells this structure apart from others
+     * @return the object name it was registered under
+     * @throws JMException if the name is taken or the structure cannot be
+     *                     registered
+     */
+	public ObjectName registerMBean(String name) throws JMException {
+		ObjectName objectName = new ObjectName("CourseDB:type=CourseDBStructure,name=" + ObjectName.quote(name));
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+		return objectName;
+	}
+	
+	/**
+     * Returns whether the table uses Robin Hood probing.
+     *
+     * @return true in Robin Hood mode, false with linear probing
+     */
+	public boolean isRobinHood() {
+		return robinHood;
 	}
 	
 	/**
-     * Finds the next prime number greater than or equal to the given number.
+     * Returns the load factor past which the hash table grows.
      *
-     * @param num the number to find the next prime for
-     * @return the next prime number
+     * @return the maximum load factor
      */
-	private int findNextPrime (int num) {
-		int possibleNum = (int) (num / 1.5);
+	public double getMaxLoadFactor() {
+		return maxLoadFactor;
+	}
+	
+	/**
+     * Grows the hash table, if needed, so that it holds the given number of
+     * courses without exceeding the load factor. Courses are rehashed at once.
+     *
+     * @param courses the number of courses to make room for
+     */
+	public void ensureCapacity(int courses) {
+		if (courses > maxLoadFactor * table.size) {
+			resize(nextPrimeAtLeast(Math.max(table.size * 2, (int) Math.ceil(courses / maxLoadFactor) + 1)));
+			finishMigration();
+		}
+	}
+	
+	/**
+     * Turns incremental rehashing on or off. Turning it off finishes any rehash
+     * that is in progress.
+     *
+     * @param enabled true to spread rehashing over later operations
+     */
+	public void setIncrementalRehash(boolean enabled) {
+		incrementalRehash = enabled;
+		if (!enabled) {
+			finishMigration();
+		}
+	}
+	
+	/**
+     * Sets how many slots of the old table each operation moves while an
+     * incremental rehash is in progress.
+     *
+     * @param slots the number of slots to move per operation, at least 2
+     * @throws IllegalArgumentException if slots is less than 2
+     */
+	public void setMigrationStep(int slots) {
+		// Two slots per operation always finish before the new table fills up
+		if (slots < 2) {
+			throw new IllegalArgumentException("Migration step must be at least 2: " + slots);
+		}
+		migrationStep = slots;
+	}
+	
+	/**
+     * Turns the secondary indexes on course ID, room and instructor on or off.
+     * Turning them on indexes every course already stored.
+     *
+     * @param enabled true to maintain the indexes on every add and update
+     */
+	public void setSecondaryIndexes(boolean enabled) {
+		if (!enabled) {
+			idIndex = null;
+			roomIndex = null;
+			instructorIndex = null;
+		} else if (idIndex == null) {
+			idIndex = new CourseDBIndex(CourseDBElement::getID);
+			roomIndex = new CourseDBIndex(CourseDBElement::getRoomNum);
+			instructorIndex = new CourseDBIndex(CourseDBElement::getInstructor);
+			for (CourseDBElement element : this) {
+				reindex(null, element);
+			}
+		}
+	}
+	
+	/**
+     * Returns whether secondary indexes are maintained.
+     *
+     * @return true if select is answered from indexes
+     */
+	public boolean hasSecondaryIndexes() {
+		return idIndex != null;
+	}
+	
+	/**
+     * Turns the index ordered by CRN on or off. Turning it on indexes every
+     * course already stored.
+     *
+     * @param enabled true to maintain the ordered index on every add and update
+     */
+	public void setOrderedIndex(boolean enabled) {
+		if (!enabled) {
+			orderedIndex = null;
+		} else if (orderedIndex == null) {
+			orderedIndex = new CourseDBOrderedIndex();
+			for (CourseDBElement element : this) {
+				orderedIndex.put(element);
+			}
+		}
+	}
+	
+	/**
+     * Returns whether the index ordered by CRN is maintained.
+     *
+     * @return true if range is answered from the ordered index
+     */
+	public boolean hasOrderedIndex() {
+		return orderedIndex != null;
+	}
+	
+	/**
+     * Turns the Bloom filter over CRNs on with the default false-positive rate,
+     * or off.
+     *
+     * @param enabled true to screen lookups with a Bloom filter
+     */
+	public void setBloomFilter(boolean enabled) {
+		if (!enabled) {
+			bloomFilter = null;
+			oldBloomFilter = null;
+		} else if (bloomFilter == null) {
+			setBloomFilter(CourseDBBloomFilter.DEFAULT_FALSE_POSITIVE_RATE);
+		}
+	}
+	
+	/**
+     * Turns the Bloom filter over CRNs on with the given false-positive rate.
+     * The filter is sized for as many courses as the table holds before it
+     * grows and filled with every course already stored, which finishes a
+     * rehash in progress first.
+     *
+     * @param falsePositiveRate the false-positive rate wanted, between 0 and 1
+     * @throws IllegalArgumentException if the rate is not between 0 and 1
+     */
+	public void setBloomFilter(double falsePositiveRate) {
+		if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+			throw new IllegalArgumentException("False-positive rate must be between 0 and 1: " + falsePositiveRate);
+		}
+		finishMigration();
+		bloomFalsePositiveRate = falsePositiveRate;
+		bloomFilter = newBloomFilter();
+		for (int i = 0; i < table.size; i++) {
+			if (table.values[i] != null) {
+				bloomFilter.add(table.keys[i]);
+			}
+		}
+	}
+	
+	/**
+     * Returns the Bloom filter over CRNs, whose counters give the false-positive
+     * rate seen by find so far.
+     *
+     * @return the Bloom filter, or null if it is off
+     */
+	public CourseDBBloomFilter getBloomFilter() {
+		return bloomFilter;
+	}
+	
+	/**
+     * Returns whether an incremental rehash is in progress.
+     *
+     * @return true if an old table is still being moved
+     */
+	public boolean isRehashing() {
+		return oldTable != null;
+	}
+	
+	/**
+     * Returns the hash function used for CRNs.
+     *
+     * @return the hash function
+     */
+	public CourseDBHasher getHasher() {
+		return hasher;
+	}
+	
+	/**
+     * Updates the secondary and ordered indexes, if any, for a course that was
+     * added or that replaced another.
+     *
+     * @param old     the course that was replaced, or null for a new course
+     * @param element the course now stored
+     */
+	private void reindex (CourseDBElement old, CourseDBElement element) {
+		if (orderedIndex != null) {
+			orderedIndex.put(element);
+		}
+		if (idIndex == null) {
+			return;
+		}
+		if (old == null) {
+			idIndex.add(element);
+			roomIndex.add(element);
+			instructorIndex.add(element);
+		} else {
+			idIndex.replace(old, element);
+			roomIndex.replace(old, element);
+			instructorIndex.replace(old, element);
+		}
+	}
+	
+	/**
+     * Finds the smallest 4k+3 prime that is greater than or equal to the given number.
+     *
+     * @param num the lower bound
+     * @return the first 4k+3 prime not smaller than num
+     */
+	private int nextPrimeAtLeast (int num) {
+		int possibleNum = num;
 	    while (true) {
 	        if (isPrime(possibleNum)) {
 	            return possibleNum;
@@ -139,27 +870,397 @@ public class CourseDBStructure implements CourseDBStructureInterface {
      * @return true if the number is prime, false otherwise
      */
 	private boolean isPrime (int num) {
-		
+
 		if (num <= 1 || num % 4 != 3) {
 	        return false;
 	    }
-	    
+
 	    for (int i = 2; i <= Math.sqrt(num); i++) {
 	        if (num % i == 0) {
 	            return false;
 	        }
 	    }
-	    
+
 	    return true;
 	}
 	
 	/**
-     * Calculates the hash index for a given CRN.
+     * Grows the hash table to the next 4k+3 prime at least twice its size. In
+     * incremental mode the courses are moved by later operations, otherwise
+     * they are all moved now.
+     */
+	private void grow () {
+		resize(nextPrimeAtLeast(table.size * 2));
+		if (!incrementalRehash) {
+			finishMigration();
+		}
+	}
+	
+	/**
+     * Replaces the hash table by an empty one of the given size and keeps the
+     * current one as the old table to migrate from. The Bloom filter is likewise
+     * replaced by an empty one that keeps its counters, and the old filter
+     * screens the old table until the rehash is done.
+     *
+     * @param size the number of slots of the new table
+     */
+	private void resize (int size) {
+		finishMigration();
+		resizeCount++;
+		oldTable = table;
+		migrateCursor = 0;
+		table = new Table(size, hasher, robinHood);
+		if (bloomFilter != null) {
+			oldBloomFilter = bloomFilter;
+			bloomFilter = newBloomFilter();
+			bloomFilter.addCounts(oldBloomFilter);
+		}
+	}
+	
+	/**
+     * Creates an empty counting Bloom filter sized for as many courses as the
+     * current table holds before it grows.
+     *
+     * @return the filter
+     */
+	private CourseDBBloomFilter newBloomFilter () {
+		return new CourseDBBloomFilter((int) (maxLoadFactor * table.size) + 1, bloomFalsePositiveRate, true);
+	}
+	
+	/**
+     * Adds up the probe histograms the tables keep. Courses still in the old
+     * table count at their distance there.
+     *
+     * @return the histogram, indexed by probe distance and as long as the
+     *         longest distance plus one
+     */
+	private long[] probeHistogram () {
+		long[] histogram = table.probeCounts.clone();
+		if (oldTable != null) {
+			if (oldTable.probeCounts.length > histogram.length) {
+				histogram = Arrays.copyOf(histogram, oldTable.probeCounts.length);
+			}
+			for (int distance = 0; distance < oldTable.probeCounts.length; distance++) {
+				histogram[distance] += oldTable.probeCounts[distance];
+			}
+		}
+		int longest = histogram.length - 1;
+		while (longest >= 0 && histogram[longest] == 0) {
+			longest--;
+		}
+		return Arrays.copyOf(histogram, longest + 1);
+	}
+	
+	/**
+     * Returns the course in a slot numbered as by page: the slots of the old
+     * table, if a rehash is under way, and then those of the current table.
+     *
+     * @param i the slot number
+     * @return the course, or null if the slot is empty or a tombstone
+     */
+	private CourseDBElement slot (int i) {
+		CourseDBElement element;
+		if (oldTable == null) {
+			element = table.values[i];
+		} else {
+			element = i < oldTable.size ? oldTable.values[i] : table.values[i - oldTable.size];
+		}
+		return element == REMOVED ? null : element;
+	}
+	
+	/**
+     * Moves up to one migration step of slots from the old table.
+     */
+	private void migrate () {
+		if (oldTable != null) {
+			migrateSlots(migrationStep);
+		}
+	}
+	
+	/**
+     * Moves every remaining slot of the old table.
+     */
+	private void finishMigration () {
+		if (oldTable != null) {
+			migrateSlots(oldTable.size - migrateCursor);
+		}
+	}
+	
+	/**
+     * Moves the courses in the next slots of the old table into the new table,
+     * and their CRNs into the new Bloom filter. No CRN is in both tables, so each
+     * goes in without comparing keys. A moved slot becomes a tombstone so that
+     * the probes through it stay intact, and the old table and filter are
+     * dropped once every slot has been visited.
      *
-     * @param crn the Course Registration Number (CRN)
-     * @return the hash index for the CRN
+     * @param slots the number of slots to visit
      */
-	private int getIndex (int crn) {
-		return Math.abs(Integer.toString(crn).hashCode()) % hashTableSize;
+	private void migrateSlots (int slots) {
+		int end = Math.min(oldTable.size, migrateCursor + slots);
+		for (; migrateCursor < end; migrateCursor++) {
+			CourseDBElement element = oldTable.values[migrateCursor];
+			if (element != null && element != REMOVED) {
+				table.putNew(oldTable.keys[migrateCursor], element);
+				oldTable.tombstone(migrateCursor);
+				if (bloomFilter != null) {
+					bloomFilter.add(oldTable.keys[migrateCursor]);
+				}
+			}
+		}
+		if (migrateCursor == oldTable.size) {
+			oldTable = null;
+			oldBloomFilter = null;
+		}
+	}
+	
+	/**
+     * An open-addressing hash table with CRNs in an int array parallel to the
+     * array of course elements. A slot is in use when its element is not null.
+     * Probing is linear, and in Robin Hood mode the probe distance of each slot
+     * is kept in a third array to decide which course gives way. The number of
+     * courses at each probe distance is kept up to date as courses are put,
+     * moved and deleted.
+     */
+	private static class Table {
+		private final int[] keys;
+		private final CourseDBElement[] values;
+		private final int[] distances;
+		private final int size;
+		private final CourseDBHasher hasher;
+		private int count;
+		private long[] probeCounts = new long[8];
+
+		/**
+	     * Creates an empty table.
+	     *
+	     * @param size      the number of slots
+	     * @param hasher    the hash function for CRNs
+	     * @param robinHood true to use Robin Hood probing
+	     */
+		private Table (int size, CourseDBHasher hasher, boolean robinHood) {
+			this.size = size;
+			this.hasher = hasher;
+			keys = new int[size];
+			values = new CourseDBElement[size];
+			distances = robinHood ? new int[size] : null;
+		}
+
+		/**
+	     * Probes for a CRN. In Robin Hood mode the probe stops at the first course
+	     * closer to its home than the CRN would be, since the CRN cannot lie
+	     * beyond it.
+	     *
+	     * @param crn the CRN to look for
+	     * @return the slot holding the CRN, or otherwise the slot where it would
+	     *         be put, which in Robin Hood mode may hold a course to displace
+	     */
+		private int probe (int crn) {
+			int i = getIndex(crn);
+			if (distances == null) {
+				while (values[i] != null && keys[i] != crn) {
+					i = next(i);
+				}
+				return i;
+			}
+			for (int distance = 0; values[i] != null && keys[i] != crn; distance++) {
+				if (distances[i] < distance) {
+					return i;
+				}
+				i = next(i);
+			}
+			return i;
+		}
+
+		/**
+	     * Checks whether a slot returned by probe holds a CRN.
+	     *
+	     * @param i   the slot
+	     * @param crn the CRN
+	     * @return true if the slot holds the CRN
+	     */
+		private boolean holds (int i, int crn) {
+			return values[i] != null && values[i] != REMOVED && keys[i] == crn;
+		}
+
+		/**
+	     * Finds the course with a CRN.
+	     *
+	     * @param crn the CRN
+	     * @return the course, or null if the table does not hold the CRN
+	     */
+		private CourseDBElement lookup (int crn) {
+			int i = probe(crn);
+			return holds(i, crn) ? values[i] : null;
+		}
+
+		/**
+	     * Calculates the home slot for a given CRN.
+	     *
+	     * @param crn the Course Registration Number (CRN)
+	     * @return the hash index for the CRN
+	     */
+		private int getIndex (int crn) {
+			return Math.abs(hasher.hash(crn) % size);
+		}
+
+		/**
+	     * Returns the slot after a slot, wrapping around.
+	     *
+	     * @param i the slot
+	     * @return the next slot
+	     */
+		private int next (int i) {
+			return (i + 1 == size) ? 0 : i + 1;
+		}
+
+		/**
+	     * Returns how far the course in a slot is from its home slot.
+	     *
+	     * @param i a slot in use
+	     * @return the probe distance
+	     */
+		private int distance (int i) {
+			if (distances != null) {
+				return distances[i];
+			}
+			return distance(i, getIndex(keys[i]));
+		}
+
+		/**
+	     * Returns how far a slot is from a home slot.
+	     *
+	     * @param i    the slot
+	     * @param home the home slot
+	     * @return the probe distance
+	     */
+		private int distance (int i, int home) {
+			return i >= home ? i - home : i + size - home;
+		}
+
+		/**
+	     * Changes the number of courses at a probe distance.
+	     *
+	     * @param distance the probe distance
+	     * @param delta    the change, 1 or -1
+	     */
+		private void countDistance (int distance, int delta) {
+			if (distance >= probeCounts.length) {
+				probeCounts = Arrays.copyOf(probeCounts, Math.max(distance + 1, probeCounts.length * 2));
+			}
+			probeCounts[distance] += delta;
+		}
+		
+		/**
+	     * Stores a course whose CRN the table does not hold.
+	     *
+	     * @param i       the slot returned by probe
+	     * @param crn     the CRN of the course
+	     * @param element the course
+	     */
+		private void put (int i, int crn, CourseDBElement element) {
+			count++;
+			int distance = distance(i, getIndex(crn));
+			if (distances == null) {
+				keys[i] = crn;
+				values[i] = element;
+				countDistance(distance, 1);
+				return;
+			}
+			// Swap with every course closer to home until the carried one lands in an empty slot
+			while (values[i] != null) {
+				if (distances[i] < distance) {
+					int key = keys[i];
+					CourseDBElement value = values[i];
+					int d = distances[i];
+					keys[i] = crn;
+					values[i] = element;
+					distances[i] = distance;
+					countDistance(distance, 1);
+					countDistance(d, -1);
+					crn = key;
+					element = value;
+					distance = d;
+				}
+				i = next(i);
+				distance++;
+			}
+			keys[i] = crn;
+			values[i] = element;
+			distances[i] = distance;
+			countDistance(distance, 1);
+		}
+
+		/**
+	     * Stores a course whose CRN the table does not hold, without comparing
+	     * CRNs on the way.
+	     *
+	     * @param crn     the CRN of the course
+	     * @param element the course
+	     */
+		private void putNew (int crn, CourseDBElement element) {
+			int i = getIndex(crn);
+			if (distances == null) {
+				while (values[i] != null) {
+					i = next(i);
+				}
+			} else {
+				for (int distance = 0; values[i] != null && distances[i] >= distance; distance++) {
+					i = next(i);
+				}
+			}
+			put(i, crn, element);
+		}
+
+		/**
+	     * Marks a slot of a table being migrated from as left. The slot keeps its
+	     * CRN and probe distance so that probes for other CRNs pass it as before,
+	     * but it no longer holds its CRN.
+	     *
+	     * @param i the slot to mark
+	     */
+		private void tombstone (int i) {
+			countDistance(distance(i), -1);
+			values[i] = REMOVED;
+			count--;
+		}
+
+		/**
+	     * Empties a slot and shifts the courses after it back so that every
+	     * remaining course stays reachable from its home slot.
+	     *
+	     * @param i the slot to empty
+	     */
+		private void delete (int i) {
+			countDistance(distance(i), -1);
+			count--;
+			int j = next(i);
+			if (distances != null) {
+				// Shift back until an empty slot or a course already at home
+				while (values[j] != null && distances[j] > 0) {
+					keys[i] = keys[j];
+					values[i] = values[j];
+					distances[i] = distances[j] - 1;
+					countDistance(distances[j], -1);
+					countDistance(distances[i], 1);
+					i = j;
+					j = next(j);
+				}
+				values[i] = null;
+				return;
+			}
+			// Move back each later course of the run whose home is not between the gap and it
+			for (; values[j] != null; j = next(j)) {
+				int home = getIndex(keys[j]);
+				boolean reachable = i <= j ? i < home && home <= j : i < home || home <= j;
+				if (!reachable) {
+					countDistance(distance(j, home), -1);
+					countDistance(distance(i, home), 1);
+					keys[i] = keys[j];
+					values[i] = values[j];
+					i = j;
+				}
+			}
+			values[i] = null;
+		}
 	}
-}
+}
\ No newline at end of file
@@ -2,11 +2,16 @@
 
 import java.io.*;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * This is the interface to the Course Database Structure Class. 
+ * Iterating over a structure returns each course it holds once.
  */
-public interface CourseDBStructureInterface {
+public interface CourseDBStructureInterface extends Iterable<CourseDBElement> {
 	/** 
 	* Adds a CourseDBElement object to the CourseDBStructure using the hashcode
 	* of the CourseDatabaseElemen object's crn value.
@@ -27,6 +32,51 @@ public interface CourseDBStructureInterface {
 	 */
 
 	public CourseDBElement get(int crn) throws IOException;
+	
+	/**
+	 * Find a courseDatabaseElement based on the key (crn) without throwing when
+	 * it is missing. Lookups that often miss should use this method, since
+	 * building and throwing an exception for a miss costs far more than the
+	 * lookup itself. This default falls back on get.
+	 * 
+	 * @param crn crn (key) whose associated courseDatabaseElement is to be returned
+	 * @return the CourseDBElement mapped to the key, or null if there is none
+	 */
+	public default CourseDBElement find(int crn) {
+		try {
+			return get(crn);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Removes the courseDatabaseElement with the key (crn), if there is one.
+	 * Implementations reclaim its slot so that later lookups do not slow down.
+	 * 
+	 * @param crn crn (key) whose associated courseDatabaseElement is to be removed
+	 * @return the CourseDBElement that was removed, or null if there was none
+	 */
+	public CourseDBElement remove(int crn);
+
+	/**
+	 * Removes the courseDatabaseElement with the key (crn), if there is one,
+	 * after handing it to an action, for example one that logs the removal
+	 * ahead of it. Thread-safe implementations run the action and the removal
+	 * atomically with other updates of the crn; this default does not.
+	 * 
+	 * @param crn crn (key) whose associated courseDatabaseElement is to be removed
+	 * @param beforeRemove the action run on the course before it is removed
+	 * @return the CourseDBElement that was removed, or null if there was none
+	 */
+	public default CourseDBElement remove(int crn, Consumer<CourseDBElement> beforeRemove) {
+		CourseDBElement current = find(crn);
+		if (current == null) {
+			return null;
+		}
+		beforeRemove.accept(current);
+		return remove(crn);
+	}
 
 	/**
 	 * @return an array list of string representation of each course in 
@@ -37,10 +87,145 @@ public interface CourseDBStructureInterface {
 	 */
 	
 	public ArrayList<String> showAll();
+	/**
+	 * Returns a sequential stream over the courses, in the same order as
+	 * showAll, without collecting them first.
+	 * 
+	 * @return a stream of the courses
+	 */
+	public default Stream<CourseDBElement> stream() {
+		return StreamSupport.stream(spliterator(), false);
+	}
+	
+	/**
+	 * Writes every course to a buffer or stream, in the same order and with the
+	 * same text as showAll, formatting each course straight into it.
+	 * 
+	 * @param out the buffer or stream to write to
+	 * @throws IOException if the Appendable fails
+	 */
+	public default void writeAll(Appendable out) throws IOException {
+		for (CourseDBElement element : this) {
+			element.formatTo(out);
+		}
+	}
+	
+	/**
+	 * Returns up to pageSize courses starting at a continuation token, in the
+	 * same order as showAll. Pass CourseDBPage.FIRST for the first page and the
+	 * page's next token for each following one. This default counts courses
+	 * from the start, so each page costs time in its position; implementations
+	 * use a position inside their table as the token instead.
+	 * 
+	 * @param token CourseDBPage.FIRST or the next token of the previous page
+	 * @param pageSize the largest number of courses to return
+	 * @return the page
+	 * @throws IllegalArgumentException if the token is negative or pageSize is
+	 * not positive
+	 */
+	public default CourseDBPage page(long token, int pageSize) {
+		CourseDBPage.check(token, pageSize);
+		ArrayList<CourseDBElement> courses = new ArrayList<>(pageSize);
+		Iterator<CourseDBElement> iterator = iterator();
+		for (long skipped = 0; skipped < token && iterator.hasNext(); skipped++) {
+			iterator.next();
+		}
+		while (courses.size() < pageSize && iterator.hasNext()) {
+			courses.add(iterator.next());
+		}
+		return new CourseDBPage(courses, iterator.hasNext() ? token + courses.size() : CourseDBPage.END);
+	}
+	
 	/**
 	* Returns the size of the ConcordanceDataStructure (number of indexes in the array)
 	*/
 	public int getTableSize();
 	
+	/**
+	 * Returns the number of courses in the data structure
+	 */
+	public int size();
+	
+	/**
+	 * Adds every course of a collection in iteration order, as if by add. When
+	 * uniqueCRNs is true the caller guarantees that no two of the courses share a
+	 * crn and that none of their crns is stored yet, so implementations may skip
+	 * the duplicate checks; if the guarantee is broken the result is undefined.
+	 * 
+	 * @param elements the courses to add
+	 * @param uniqueCRNs true if every crn is new and appears once
+	 */
+	public default void addAll(Collection<? extends CourseDBElement> elements, boolean uniqueCRNs) {
+		for (CourseDBElement element : elements) {
+			add(element);
+		}
+	}
+	
+	/**
+	 * Returns the courses that match every given field; a null field matches
+	 * any value. This default scans every course; implementations with
+	 * secondary indexes answer from them instead.
+	 * 
+	 * @param id the course id to match, or null
+	 * @param roomNum the room number to match, or null
+	 * @param instructor the instructor to match, or null
+	 * @return a new list of the matching courses
+	 */
+	public default ArrayList<CourseDBElement> select(String id, String roomNum, String instructor) {
+		ArrayList<CourseDBElement> result = new ArrayList<>();
+		for (CourseDBElement element : this) {
+			if ((id == null || id.equals(element.getID()))
+					&& (roomNum == null || roomNum.equals(element.getRoomNum()))
+					&& (instructor == null || instructor.equals(element.getInstructor()))) {
+				result.add(element);
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns the courses whose crns lie from lo to hi, both included, in crn
+	 * order. This default scans every course and sorts the matches;
+	 * implementations that keep courses ordered by crn walk just the range.
+	 * 
+	 * @param lo the smallest crn to return
+	 * @param hi the largest crn to return
+	 * @return a new list of the courses in the range
+	 */
+	public default ArrayList<CourseDBElement> range(int lo, int hi) {
+		ArrayList<CourseDBElement> result = new ArrayList<>();
+		for (CourseDBElement element : this) {
+			if (element.getCRN() >= lo && element.getCRN() <= hi) {
+				result.add(element);
+			}
+		}
+		Collections.sort(result);
+		return result;
+	}
+	
+	/**
+	 * Replaces the course with the given crn by the result of the remapping
+	 * function, which receives the current course or null if there is none. If
+	 * the function returns null nothing is stored. Thread-safe implementations
+	 * perform the whole read-modify-write atomically; this default does not.
+	 * 
+	 * @param crn crn (key) of the course to compute
+	 * @param remapping the function computing the course to store
+	 * @return the course stored for the crn after the call, or null if none
+	 * @throws IllegalArgumentException if the computed course has another crn
+	 */
+	public default CourseDBElement compute(int crn, UnaryOperator<CourseDBElement> remapping) {
+		CourseDBElement current = find(crn);
+		CourseDBElement result = remapping.apply(current);
+		if (result == null) {
+			return current;
+		}
+		if (result.getCRN() != crn) {
+			throw new IllegalArgumentException("Computed course has CRN " + result.getCRN() + ", expected " + crn);
+		}
+		add(result);
+		return result;
+	}
+	
 
 }
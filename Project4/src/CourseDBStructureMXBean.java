@@ -0,0 +1,21 @@
+/**
+ * CourseDBStructureMXBean is the JMX management interface of a
+ * CourseDBStructure. The Stats attribute is a composite with one item per
+ * getter of CourseDBStructureStats, so a monitoring tool can alert on the
+ * sizing ratio, the resize count or a lookup percentile directly.
+ */
+public interface CourseDBStructureMXBean {
+
+	/**
+     * Returns a snapshot of the metrics of the structure.
+     *
+     * @return the metrics
+     */
+	public CourseDBStructureStats getStats();
+
+	/**
+     * Resets the hit and miss counts and the lookup times, for example at the
+     * start of a monitoring interval. The resize count is kept.
+     */
+	public void resetLookupStats();
+}
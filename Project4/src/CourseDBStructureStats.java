@@ -0,0 +1,259 @@
+/**
+ * CourseDBStructureStats is a snapshot of the metrics of a CourseDBStructure:
+ * its size and load, the spread of probe distances, how often it resized, how
+ * its lookups turned out and how long they took. It is returned by getStats and
+ * published through CourseDBStructureMXBean, where each getter becomes an item
+ * of the composite Stats attribute.
+ *
+ * The sizing ratio compares the courses stored with the estimated size given
+ * to the constructor. A ratio above 1, together with a nonzero resize count,
+ * means the estimate was too small; a ratio close to 0 on a loaded structure
+ * means it was too large.
+ */
+public class CourseDBStructureStats {
+
+	private int size;
+	private int tableSize;
+	private int initialTableSize;
+	private int estimatedSize;
+	private double maxLoadFactor;
+	private long[] probeHistogram;
+	private int resizeCount;
+	private long hitCount;
+	private long missCount;
+	private long timedLookups;
+	private long lookupNanosP50;
+	private long lookupNanosP90;
+	private long lookupNanosP99;
+	private long lookupNanosP999;
+	private long lookupNanosMax;
+
+	/**
+     * Constructs a snapshot.
+     *
+     * @param size             the number of courses
+     * @param tableSize        the number of slots of the table
+     * @param initialTableSize the number of slots the table was created with
+     * @param estimatedSize    the estimated size given to the constructor
+     * @param maxLoadFactor    the load factor past which the table grows
+     * @param probeHistogram   the number of courses at each probe distance
+     * @param resizeCount      the number of times the table was resized
+     * @param hitCount         the number of lookups that found a course
+     * @param missCount        the number of lookups that found none
+     * @param latency          the timed lookups, or null if lookups are not timed
+     */
+	CourseDBStructureStats (int size, int tableSize, int initialTableSize, int estimatedSize, double maxLoadFactor,
+			long[] probeHistogram, int resizeCount, long hitCount, long missCount, CourseDBLatencyHistogram latency) {
+		this.size = size;
+		this.tableSize = tableSize;
+		this.initialTableSize = initialTableSize;
+		this.estimatedSize = estimatedSize;
+		this.maxLoadFactor = maxLoadFactor;
+		this.probeHistogram = probeHistogram;
+		this.resizeCount = resizeCount;
+		this.hitCount = hitCount;
+		this.missCount = missCount;
+		if (latency != null) {
+			timedLookups = latency.getCount();
+			lookupNanosP50 = latency.getPercentile(50);
+			lookupNanosP90 = latency.getPercentile(90);
+			lookupNanosP99 = latency.getPercentile(99);
+			lookupNanosP999 = latency.getPercentile(99.9);
+			lookupNanosMax = latency.getMax();
+		}
+	}
+
+	/**
+     * Returns the number of courses.
+     *
+     * @return the number of courses
+     */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+     * Returns the number of slots of the table.
+     *
+     * @return the table size
+     */
+	public int getTableSize() {
+		return tableSize;
+	}
+
+	/**
+     * Returns the number of slots the table was created with, derived from the
+     * estimated size.
+     *
+     * @return the initial table size
+     */
+	public int getInitialTableSize() {
+		return initialTableSize;
+	}
+
+	/**
+     * Returns the estimated size given to the constructor.
+     *
+     * @return the estimated number of courses
+     */
+	public int getEstimatedSize() {
+		return estimatedSize;
+	}
+
+	/**
+     * Returns the number of courses divided by the number of slots.
+     *
+     * @return the load factor
+     */
+	public double getLoadFactor() {
+		return (double) size / tableSize;
+	}
+
+	/**
+     * Returns the load factor past which the table grows.
+     *
+     * @return the maximum load factor
+     */
+	public double getMaxLoadFactor() {
+		return maxLoadFactor;
+	}
+
+	/**
+     * Returns the number of courses divided by the estimated size.
+     *
+     * @return the sizing ratio, above 1 if the estimated size was too small
+     */
+	public double getSizingRatio() {
+		return (double) size / estimatedSize;
+	}
+
+	/**
+     * Returns the number of courses at each probe distance. With open
+     * addressing a course at distance d is found after d + 1 slots, so this
+     * plays the role of the bucket-length histogram of a chained table.
+     *
+     * @return the histogram, indexed by probe distance
+     */
+	public long[] getProbeHistogram() {
+		return probeHistogram.clone();
+	}
+
+	/**
+     * Returns the longest probe distance of any course.
+     *
+     * @return the longest probe distance, 0 if there are no courses
+     */
+	public int getMaxProbeDistance() {
+		return Math.max(probeHistogram.length - 1, 0);
+	}
+
+	/**
+     * Returns the mean probe distance of the courses.
+     *
+     * @return the mean probe distance, 0 if there are no courses
+     */
+	public double getMeanProbeDistance() {
+		long courses = 0;
+		long total = 0;
+		for (int distance = 0; distance < probeHistogram.length; distance++) {
+			courses += probeHistogram[distance];
+			total += distance * probeHistogram[distance];
+		}
+		return courses == 0 ? 0 : (double) total / courses;
+	}
+
+	/**
+     * Returns the number of times the table was resized.
+     *
+     * @return the resize count
+     */
+	public int getResizeCount() {
+		return resizeCount;
+	}
+
+	/**
+     * Returns the number of lookups that found a course.
+     *
+     * @return the hit count
+     */
+	public long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+     * Returns the number of lookups that found no course.
+     *
+     * @return the miss count
+     */
+	public long getMissCount() {
+		return missCount;
+	}
+
+	/**
+     * Returns the number of lookups whose time went into the percentiles.
+     *
+     * @return the number of timed lookups, 0 if lookups are not timed
+     */
+	public long getTimedLookups() {
+		return timedLookups;
+	}
+
+	/**
+     * Returns the median lookup time.
+     *
+     * @return the median in nanoseconds
+     */
+	public long getLookupNanosP50() {
+		return lookupNanosP50;
+	}
+
+	/**
+     * Returns the 90th percentile of lookup times.
+     *
+     * @return the percentile in nanoseconds
+     */
+	public long getLookupNanosP90() {
+		return lookupNanosP90;
+	}
+
+	/**
+     * Returns the 99th percentile of lookup times.
+     *
+     * @return the percentile in nanoseconds
+     */
+	public long getLookupNanosP99() {
+		return lookupNanosP99;
+	}
+
+	/**
+     * Returns the 99.9th percentile of lookup times.
+     *
+     * @return the percentile in nanoseconds
+     */
+	public long getLookupNanosP999() {
+		return lookupNanosP999;
+	}
+
+	/**
+     * Returns the longest lookup time.
+     *
+     * @return the longest time in nanoseconds
+     */
+	public long getLookupNanosMax() {
+		return lookupNanosMax;
+	}
+
+	/**
+     * Returns the metrics on one line.
+     *
+     * @return a string representation of the snapshot
+     */
+	@Override
+	public String toString() {
+		return String.format("size=%d/%d table=%d/%d load=%.3f/%.2f sizing=%.2f resizes=%d probe max=%d mean=%.2f"
+				+ " hits=%d misses=%d lookup p50=%dns p99=%dns p999=%dns max=%dns",
+				size, estimatedSize, tableSize, initialTableSize, getLoadFactor(), maxLoadFactor, getSizingRatio(),
+				resizeCount, getMaxProbeDistance(), getMeanProbeDistance(), hitCount, missCount, lookupNanosP50,
+				lookupNanosP99, lookupNanosP999, lookupNanosMax);
+	}
+}
@@ -2,9 +2,17 @@
 import static org.junit.Assert.*;
 
 import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.Random;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
 
 import org.junit.After;
 import org.junit.Before;
@@ -87,4 +95,565 @@ public class CourseDBStructureTest {
 		courseList = testStructure.showAll(); 
 		assertTrue(courseList.size()==1); 
 	}
+
+	/**
+	 * Test that the table grows to a 4k+3 prime once the load factor is crossed
+	 */
+	@Test
+	public void testResize() {
+		CourseDBStructure small = new CourseDBStructure("Testing", 7);
+		assertEquals(0, small.size());
+		for (int crn = 10000; crn < 10100; crn++) {
+			small.add(new CourseDBElement("CMSC204", crn, 4, "SC100", "Nobody InParticular"));
+		}
+		assertEquals(100, small.size());
+		assertEquals(100, small.showAll().size());
+		assertTrue(small.getTableSize() > 100);
+		assertEquals(3, small.getTableSize() % 4);
+		assertTrue(small.getLoadFactor() <= small.getMaxLoadFactor());
+		try {
+			for (int crn = 10000; crn < 10100; crn++) {
+				assertEquals(crn, small.get(crn).getCRN());
+			}
+		} catch (IOException e) {
+			fail("Should not throw exception");
+		}
+	}
+
+	/**
+	 * Test that a structure filled to its estimated size grows past it only as
+	 * the load factor requires, for several load factors
+	 */
+	@Test
+	public void testEstimatedSizeFits() {
+		for (double loadFactor : new double[] {0.5, 0.75, 0.9}) {
+			CourseDBStructure sized = new CourseDBStructure(5000, loadFactor, CourseDBHasher.MURMUR, loadFactor > 0.8);
+			for (int crn = 10000; crn < 15000; crn++) {
+				sized.add(new CourseDBElement("CMSC204", crn, 4, "SC100", "Nobody InParticular"));
+			}
+			assertEquals(5000, sized.size());
+			assertEquals(3, sized.getTableSize() % 4);
+			assertTrue(sized.size() <= loadFactor * sized.getTableSize());
+		}
+	}
+
+	/**
+	 * Test that an invalid load factor is rejected
+	 */
+	@Test
+	public void testInvalidLoadFactor() {
+		try {
+			new CourseDBStructure(20, 1.5);
+			fail("Should have thrown IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			assertTrue("threw Exception successfuly for the invalid load factor", true);
+		}
+	}
+
+	/**
+	 * Test that courses stay reachable while an incremental rehash is in progress
+	 */
+	@Test
+	public void testIncrementalRehash() {
+		CourseDBStructure incremental = new CourseDBStructure("Testing", 7);
+		incremental.setIncrementalRehash(true);
+		boolean sawRehash = false;
+		try {
+			for (int crn = 10000; crn < 12000; crn++) {
+				incremental.add(new CourseDBElement("CMSC204", crn, 4, "SC100", "Nobody InParticular"));
+				sawRehash |= incremental.isRehashing();
+				assertEquals(10000, incremental.get(10000).getCRN());
+				assertEquals(crn, incremental.get(crn).getCRN());
+			}
+			incremental.add(new CourseDBElement("CMSC204-updated", 10001, 3, "SC200", "updated"));
+			assertEquals("CMSC204-updated", incremental.get(10001).getID());
+		} catch (IOException e) {
+			fail("Should not throw exception");
+		}
+		assertTrue(sawRehash);
+		assertEquals(2000, incremental.size());
+		assertEquals(2000, incremental.showAll().size());
+		assertFalse(incremental.isRehashing());
+	}
+
+	/**
+	 * Test that page, remove and the probe statistics work across both tables
+	 * without finishing an incremental rehash
+	 */
+	@Test
+	public void testRehashNotForced() {
+		CourseDBStructure incremental = new CourseDBStructure("Testing", 1009);
+		incremental.setIncrementalRehash(true);
+		incremental.setMigrationStep(2);
+		HashMap<Integer, CourseDBElement> expected = new HashMap<>();
+		int crn = 10000;
+		while (!incremental.isRehashing()) {
+			CourseDBElement course = new CourseDBElement("CMSC204", crn, 4, "SC100", "Nobody InParticular");
+			incremental.add(course);
+			expected.put(crn++, course);
+		}
+		for (int k = 10000; k < 10200; k += 2) {
+			assertSame(expected.remove(k), incremental.remove(k));
+			assertNull(incremental.remove(k));
+			assertNull(incremental.find(k));
+		}
+		// An update moves the course to the new table and a removal must not resurrect the old copy
+		CourseDBElement updated = new CourseDBElement("CMSC204-updated", 10201, 3, "SC200", "updated");
+		incremental.add(updated);
+		expected.put(10201, updated);
+		assertSame(updated, incremental.find(10201));
+		assertSame(updated, incremental.remove(10201));
+		expected.remove(10201);
+		assertNull(incremental.find(10201));
+		long counted = 0;
+		for (long n : incremental.getStats().getProbeHistogram()) {
+			counted += n;
+		}
+		assertEquals(expected.size(), counted);
+		assertEquals(incremental.getStats().getMaxProbeDistance(), incremental.getMaxProbeDistance());
+		ArrayList<CourseDBElement> paged = new ArrayList<>();
+		for (long token = CourseDBPage.FIRST; token != CourseDBPage.END;) {
+			CourseDBPage page = incremental.page(token, 100);
+			paged.addAll(page.getCourses());
+			token = page.getNextToken();
+		}
+		assertTrue(incremental.isRehashing());
+		assertEquals(expected.size(), incremental.size());
+		assertEquals(expected.size(), paged.size());
+		for (CourseDBElement course : paged) {
+			assertSame(expected.get(course.getCRN()), course);
+		}
+		int iterated = 0;
+		for (CourseDBElement course : incremental) {
+			assertSame(expected.get(course.getCRN()), course);
+			iterated++;
+		}
+		assertEquals(expected.size(), iterated);
+		assertEquals(expected.size(), incremental.showAll().size());
+		for (CourseDBElement course : expected.values()) {
+			assertSame(course, incremental.find(course.getCRN()));
+		}
+		// Reads leave the rehash where it is
+		assertTrue(incremental.isRehashing());
+	}
+
+	/**
+	 * Test that an update replaces the stored course instead of modifying it
+	 */
+	@Test
+	public void testUpdateReplacesCourse() throws IOException {
+		CourseDBElement original = new CourseDBElement("CMSC500", 39999, 4, "SC100", "Nobody InParticular");
+		CourseDBElement updated = new CourseDBElement("CMSC500-updated", 39999, 3, "SC200", "updated");
+		cds.add(original);
+		cds.add(updated);
+		assertSame(updated, cds.get(39999));
+		assertEquals("CMSC500", original.getID());
+		assertEquals(1, cds.size());
+	}
+
+	/**
+	 * Test compute for present and absent CRNs
+	 */
+	@Test
+	public void testCompute() throws IOException {
+		cds.add(new CourseDBElement("CMSC500", 39999, 4, "SC100", "Nobody InParticular"));
+		CourseDBElement result = cds.compute(39999, current ->
+				new CourseDBElement(current.getID(), 39999, 3, current.getRoomNum(), current.getInstructor()));
+		assertEquals(3, result.getCredits());
+		assertEquals(3, cds.get(39999).getCredits());
+		assertNull(cds.compute(4000, current -> null));
+		assertEquals(1, cds.size());
+		try {
+			cds.compute(39999, current -> new CourseDBElement("CMSC600", 4000, 4, "SC100", "Somebody"));
+			fail("Should have thrown IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			assertTrue("threw Exception successfuly for the mismatched CRN", true);
+		}
+	}
+
+	/**
+	 * Test that addAll sizes the table once and stores every course, with and
+	 * without the unique CRN guarantee
+	 */
+	@Test
+	public void testAddAll() throws IOException {
+		ArrayList<CourseDBElement> courses = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			courses.add(new CourseDBElement("CMSC" + i, 10000 + i * 7, 3, "SC100", "Instructor " + i));
+		}
+		CourseDBStructure unique = new CourseDBStructure(10);
+		unique.add(new CourseDBElement("CMSC500", 39999, 4, "SC100", "Nobody InParticular"));
+		unique.addAll(courses, true);
+		assertEquals(1001, unique.size());
+		assertTrue(unique.getLoadFactor() <= unique.getMaxLoadFactor());
+		for (CourseDBElement course : courses) {
+			assertSame(course, unique.get(course.getCRN()));
+		}
+		assertEquals("Nobody InParticular", unique.get(39999).getInstructor());
+
+		courses.add(new CourseDBElement("CMSC0-updated", 10000, 4, "SC200", "updated"));
+		CourseDBStructure checked = new CourseDBStructure(10);
+		checked.addAll(courses, false);
+		assertEquals(1000, checked.size());
+		assertEquals("updated", checked.get(10000).getInstructor());
+
+		int tableSize = checked.getTableSize();
+		checked.ensureCapacity(10);
+		assertEquals(tableSize, checked.getTableSize());
+		checked.ensureCapacity(5000);
+		assertTrue(5000 <= checked.getMaxLoadFactor() * checked.getTableSize());
+		assertEquals(1000, checked.size());
+	}
+
+	/**
+	 * Test that select answers from the secondary indexes and that they follow
+	 * updates and rehashing
+	 */
+	@Test
+	public void testSecondaryIndexes() throws IOException {
+		CourseDBStructure indexed = new CourseDBStructure(10);
+		indexed.add(new CourseDBElement("CMSC203", 30504, 4, "SC450", "Joey Bag-O-Donuts"));
+		indexed.setSecondaryIndexes(true);
+		indexed.setIncrementalRehash(true);
+		assertTrue(indexed.hasSecondaryIndexes());
+		for (int i = 0; i < 300; i++) {
+			indexed.add(new CourseDBElement("CMSC" + (i % 3), 10000 + i, 3, "SC" + (i % 10), "Instructor " + (i % 7)));
+		}
+		indexed.add(new CourseDBElement("CMSC203", 30504, 4, "SC451", "Joey Bag-O-Donuts"));
+		assertEquals(0, indexed.select(null, "SC450", null).size());
+		assertEquals("SC451", indexed.select(null, null, "Joey Bag-O-Donuts").get(0).getRoomNum());
+		for (String room : new String[] {"SC0", "SC3"}) {
+			for (String instructor : new String[] {"Instructor 0", "Instructor 5"}) {
+				ArrayList<CourseDBElement> expected = new ArrayList<>();
+				for (CourseDBElement course : indexed) {
+					if (course.getRoomNum().equals(room) && course.getInstructor().equals(instructor)) {
+						expected.add(course);
+					}
+				}
+				ArrayList<CourseDBElement> actual = indexed.select(null, room, instructor);
+				assertEquals(expected.size(), actual.size());
+				assertTrue(actual.containsAll(expected));
+			}
+		}
+		assertEquals(100, indexed.select("CMSC1", null, null).size());
+		assertEquals(301, indexed.select(null, null, null).size());
+
+		indexed.setSecondaryIndexes(false);
+		assertFalse(indexed.hasSecondaryIndexes());
+		assertEquals(100, indexed.select("CMSC1", null, null).size());
+	}
+
+	/**
+	 * Test range with and without the ordered index
+	 */
+	@Test
+	public void testRange() throws IOException {
+		CourseDBStructure ordered = new CourseDBStructure(10);
+		for (int i = 0; i < 500; i++) {
+			ordered.add(new CourseDBElement("CMSC" + i, 30999 - i * 3, 3, "SC100", "Instructor " + i));
+		}
+		ArrayList<CourseDBElement> scanned = ordered.range(30000, 30099);
+		ordered.setOrderedIndex(true);
+		assertTrue(ordered.hasOrderedIndex());
+		ordered.add(new CourseDBElement("CMSC-updated", 30999, 4, "SC200", "updated"));
+		ordered.add(new CourseDBElement("CMSC-new", 30001, 4, "SC200", "new"));
+		ArrayList<CourseDBElement> indexed = ordered.range(30000, 30099);
+		assertEquals(scanned.size() + 1, indexed.size());
+		assertEquals(30000, indexed.get(0).getCRN());
+		assertEquals(30001, indexed.get(1).getCRN());
+		for (int k = 1; k < indexed.size(); k++) {
+			assertTrue(indexed.get(k - 1).getCRN() < indexed.get(k).getCRN());
+		}
+		assertTrue(indexed.containsAll(scanned));
+		assertEquals("updated", ordered.range(30999, 31000).get(0).getInstructor());
+	}
+
+	/**
+	 * Test that formatTo writes the same text as toString to any Appendable,
+	 * including extreme numbers
+	 */
+	@Test
+	public void testFormatTo() throws IOException {
+		int[] numbers = {0, 7, 39999, -4000, Integer.MAX_VALUE, Integer.MIN_VALUE};
+		for (int number : numbers) {
+			CourseDBElement course = new CourseDBElement("CMSC500", number, number, "SC100", null);
+			StringWriter writer = new StringWriter();
+			course.formatTo(writer);
+			assertEquals(course.toString(), writer.toString());
+			assertEquals("\nCourse:CMSC500 CRN:" + number + " Credits:" + number + " Instructor:null Room:SC100",
+					course.toString());
+		}
+	}
+
+	/**
+	 * Test that reading page by page returns every course once, in showAll order
+	 */
+	@Test
+	public void testPage() {
+		CourseDBStructure paged = new CourseDBStructure(10);
+		for (int i = 0; i < 250; i++) {
+			paged.add(new CourseDBElement("CMSC" + i, 10000 + i * 13, 3, "SC100", "Instructor " + i));
+		}
+		ArrayList<String> pages = new ArrayList<>();
+		long token = CourseDBPage.FIRST;
+		int count = 0;
+		do {
+			CourseDBPage page = paged.page(token, 40);
+			assertTrue(page.getCourses().size() <= 40);
+			for (CourseDBElement course : page.getCourses()) {
+				pages.add(course.toString());
+			}
+			token = page.getNextToken();
+			count++;
+		} while (token != CourseDBPage.END);
+		assertEquals(paged.showAll(), pages);
+		assertEquals(7, count);
+		assertTrue(new CourseDBStructure(10).page(CourseDBPage.FIRST, 40).getCourses().isEmpty());
+		try {
+			paged.page(-5, 40);
+			fail("Should have thrown IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			assertTrue("threw Exception successfuly for the negative token", true);
+		}
+	}
+
+	/**
+	 * Test that find returns null on a miss, also while rehashing incrementally
+	 */
+	@Test
+	public void testFind() throws IOException {
+		CourseDBStructure incremental = new CourseDBStructure(10);
+		incremental.setIncrementalRehash(true);
+		for (int i = 0; i < 1000; i++) {
+			incremental.add(new CourseDBElement("CMSC" + i, 10000 + i, 3, "SC100", "Instructor " + i));
+			assertNotNull(incremental.find(10000 + i / 2));
+			assertNull(incremental.find(20000 + i));
+		}
+		assertSame(incremental.get(10500), incremental.find(10500));
+		assertNull(cds.find(39999));
+	}
+
+	/**
+	 * Test that the Bloom filter rejects misses, never hides a stored course and
+	 * survives the table growing
+	 */
+	@Test
+	public void testBloomFilter() throws IOException {
+		CourseDBStructure filtered = new CourseDBStructure(10);
+		filtered.add(new CourseDBElement("CMSC100", 10000, 3, "SC100", "Instructor"));
+		filtered.setBloomFilter(true);
+		for (int i = 1; i < 5000; i++) {
+			filtered.add(new CourseDBElement("CMSC" + i, 10000 + i, 3, "SC100", "Instructor " + i));
+		}
+		for (int i = 0; i < 5000; i++) {
+			assertNotNull(filtered.find(10000 + i));
+			assertNull(filtered.find(60000 + i));
+		}
+		CourseDBBloomFilter filter = filtered.getBloomFilter();
+		assertEquals(5000, filter.getRejectedCount() + filter.getFalsePositiveCount());
+		assertTrue(filter.getFalsePositiveRate() < 0.05);
+		assertTrue(filter.getCapacity() >= filtered.size());
+		filtered.setBloomFilter(false);
+		assertNull(filtered.getBloomFilter());
+		assertNotNull(filtered.find(14999));
+	}
+
+	/**
+	 * Test that the Bloom filter forgets removed courses and screens both tables
+	 * while a rehash is in progress, without ever hiding a stored course
+	 */
+	@Test
+	public void testBloomFilterRemove() {
+		CourseDBStructure filtered = new CourseDBStructure(10);
+		filtered.setBloomFilter(true);
+		filtered.setIncrementalRehash(true);
+		filtered.setMigrationStep(2);
+		boolean sawRehash = false;
+		for (int i = 0; i < 5000; i++) {
+			filtered.add(new CourseDBElement("CMSC" + i, 10000 + i, 3, "SC100", "Instructor " + i));
+			if (i % 2 == 1) {
+				assertNotNull(filtered.remove(10000 + i - 1));
+			}
+			sawRehash |= filtered.isRehashing();
+		}
+		assertTrue(sawRehash);
+		CourseDBBloomFilter filter = filtered.getBloomFilter();
+		long screened = filter.getRejectedCount() + filter.getFalsePositiveCount();
+		for (int i = 0; i < 5000; i++) {
+			if (i % 2 == 0) {
+				assertNull(filtered.find(10000 + i));
+			} else {
+				assertNotNull(filtered.find(10000 + i));
+			}
+		}
+		filter = filtered.getBloomFilter();
+		assertEquals(screened + 2500, filter.getRejectedCount() + filter.getFalsePositiveCount());
+		assertTrue(filter.getFalsePositiveRate() < 0.05);
+	}
+
+	/**
+	 * Test that Robin Hood probing finds every course of clustered CRN blocks and
+	 * keeps the longest probe no longer than linear probing does
+	 */
+	@Test
+	public void testRobinHood() throws IOException {
+		CourseDBStructure linear = new CourseDBStructure(100, 0.9, CourseDBHasher.DECIMAL_STRING, false);
+		CourseDBStructure robinHood = new CourseDBStructure(100, 0.9, CourseDBHasher.DECIMAL_STRING, true);
+		assertTrue(robinHood.isRobinHood());
+		for (int block = 0; block < 40; block++) {
+			for (int crn = 10000 + block * 2000; crn < 10000 + block * 2000 + 150; crn++) {
+				CourseDBElement course = new CourseDBElement("CMSC" + block, crn, 3, "SC100", "Instructor");
+				linear.add(course);
+				robinHood.add(course);
+			}
+		}
+		assertEquals(linear.size(), robinHood.size());
+		for (CourseDBElement course : linear) {
+			assertSame(course, robinHood.get(course.getCRN()));
+		}
+		assertNull(robinHood.find(99999));
+		assertEquals(linear.getMeanProbeDistance(), robinHood.getMeanProbeDistance(), 1e-9);
+		assertTrue(robinHood.getMaxProbeDistance() <= linear.getMaxProbeDistance());
+
+		CourseDBStructure small = new CourseDBStructure("Testing", 7, true);
+		small.add(new CourseDBElement("CMSC203", 30504, 4, "SC450", "Joey Bag-O-Donuts"));
+		assertEquals(0, small.getMaxProbeDistance());
+		assertEquals("CMSC203", small.get(30504).getID());
+	}
+
+	/**
+	 * Test that remove with backward shifting keeps every other course reachable,
+	 * in both probing modes, and updates the indexes
+	 */
+	@Test
+	public void testRemove() throws IOException {
+		for (boolean robinHood : new boolean[] {false, true}) {
+			CourseDBStructure churn = new CourseDBStructure(100, 0.75, CourseDBHasher.DECIMAL_STRING, robinHood);
+			churn.setSecondaryIndexes(true);
+			churn.setOrderedIndex(true);
+			HashMap<Integer, CourseDBElement> expected = new HashMap<>();
+			Random random = new Random(22);
+			for (int i = 0; i < 20000; i++) {
+				int crn = 10000 + random.nextInt(3000);
+				if (random.nextInt(3) == 0) {
+					assertSame(expected.remove(crn), churn.remove(crn));
+				} else {
+					CourseDBElement course = new CourseDBElement("CMSC" + (crn % 7), crn, 3, "SC100", "Instructor");
+					churn.add(course);
+					expected.put(crn, course);
+				}
+			}
+			assertEquals(expected.size(), churn.size());
+			for (int crn = 10000; crn < 13000; crn++) {
+				assertSame(expected.get(crn), churn.find(crn));
+			}
+			assertEquals(expected.size(), churn.range(10000, 12999).size());
+			int cmsc3 = 0;
+			for (CourseDBElement course : expected.values()) {
+				if (course.getID().equals("CMSC3")) {
+					cmsc3++;
+				}
+			}
+			assertEquals(cmsc3, churn.select("CMSC3", null, null).size());
+			assertNull(churn.remove(9999));
+		}
+	}
+
+	/**
+	 * Test that millions of adds and removes keep the table at the size its
+	 * live courses need and the probes as short as without removals, in both
+	 * probing modes
+	 */
+	@Test
+	public void testChurn() {
+		for (boolean robinHood : new boolean[] {false, true}) {
+			CourseDBStructure churn = new CourseDBStructure(20000, 0.75, CourseDBHasher.DECIMAL_STRING, robinHood);
+			int tableSize = churn.getTableSize();
+			Random random = new Random(2024);
+			int[] live = new int[10000];
+			for (int i = 0; i < live.length; i++) {
+				live[i] = 10000 + i;
+				churn.add(new CourseDBElement("CMSC204", live[i], 3, "SC450", "Instructor"));
+			}
+			int next = 10000 + live.length;
+			for (int i = 0; i < 2000000; i++) {
+				// Cancel a random section and open a new one with a fresh CRN
+				int k = random.nextInt(live.length);
+				assertNotNull(churn.remove(live[k]));
+				live[k] = next++;
+				churn.add(new CourseDBElement("CMSC204", live[k], 3, "SC450", "Instructor"));
+			}
+			assertEquals(live.length, churn.size());
+			assertEquals(tableSize, churn.getTableSize());
+			// Removals leave no garbage: the probes are as long as in a table that only saw the live courses
+			CourseDBStructure fresh = new CourseDBStructure(20000, 0.75, CourseDBHasher.DECIMAL_STRING, robinHood);
+			for (int crn : live) {
+				fresh.add(new CourseDBElement("CMSC204", crn, 3, "SC450", "Instructor"));
+			}
+			assertEquals(fresh.getMeanProbeDistance(), churn.getMeanProbeDistance(), 1e-9);
+			long counted = 0;
+			for (long n : churn.getStats().getProbeHistogram()) {
+				counted += n;
+			}
+			assertEquals(live.length, counted);
+			for (int crn : live) {
+				assertNotNull(churn.find(crn));
+			}
+		}
+	}
+
+	/**
+	 * Test that the metrics snapshot counts lookups and resizes, that its
+	 * probe histogram matches the probe statistics and that it is published over JMX
+	 */
+	@Test
+	public void testStats() throws Exception {
+		CourseDBStructure measured = new CourseDBStructure(100);
+		measured.setLookupTiming(true);
+		for (int i = 0; i < 1000; i++) {
+			measured.add(new CourseDBElement("CMSC" + i, 10000 + i, 3, "SC100", "Instructor " + i));
+		}
+		for (int i = 0; i < 3200; i++) {
+			measured.find(10000 + i % 1600);
+		}
+		try {
+			measured.get(99999);
+			fail("Should have thrown IOException");
+		} catch (IOException e) {
+			assertTrue("threw Exception successfuly for a missing CRN", true);
+		}
+		CourseDBStructureStats stats = measured.getStats();
+		assertEquals(1000, stats.getSize());
+		assertEquals(2000, stats.getHitCount());
+		assertEquals(1201, stats.getMissCount());
+		assertEquals(3201 / CourseDBStructure.LOOKUP_TIMING_INTERVAL, stats.getTimedLookups());
+		assertTrue(stats.getLookupNanosP50() <= stats.getLookupNanosP99());
+		assertTrue(stats.getLookupNanosP999() <= stats.getLookupNanosMax());
+		assertEquals(measured.getLoadFactor(), stats.getLoadFactor(), 1e-9);
+		// An estimate of 100 for 1000 courses has to resize and shows a sizing ratio of 10
+		assertTrue(stats.getResizeCount() >= 3);
+		assertEquals(100, stats.getEstimatedSize());
+		assertEquals(10.0, stats.getSizingRatio(), 1e-9);
+		long courses = 0;
+		for (long n : stats.getProbeHistogram()) {
+			courses += n;
+		}
+		assertEquals(1000, courses);
+		assertEquals(measured.getMaxProbeDistance(), stats.getMaxProbeDistance());
+		assertEquals(measured.getMeanProbeDistance(), stats.getMeanProbeDistance(), 1e-9);
+
+		ObjectName name = measured.registerMBean("testStats");
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			CompositeData published = (CompositeData) server.getAttribute(name, "Stats");
+			assertEquals(1000, published.get("size"));
+			assertEquals(2000L, published.get("hitCount"));
+			server.invoke(name, "resetLookupStats", null, null);
+			assertEquals(0, measured.getStats().getHitCount());
+			assertEquals(0, measured.getStats().getTimedLookups());
+			assertTrue(measured.getStats().getResizeCount() >= 3);
+		} finally {
+			server.unregisterMBean(name);
+		}
+	}
 }
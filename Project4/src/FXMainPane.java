@@ -4,13 +4,14 @@
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import javax.swing.JOptionPane;
 import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.geometry.Insets;
@@ -18,6 +19,8 @@ import javafx.geometry.Pos;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
 import javafx.scene.control.RadioButton;
 import javafx.scene.control.TextField;
 import javafx.scene.control.TitledPane;
@@ -59,6 +62,7 @@ public class FXMainPane extends VBox {
 	//declare five VBoxes
 	VBox vBox1, vBox2, vBox3, vBox4, vBox5, vBox6;
 	private Alert alert = new Alert(AlertType.INFORMATION);
+	private static final int PAGE_SIZE = 100;
 	
 	//  declare an instance of DataManager
 	CourseDBManager dataMgr;
@@ -305,13 +309,7 @@ public class FXMainPane extends VBox {
 				getCourse.setDisable(false);
 			} else if (event.getTarget()==showDB) {
 				//System.out.println(dataMgr.showAll());
-				String list = "";
-				ArrayList<String> elements = dataMgr.showAll();
-				for(String element : elements) {
-					list = list+"\n"+element;
-				}
-				alert.setContentText(list);
-				alert.showAndWait();
+				showDatabasePages();
 			}
 			else if (event.getTarget()==getCourse) {
 				//System.out.println("getCourse button selected");
@@ -323,12 +321,9 @@ public class FXMainPane extends VBox {
 				//System.out.println("findCourseButton selected");
 				String crnStr = textfield6.getText();
 				
-				CourseDBElement cde = new CourseDBElement();
-				cde.setCRN(Integer.parseInt(crnStr));
 				System.out.println(dataMgr.get(Integer.parseInt(crnStr)));
 				alert.setContentText(""+dataMgr.get(Integer.parseInt(crnStr)));
 				alert.showAndWait();
-				//System.out.println(cde);
 			}
 			else if (event.getTarget()==exit) {
 				System.exit(0);;
@@ -338,6 +333,53 @@ public class FXMainPane extends VBox {
 		
 
 	}
+	/**
+	 * Shows the database in one scrolling list. The list only creates cells for
+	 * the rows on screen, and courses are fetched a page at a time as those rows
+	 * come near the end of what has been fetched, so opening the list costs one
+	 * page whatever the size of the database.
+	 */
+	private void showDatabasePages() {
+		ObservableList<CourseDBElement> courses = FXCollections.observableArrayList();
+		ListView<CourseDBElement> listView = new ListView<>(courses);
+		Label position = new Label();
+		// the token of the next page to fetch, and whether a fetch is already queued
+		long[] next = {CourseDBPage.FIRST};
+		boolean[] queued = {false};
+		Runnable fetch = () -> {
+			queued[0] = false;
+			if (next[0] == CourseDBPage.END) {
+				return;
+			}
+			CourseDBPage page = dataMgr.page(next[0], PAGE_SIZE);
+			courses.addAll(page.getCourses());
+			next[0] = page.getNextToken();
+			position.setText(courses.size() + (page.hasNext() ? " courses shown, scroll for more" : " courses"));
+		};
+		listView.setCellFactory(view -> new ListCell<CourseDBElement>() {
+			@Override
+			protected void updateItem(CourseDBElement course, boolean empty) {
+				super.updateItem(course, empty);
+				setText(empty || course == null ? null : course.toString().trim());
+				// The items cannot change during layout, so the next page is fetched after it
+				if (!empty && getIndex() >= courses.size() - PAGE_SIZE / 2
+						&& next[0] != CourseDBPage.END && !queued[0]) {
+					queued[0] = true;
+					Platform.runLater(fetch);
+				}
+			}
+		});
+		fetch.run();
+
+		HBox status = new HBox(10, position);
+		status.setAlignment(Pos.CENTER);
+		Alert browser = new Alert(AlertType.INFORMATION);
+		browser.setHeaderText("Course Database");
+		browser.getDialogPane().setContent(new VBox(10, listView, status));
+		browser.setResizable(true);
+		browser.showAndWait();
+	}
+
 	private void setupFields() {
 		textfield1.setDisable(false);
 		textfield2.setDisable(false);